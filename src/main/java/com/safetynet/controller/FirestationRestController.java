@@ -7,9 +7,11 @@ import com.safetynet.dto.firestation.FirestationUpdateDTO;
 import com.safetynet.service.FirestationService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -34,10 +36,14 @@ public class FirestationRestController {
     /**
      * Gets all firestations.
      *
+     * @param request the request, with its If-None-Match header
      * @return the all firestations
      */
     @GetMapping("/firestation")
-    public List<FirestationResponseDTO> getAllFirestations() {
+    public List<FirestationResponseDTO> getAllFirestations(WebRequest request) {
+        if (request.checkNotModified(firestationService.getFirestationsTag())) {
+            return null;
+        }
         return firestationService.findAllFirestations();
     }
 
@@ -45,10 +51,14 @@ public class FirestationRestController {
      * Gets firestation.
      *
      * @param theAddress the address
+     * @param request    the request, with its If-None-Match header
      * @return the firestation
      */
     @GetMapping("/firestation/{theAddress}")
-    public FirestationResponseDTO getFirestation(@PathVariable String theAddress) {
+    public FirestationResponseDTO getFirestation(@PathVariable String theAddress, WebRequest request) {
+        if (request.checkNotModified(firestationService.getFirestationTag(theAddress))) {
+            return null;
+        }
         return firestationService.findFirestationByAddress(theAddress);
     }
 
@@ -70,11 +80,13 @@ public class FirestationRestController {
      *
      * @param theFirestation the firestation
      * @param theAddress     the address
+     * @param ifMatch        the tag of the version read, if any
      * @return the response entity
      */
     @PutMapping("/firestation/{theAddress}")
-    public ResponseEntity<SuccessResponse> updateFirestation(@Valid @RequestBody FirestationUpdateDTO theFirestation, @PathVariable String theAddress) {
-        firestationService.updateFirestation(theFirestation, theAddress);
+    public ResponseEntity<SuccessResponse> updateFirestation(@Valid @RequestBody FirestationUpdateDTO theFirestation, @PathVariable String theAddress,
+                                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        firestationService.updateFirestation(theFirestation, theAddress, ifMatch);
         SuccessResponse response = new SuccessResponse(HttpStatus.OK.value(), "Firestation updated successfully");
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
@@ -83,11 +95,13 @@ public class FirestationRestController {
      * Delete firestation response entity.
      *
      * @param theAddress the address
+     * @param ifMatch    the tag of the version read, if any
      * @return the response entity
      */
     @DeleteMapping("/firestation/{theAddress}")
-    public ResponseEntity<SuccessResponse> deleteFirestation(@PathVariable String theAddress) {
-        firestationService.deleteFirestation(theAddress);
+    public ResponseEntity<SuccessResponse> deleteFirestation(@PathVariable String theAddress,
+                                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        firestationService.deleteFirestation(theAddress, ifMatch);
         SuccessResponse response = new SuccessResponse(HttpStatus.OK.value(), "Firestation deleted successfully");
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
@@ -7,9 +7,11 @@ import com.safetynet.dto.medicalrecord.MedicalRecordUpdateDTO;
 import com.safetynet.service.MedicalRecordService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -34,10 +36,14 @@ public class MedicalRecordRestController {
     /**
      * Gets all medicalrecords.
      *
+     * @param request the request, with its If-None-Match header
      * @return the all medicalrecords
      */
     @GetMapping("/medicalRecord")
-    public List<MedicalRecordResponseDTO> getAllMedicalrecords() {
+    public List<MedicalRecordResponseDTO> getAllMedicalrecords(WebRequest request) {
+        if (request.checkNotModified(medicalRecordService.getMedicalRecordsTag())) {
+            return null;
+        }
         return medicalRecordService.findAllMedicalRecords();
     }
 
@@ -46,10 +52,14 @@ public class MedicalRecordRestController {
      *
      * @param theFirstName the first name
      * @param theLastName  the last name
+     * @param request      the request, with its If-None-Match header
      * @return the medicalrecord
      */
     @GetMapping("/medicalRecord/{theFirstName}-{theLastName}")
-    public MedicalRecordResponseDTO getMedicalrecord(@PathVariable String theFirstName, @PathVariable String theLastName) {
+    public MedicalRecordResponseDTO getMedicalrecord(@PathVariable String theFirstName, @PathVariable String theLastName, WebRequest request) {
+        if (request.checkNotModified(medicalRecordService.getMedicalrecordTag(theFirstName, theLastName))) {
+            return null;
+        }
         return medicalRecordService.findMedicalrecordByFirstNameAndLastName(theFirstName, theLastName);
     }
 
@@ -72,11 +82,13 @@ public class MedicalRecordRestController {
      * @param theMedicalrecord the medicalrecord
      * @param theFirstName     the first name
      * @param theLastName      the last name
+     * @param ifMatch          the tag of the version read, if any
      * @return the response entity
      */
     @PutMapping("/medicalRecord/{theFirstName}-{theLastName}")
-    public ResponseEntity<SuccessResponse> updateMedicalrecord(@Valid @RequestBody MedicalRecordUpdateDTO theMedicalrecord, @PathVariable String theFirstName, @PathVariable String theLastName) {
-        medicalRecordService.updateMedicalrecord(theMedicalrecord, theFirstName, theLastName);
+    public ResponseEntity<SuccessResponse> updateMedicalrecord(@Valid @RequestBody MedicalRecordUpdateDTO theMedicalrecord, @PathVariable String theFirstName, @PathVariable String theLastName,
+                                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        medicalRecordService.updateMedicalrecord(theMedicalrecord, theFirstName, theLastName, ifMatch);
         SuccessResponse response = new SuccessResponse(HttpStatus.OK.value(), "Medical record updated successfully");
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
@@ -86,11 +98,13 @@ public class MedicalRecordRestController {
      *
      * @param theFirstName the first name
      * @param theLastName  the last name
+     * @param ifMatch      the tag of the version read, if any
      * @return the response entity
      */
     @DeleteMapping("/medicalRecord/{theFirstName}-{theLastName}")
-    public ResponseEntity<SuccessResponse> deleteMedicalrecord(@PathVariable String theFirstName, @PathVariable String theLastName) {
-        medicalRecordService.deleteMedicalrecord(theFirstName, theLastName);
+    public ResponseEntity<SuccessResponse> deleteMedicalrecord(@PathVariable String theFirstName, @PathVariable String theLastName,
+                                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        medicalRecordService.deleteMedicalrecord(theFirstName, theLastName, ifMatch);
         SuccessResponse response = new SuccessResponse(HttpStatus.OK.value(), "Medical record deleted successfully");
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
@@ -7,9 +7,11 @@ import com.safetynet.dto.person.PersonUpdateDTO;
 import com.safetynet.service.PersonService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -34,10 +36,14 @@ public class PersonRestController {
     /**
      * Gets all persons.
      *
+     * @param request the request, with its If-None-Match header
      * @return the all persons
      */
     @GetMapping("/person")
-    public List<PersonResponseDTO> getAllPersons() {
+    public List<PersonResponseDTO> getAllPersons(WebRequest request) {
+        if (request.checkNotModified(personService.getPersonsTag())) {
+            return null;
+        }
         return personService.findAllPersons();
     }
 
@@ -46,10 +52,14 @@ public class PersonRestController {
      *
      * @param theFirstName the first name
      * @param theLastName  the last name
+     * @param request      the request, with its If-None-Match header
      * @return the person
      */
     @GetMapping("/person/{theFirstName}-{theLastName}")
-    public PersonResponseDTO getPerson(@PathVariable String theFirstName, @PathVariable String theLastName) {
+    public PersonResponseDTO getPerson(@PathVariable String theFirstName, @PathVariable String theLastName, WebRequest request) {
+        if (request.checkNotModified(personService.getPersonTag(theFirstName, theLastName))) {
+            return null;
+        }
         return personService.findPersonByFirstNameAndLastName(theFirstName, theLastName);
     }
 
@@ -72,11 +82,13 @@ public class PersonRestController {
      * @param thePerson    the person
      * @param theFirstName the first name
      * @param theLastName  the last name
+     * @param ifMatch      the tag of the version read, if any
      * @return the response entity
      */
     @PutMapping("/person/{theFirstName}-{theLastName}")
-    public ResponseEntity<SuccessResponse> updatePerson(@Valid @RequestBody PersonUpdateDTO thePerson, @PathVariable String theFirstName, @PathVariable String theLastName) {
-        personService.updatePerson(thePerson, theFirstName, theLastName);
+    public ResponseEntity<SuccessResponse> updatePerson(@Valid @RequestBody PersonUpdateDTO thePerson, @PathVariable String theFirstName, @PathVariable String theLastName,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        personService.updatePerson(thePerson, theFirstName, theLastName, ifMatch);
         SuccessResponse response = new SuccessResponse(HttpStatus.OK.value(), "Person updated successfully");
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
@@ -86,11 +98,13 @@ public class PersonRestController {
      *
      * @param theFirstName the first name
      * @param theLastName  the last name
+     * @param ifMatch      the tag of the version read, if any
      * @return the response entity
      */
     @DeleteMapping("/person/{theFirstName}-{theLastName}")
-    public ResponseEntity<SuccessResponse> deletePerson(@PathVariable String theFirstName, @PathVariable String theLastName) {
-        personService.deletePerson(theFirstName, theLastName);
+    public ResponseEntity<SuccessResponse> deletePerson(@PathVariable String theFirstName, @PathVariable String theLastName,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        personService.deletePerson(theFirstName, theLastName, ifMatch);
         SuccessResponse response = new SuccessResponse(HttpStatus.OK.value(), "Person deleted successfully");
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
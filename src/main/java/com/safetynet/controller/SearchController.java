@@ -2,22 +2,34 @@ package com.safetynet.controller;
 
 import com.safetynet.dto.search.*;
 import com.safetynet.service.SearchService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
 /**
  * The type Search controller.
+ * <p>
+ * Each answer is tagged with the versions of the data it depends on : a request whose If-None-Match holds the current tag
+ * is answered 304 Not Modified, before anything is computed.
+ * The pages out of range are rejected with 400 Bad Request.
  */
 @Controller
 @ResponseBody
+@Validated
 public class SearchController {
 
+    private static final String PAGE_MESSAGE = "The page must be 0 or more";
+    private static final String SIZE_MESSAGE = "The page size must be between 1 and " + SearchService.MAX_PAGE_SIZE;
+
     @Autowired
     private SearchService searchService;
 
@@ -25,10 +37,14 @@ public class SearchController {
      * Gets covered persons by station.
      *
      * @param stationNumber the station number
+     * @param request       the request, with its If-None-Match header
      * @return the covered persons by station
      */
     @GetMapping("/firestationCoverage")
-    public FirestationCoverageResponseDTO getCoveredPersonsByStation(@RequestParam int stationNumber) {
+    public FirestationCoverageResponseDTO getCoveredPersonsByStation(@RequestParam int stationNumber, WebRequest request) {
+        if (request.checkNotModified(searchService.getResidentsTag())) {
+            return null;
+        }
         return searchService.getCoveredPersonsByStation(stationNumber);
     }
 
@@ -36,10 +52,14 @@ public class SearchController {
      * Gets children by address.
      *
      * @param address the address
+     * @param request the request, with its If-None-Match header
      * @return the children by address
      */
     @GetMapping("/childAlert")
-    public ChildAlertResponseDTO getChildrenByAddress(@RequestParam String address) {
+    public ChildAlertResponseDTO getChildrenByAddress(@RequestParam String address, WebRequest request) {
+        if (request.checkNotModified(searchService.getResidentsTag())) {
+            return null;
+        }
         return searchService.getChildrenByAddress(address);
     }
 
@@ -47,10 +67,14 @@ public class SearchController {
      * Gets phones by station.
      *
      * @param stationNumber the station number
+     * @param request       the request, with its If-None-Match header
      * @return the phones by station
      */
     @GetMapping("/phoneAlert")
-    public PhoneAlertResponseDTO getPhonesByStation(@RequestParam int stationNumber) {
+    public PhoneAlertResponseDTO getPhonesByStation(@RequestParam int stationNumber, WebRequest request) {
+        if (request.checkNotModified(searchService.getPhonesTag())) {
+            return null;
+        }
         return searchService.getPhonesByStation(stationNumber);
     }
 
@@ -58,10 +82,14 @@ public class SearchController {
      * Gets persons by address station.
      *
      * @param address the address
+     * @param request the request, with its If-None-Match header
      * @return the persons by address station
      */
     @GetMapping("/fire")
-    public FireResponseDTO getPersonsByAddressStation(@RequestParam String address) {
+    public FireResponseDTO getPersonsByAddressStation(@RequestParam String address, WebRequest request) {
+        if (request.checkNotModified(searchService.getResidentsTag())) {
+            return null;
+        }
         return searchService.getPersonsByAddressStation(address);
     }
 
@@ -69,10 +97,14 @@ public class SearchController {
      * Gets persons by stations with medical record.
      *
      * @param stationNumbers the station numbers
+     * @param request        the request, with its If-None-Match header
      * @return the persons by stations with medical record
      */
     @GetMapping("/flood/stations")
-    public FloodStationsResponseDTO getPersonsByStationsWithMedicalRecord(@RequestParam List<Integer> stationNumbers) {
+    public FloodStationsResponseDTO getPersonsByStationsWithMedicalRecord(@RequestParam List<Integer> stationNumbers, WebRequest request) {
+        if (request.checkNotModified(searchService.getResidentsTag())) {
+            return null;
+        }
         return searchService.getPersonsByStationsWithMedicalRecord(stationNumbers);
     }
 
@@ -80,21 +112,79 @@ public class SearchController {
      * Gets person by last name with medical record.
      *
      * @param lastName the last name
+     * @param page     the page number, from 0
+     * @param size     the page size, up to MAX_PAGE_SIZE
+     * @param request  the request, with its If-None-Match header
      * @return the person by last name with medical record
      */
     @GetMapping("/personInfoLastName={lastName}")
-    public PersonsInfoLastNameResponseDTO getPersonByLastNameWithMedicalRecord(@PathVariable String lastName) {
-        return searchService.getPersonByLastNameWithMedicalRecord(lastName);
+    public PersonsInfoLastNameResponseDTO getPersonByLastNameWithMedicalRecord(@PathVariable String lastName,
+                                                                               @RequestParam(defaultValue = "0") @Min(value = 0, message = PAGE_MESSAGE) int page,
+                                                                               @RequestParam(defaultValue = "100") @Min(value = 1, message = SIZE_MESSAGE)
+                                                                               @Max(value = SearchService.MAX_PAGE_SIZE, message = SIZE_MESSAGE) int size,
+                                                                               WebRequest request) {
+        if (request.checkNotModified(searchService.getResidentsTag())) {
+            return null;
+        }
+        return searchService.getPersonByLastNameWithMedicalRecord(lastName, page, size);
+    }
+
+    /**
+     * Gets persons by last name prefix, for autocompletion.
+     *
+     * @param prefix  the start of the last name
+     * @param page    the page number, from 0
+     * @param size    the page size, up to MAX_PAGE_SIZE
+     * @param request the request, with its If-None-Match header
+     * @return the persons by last name prefix
+     */
+    @GetMapping("/personInfoLastName/prefix")
+    public PersonsInfoLastNameResponseDTO getPersonsByLastNamePrefix(@RequestParam String prefix,
+                                                                     @RequestParam(defaultValue = "0") @Min(value = 0, message = PAGE_MESSAGE) int page,
+                                                                     @RequestParam(defaultValue = "100") @Min(value = 1, message = SIZE_MESSAGE)
+                                                                     @Max(value = SearchService.MAX_PAGE_SIZE, message = SIZE_MESSAGE) int size,
+                                                                     WebRequest request) {
+        if (request.checkNotModified(searchService.getResidentsTag())) {
+            return null;
+        }
+        return searchService.getPersonsByLastNamePrefix(prefix, page, size);
+    }
+
+    /**
+     * Gets persons by last name range.
+     *
+     * @param from    the first last name, included
+     * @param to      the last last name, excluded
+     * @param page    the page number, from 0
+     * @param size    the page size, up to MAX_PAGE_SIZE
+     * @param request the request, with its If-None-Match header
+     * @return the persons by last name range
+     */
+    @GetMapping("/personInfoLastName/range")
+    public PersonsInfoLastNameResponseDTO getPersonsByLastNameRange(@RequestParam(required = false) String from,
+                                                                    @RequestParam(required = false) String to,
+                                                                    @RequestParam(defaultValue = "0") @Min(value = 0, message = PAGE_MESSAGE) int page,
+                                                                    @RequestParam(defaultValue = "100") @Min(value = 1, message = SIZE_MESSAGE)
+                                                                    @Max(value = SearchService.MAX_PAGE_SIZE, message = SIZE_MESSAGE) int size,
+                                                                    WebRequest request) {
+        if (request.checkNotModified(searchService.getResidentsTag())) {
+            return null;
+        }
+        return searchService.getPersonsByLastNameRange(from, to, page, size);
     }
 
     /**
      * Gets emails by city.
      *
-     * @param city the city
+     * @param city    the city
+     * @param request the request, with its If-None-Match header
      * @return the emails by city
      */
     @GetMapping("/communityEmail")
-    public CommunityEmailResponseDTO getEmailsByCity(@RequestParam String city) {
+    public CommunityEmailResponseDTO getEmailsByCity(@RequestParam String city, WebRequest request) {
+        if (request.checkNotModified(searchService.getEmailsTag())) {
+            return null;
+        }
         return searchService.getEmailsByCity(city);
     }
 
@@ -14,4 +14,8 @@ public class PersonsInfoLastNameResponseDTO {
 
     List<PersonForPersonsInfoLastNameResponseDTO> persons;
 
+    private int page;
+    private int size;
+    private boolean hasNext;
+
 }
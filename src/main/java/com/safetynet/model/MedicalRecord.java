@@ -1,20 +1,97 @@
 package com.safetynet.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
 import java.util.List;
 
 @Setter @Getter
 @NoArgsConstructor
-@AllArgsConstructor
 @ToString
 @EqualsAndHashCode
 public class MedicalRecord {
 
+    // Strict : 02/30/2000 is rejected rather than read as 02/29/2000
+    private static final DateTimeFormatter BIRTHDATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+    private static final long INVALID = Long.MIN_VALUE;
+
     private String firstName;
     private String lastName;
     private String birthdate;
     private List<String> medications;
     private List<String> allergies;
 
+    // The birthdate parsed with it, in epoch days, INVALID if missing or not a date
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) @ToString.Exclude
+    private transient long birthEpochDay = INVALID;
+
+    /**
+     * Instantiates a new Medical record.
+     *
+     * @param firstName   the first name
+     * @param lastName    the last name
+     * @param birthdate   the birthdate, MM/dd/yyyy
+     * @param medications the medications
+     * @param allergies   the allergies
+     */
+    public MedicalRecord(String firstName, String lastName, String birthdate, List<String> medications, List<String> allergies) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.birthdate = birthdate;
+        this.birthEpochDay = parse(birthdate);
+        this.medications = medications;
+        this.allergies = allergies;
+    }
+
+    /**
+     * Sets birthdate, and parses it.
+     *
+     * @param birthdate the birthdate, MM/dd/yyyy
+     */
+    public void setBirthdate(String birthdate) {
+        this.birthdate = birthdate;
+        this.birthEpochDay = parse(birthdate);
+    }
+
+    /**
+     * Whether the birthdate is a valid date, parsed when it was set.
+     *
+     * @return true if the birthdate is a date, MM/dd/yyyy
+     */
+    @JsonIgnore
+    public boolean hasValidBirthdate() {
+        return birthEpochDay != INVALID;
+    }
+
+    /**
+     * Gets the birthdate in epoch days, parsed when it was set.
+     *
+     * @return the birthdate, in days since 01/01/1970
+     * @throws IllegalStateException if the birthdate is missing or is not a date
+     */
+    @JsonIgnore
+    public long getBirthEpochDay() {
+        if (birthEpochDay == INVALID) {
+            throw new IllegalStateException("Invalid birthdate for " + firstName + " " + lastName + " : " + birthdate);
+        }
+        return birthEpochDay;
+    }
+
+    private static long parse(String birthdate) {
+        if (birthdate == null) {
+            return INVALID;
+        }
+
+        try {
+            return LocalDate.parse(birthdate, BIRTHDATE_FORMAT).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return INVALID;
+        }
+    }
+
 }
@@ -0,0 +1,414 @@
+package com.safetynet.repository;
+
+import com.safetynet.model.Firestation;
+import com.safetynet.model.MedicalRecord;
+import com.safetynet.model.Person;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The type Binary snapshot.
+ * <p>
+ * A copy of the dataset in a compact binary form, written next to each snapshot of the data file and loaded instead of it
+ * at startup, as long as the data file did not change since : nothing is parsed, the strings are decoded once each.
+ * <p>
+ * Layout, the integers being unsigned LEB128 varints unless stated otherwise :
+ * <pre>
+ * header    magic (int), version (int), size and modification time of the data file (long, long), journal sequence (long)
+ * sections  the dictionary (every distinct string, length-prefixed UTF-8), then one section per {@link DataSection},
+ *           each entity being written field after field, its strings as dictionary ids (0 for null)
+ * table     number of sections, then the tag, offset and length of each section
+ * trailer   offset of the table (long), CRC32 of everything before it (int)
+ * </pre>
+ * The sections are found through the table, so a reader skips the sections it does not know.
+ */
+public class BinarySnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinarySnapshot.class);
+
+    private static final int MAGIC = 0x534E4253;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int TRAILER_SIZE = 12;
+
+    private static final int DICTIONARY_TAG = 0;
+
+    private final Path path;
+    private final Path tempPath;
+
+    /**
+     * Instantiates a new Binary snapshot.
+     *
+     * @param path the snapshot file
+     */
+    public BinarySnapshot(Path path) {
+        this.path = path;
+        this.tempPath = Path.of(path + ".tmp");
+    }
+
+    /**
+     * Write the snapshot of a dataset, replacing the previous one.
+     * <p>
+     * The snapshot is not synced : losing it only costs a slower start, from the data file.
+     *
+     * @param dataset the dataset
+     * @param source  the fingerprint of the data file holding the same dataset
+     * @throws IOException the io exception
+     */
+    public void write(Dataset dataset, FileFingerprint source) throws IOException {
+        long start = System.nanoTime();
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (DataSection section : DataSection.values()) {
+            for (Object entity : dataset.sectionList(section)) {
+                forEachString(section, entity, string -> {
+                    if (string != null) {
+                        dictionary.putIfAbsent(string, dictionary.size() + 1);
+                    }
+                });
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        try (Encoder out = new Encoder(Files.newOutputStream(tempPath), crc)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(source.size());
+            out.writeLong(source.lastModified());
+            out.writeLong(dataset.getJournalSequence());
+
+            List<long[]> table = new ArrayList<>();
+
+            long offset = out.position();
+            out.writeVarLong(dictionary.size());
+            for (String string : dictionary.keySet()) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeVarLong(bytes.length);
+                out.write(bytes);
+            }
+            table.add(new long[]{DICTIONARY_TAG, offset, out.position() - offset});
+
+            for (DataSection section : DataSection.values()) {
+                offset = out.position();
+                List<Object> entities = dataset.sectionList(section);
+                out.writeVarLong(entities.size());
+                for (Object entity : entities) {
+                    writeEntity(out, section, entity, dictionary);
+                }
+                table.add(new long[]{tagOf(section), offset, out.position() - offset});
+            }
+
+            long tableOffset = out.position();
+            out.writeVarLong(table.size());
+            for (long[] entry : table) {
+                for (long value : entry) {
+                    out.writeVarLong(value);
+                }
+            }
+
+            out.writeLong(tableOffset);
+            out.flush();
+            out.writeUnchecksummedInt((int) crc.getValue());
+        }
+
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Binary snapshot {} written in {} ms ({} distinct strings)", path,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), dictionary.size());
+    }
+
+    /**
+     * Load the snapshot, if it was written from the data file as it is now.
+     * The file is memory-mapped.
+     *
+     * @param source the current fingerprint of the data file
+     * @return the dataset, or null if there is no snapshot or it is stale
+     * @throws IOException if the snapshot is invalid
+     */
+    public Dataset read(FileFingerprint source) throws IOException {
+        long start = System.nanoTime();
+        MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected size of the binary snapshot " + path + " : " + size);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a binary snapshot of version " + VERSION + " : " + path);
+        }
+        if (buffer.getLong(8) != source.size() || buffer.getLong(16) != source.lastModified()) {
+            logger.info("The binary snapshot {} is stale", path);
+            return null;
+        }
+
+        int crcOffset = buffer.limit() - 4;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, crcOffset));
+        if ((int) crc.getValue() != buffer.getInt(crcOffset)) {
+            throw new IOException("Checksum mismatch in the binary snapshot " + path);
+        }
+
+        Dataset dataset;
+        try {
+            dataset = decode(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Invalid binary snapshot " + path, e);
+        }
+
+        logger.info("Binary snapshot {} loaded in {} ms", path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return dataset;
+    }
+
+    private Dataset decode(ByteBuffer buffer) {
+        Dataset dataset = new Dataset();
+        dataset.setJournalSequence(buffer.getLong(24));
+
+        Map<Integer, ByteBuffer> sections = new HashMap<>();
+        int tableOffset = (int) buffer.getLong(buffer.limit() - TRAILER_SIZE);
+        ByteBuffer table = buffer.slice(tableOffset, buffer.limit() - TRAILER_SIZE - tableOffset);
+        long count = readVarLong(table);
+        for (long i = 0; i < count; i++) {
+            int tag = (int) readVarLong(table);
+            int offset = (int) readVarLong(table);
+            int length = (int) readVarLong(table);
+            sections.put(tag, buffer.slice(offset, length));
+        }
+
+        ByteBuffer dictionarySection = sections.get(DICTIONARY_TAG);
+        if (dictionarySection == null) {
+            throw new IllegalArgumentException("No dictionary");
+        }
+        String[] dictionary = new String[(int) readVarLong(dictionarySection) + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            byte[] bytes = new byte[(int) readVarLong(dictionarySection)];
+            dictionarySection.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        for (DataSection section : DataSection.values()) {
+            ByteBuffer in = sections.get(tagOf(section));
+            if (in == null) {
+                continue;
+            }
+            long size = readVarLong(in);
+            List<Object> entities = new ArrayList<>((int) size);
+            for (long i = 0; i < size; i++) {
+                entities.add(readEntity(in, section, dictionary));
+            }
+            dataset.sectionList(section).addAll(entities);
+        }
+        return dataset;
+    }
+
+    private static int tagOf(DataSection section) {
+        return section.ordinal() + 1;
+    }
+
+    // The strings of an entity, in the order they are written
+    private static void forEachString(DataSection section, Object entity, Consumer<String> consumer) {
+        switch (section) {
+            case PERSONS -> {
+                Person person = (Person) entity;
+                consumer.accept(person.getFirstName());
+                consumer.accept(person.getLastName());
+                consumer.accept(person.getAddress());
+                consumer.accept(person.getCity());
+                consumer.accept(person.getPhone());
+                consumer.accept(person.getEmail());
+            }
+            case FIRESTATIONS -> consumer.accept(((Firestation) entity).getAddress());
+            case MEDICAL_RECORDS -> {
+                MedicalRecord medicalRecord = (MedicalRecord) entity;
+                consumer.accept(medicalRecord.getFirstName());
+                consumer.accept(medicalRecord.getLastName());
+                consumer.accept(medicalRecord.getBirthdate());
+                if (medicalRecord.getMedications() != null) {
+                    medicalRecord.getMedications().forEach(consumer);
+                }
+                if (medicalRecord.getAllergies() != null) {
+                    medicalRecord.getAllergies().forEach(consumer);
+                }
+            }
+        }
+    }
+
+    private static void writeEntity(Encoder out, DataSection section, Object entity, Map<String, Integer> dictionary) throws IOException {
+        switch (section) {
+            case PERSONS -> {
+                Person person = (Person) entity;
+                out.writeString(person.getFirstName(), dictionary);
+                out.writeString(person.getLastName(), dictionary);
+                out.writeString(person.getAddress(), dictionary);
+                out.writeString(person.getCity(), dictionary);
+                out.writeVarLong(zigZag(person.getZip()));
+                out.writeString(person.getPhone(), dictionary);
+                out.writeString(person.getEmail(), dictionary);
+            }
+            case FIRESTATIONS -> {
+                Firestation firestation = (Firestation) entity;
+                out.writeString(firestation.getAddress(), dictionary);
+                out.writeVarLong(zigZag(firestation.getStation()));
+            }
+            case MEDICAL_RECORDS -> {
+                MedicalRecord medicalRecord = (MedicalRecord) entity;
+                out.writeString(medicalRecord.getFirstName(), dictionary);
+                out.writeString(medicalRecord.getLastName(), dictionary);
+                out.writeString(medicalRecord.getBirthdate(), dictionary);
+                out.writeStrings(medicalRecord.getMedications(), dictionary);
+                out.writeStrings(medicalRecord.getAllergies(), dictionary);
+            }
+        }
+    }
+
+    private static Object readEntity(ByteBuffer in, DataSection section, String[] dictionary) {
+        return switch (section) {
+            case PERSONS -> new Person(
+                    readString(in, dictionary),
+                    readString(in, dictionary),
+                    readString(in, dictionary),
+                    readString(in, dictionary),
+                    unZigZag(readVarLong(in)),
+                    readString(in, dictionary),
+                    readString(in, dictionary));
+            case FIRESTATIONS -> new Firestation(readString(in, dictionary), (int) unZigZag(readVarLong(in)));
+            case MEDICAL_RECORDS -> new MedicalRecord(
+                    readString(in, dictionary),
+                    readString(in, dictionary),
+                    readString(in, dictionary),
+                    readStrings(in, dictionary),
+                    readStrings(in, dictionary));
+        };
+    }
+
+    private static String readString(ByteBuffer in, String[] dictionary) {
+        int id = (int) readVarLong(in);
+        return id == 0 ? null : dictionary[id];
+    }
+
+    // A list is written as its size plus one, 0 standing for a null list
+    private static List<String> readStrings(ByteBuffer in, String[] dictionary) {
+        int size = (int) readVarLong(in);
+        if (size == 0) {
+            return null;
+        }
+        List<String> strings = new ArrayList<>(size - 1);
+        for (int i = 1; i < size; i++) {
+            strings.add(readString(in, dictionary));
+        }
+        return strings;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Buffered output keeping track of its position, the last int being written after the checksum is taken
+    private static class Encoder implements AutoCloseable {
+
+        private final OutputStream file;
+        private final DataOutputStream out;
+
+        Encoder(OutputStream file, CRC32 crc) {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+        }
+
+        long position() {
+            return out.size();
+        }
+
+        void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+        }
+
+        void writeInt(int value) throws IOException {
+            out.writeInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void writeString(String string, Map<String, Integer> dictionary) throws IOException {
+            writeVarLong(string == null ? 0 : dictionary.get(string));
+        }
+
+        void writeStrings(List<String> strings, Map<String, Integer> dictionary) throws IOException {
+            if (strings == null) {
+                writeVarLong(0);
+                return;
+            }
+            writeVarLong(strings.size() + 1L);
+            for (String string : strings) {
+                writeString(string, dictionary);
+            }
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        // Straight to the file, bypassing the checksum
+        void writeUnchecksummedInt(int value) throws IOException {
+            file.write(new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
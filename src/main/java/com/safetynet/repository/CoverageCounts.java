@@ -0,0 +1,35 @@
+package com.safetynet.repository;
+
+/**
+ * The residents covered by a station, counted by age group.
+ *
+ * @param adults       the residents of 18 or more
+ * @param children     the residents under 18
+ * @param unclassified the residents with no medical record, or an invalid birthdate
+ */
+public record CoverageCounts(int adults, int children, int unclassified) {
+
+    /**
+     * No resident.
+     */
+    public static final CoverageCounts NONE = new CoverageCounts(0, 0, 0);
+
+    /**
+     * Gets residents.
+     *
+     * @return the number of residents
+     */
+    public int residents() {
+        return adults + children + unclassified;
+    }
+
+    /**
+     * Plus coverage counts.
+     *
+     * @param other the counts to add
+     * @return the sum
+     */
+    public CoverageCounts plus(CoverageCounts other) {
+        return new CoverageCounts(adults + other.adults, children + other.children, unclassified + other.unclassified);
+    }
+}
@@ -0,0 +1,130 @@
+package com.safetynet.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Data file watcher.
+ * <p>
+ * Watches the data file of the {@link DataRepository} and reloads it when it is replaced from outside.
+ * A file being copied is touched several times : the reload waits until the file is left alone for a quiet period.
+ * The writes of the application itself are recognized by the repository and do not trigger a reload.
+ */
+@Component
+@ConditionalOnProperty(name = "safetynet.data.hot-reload", havingValue = "true")
+public class DataFileWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataFileWatcher.class);
+
+    private final DataRepository dataRepository;
+    private final Path dataFile;
+    private final Duration quietPeriod;
+
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Instantiates a new Data file watcher.
+     *
+     * @param dataRepository the data repository
+     * @param dataFile       the data file of the repository
+     * @param quietPeriod    how long the data file must be left alone before it is reloaded
+     */
+    public DataFileWatcher(DataRepository dataRepository,
+                           @Value("${safetynet.data.file:src/main/resources/data.json}") String dataFile,
+                           @Value("${safetynet.data.hot-reload-quiet-period:500ms}") Duration quietPeriod) {
+        this.dataRepository = dataRepository;
+        this.dataFile = Path.of(dataFile).toAbsolutePath();
+        this.quietPeriod = quietPeriod;
+    }
+
+    /**
+     * Start watching the data file.
+     *
+     * @throws IOException if the directory of the data file cannot be watched
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Path fileName = dataFile.getFileName();
+
+        watchService = dataFile.getFileSystem().newWatchService();
+        dataFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        thread = new Thread(() -> watch(fileName), "data-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Watching {} for changes", dataFile);
+    }
+
+    private void watch(Path fileName) {
+        try {
+            while (true) {
+                if (!concerns(watchService.take(), fileName)) {
+                    continue;
+                }
+
+                // Wait until the data file has not been touched for the quiet period
+                long deadline = System.nanoTime() + quietPeriod.toNanos();
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    WatchKey key = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (key != null && concerns(key, fileName)) {
+                        deadline = System.nanoTime() + quietPeriod.toNanos();
+                    }
+                }
+
+                dataRepository.reloadIfChanged();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    private static boolean concerns(WatchKey key, Path fileName) {
+        boolean concerned = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // Events were lost : the data file may be among them
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                concerned = true;
+            }
+        }
+        key.reset();
+        return concerned;
+    }
+
+    /**
+     * Stop watching the data file.
+     *
+     * @throws IOException the io exception
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
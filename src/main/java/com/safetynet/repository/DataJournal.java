@@ -0,0 +1,264 @@
+package com.safetynet.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The type Data journal.
+ * <p>
+ * Append-only log of the mutations applied since the last snapshot of the data file.
+ * Each mutation is written as one JSON line, so a write costs the size of the mutation
+ * instead of the size of the whole dataset.
+ */
+public class DataJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataJournal.class);
+
+    private final Path path;
+    private final Path rotatedPath;
+    private final ObjectMapper mapper;
+    private final DurabilityStats stats;
+    private FileChannel channel;
+    private long lastSequence;
+    // Set when a failed append could not be cut from the file : the journal then refuses any other append
+    private IOException failure;
+
+    /**
+     * Instantiates a new Data journal.
+     *
+     * @param path   the journal file
+     * @param mapper the mapper used to (de)serialize the mutations
+     * @param stats  where the cost of the syncs is recorded
+     */
+    public DataJournal(Path path, ObjectMapper mapper, DurabilityStats stats) {
+        this.path = path;
+        this.rotatedPath = Path.of(path + ".compacting");
+        this.mapper = mapper;
+        this.stats = stats;
+    }
+
+    /**
+     * Replay the mutations of the journal written after the given sequence, in the order they were written,
+     * then open it for appending.
+     * <p>
+     * The file left by an interrupted compaction, if any, is replayed first.
+     * A torn last line (crash in the middle of an append) is dropped and cut from the file,
+     * so the next appends do not end up glued to it.
+     *
+     * @param afterSequence the sequence already contained in the snapshot
+     * @param consumer      receives each mutation
+     * @throws IOException if the journal cannot be read or opened
+     */
+    public void replay(long afterSequence, Consumer<Mutation> consumer) throws IOException {
+        lastSequence = afterSequence;
+
+        if (Files.exists(rotatedPath)) {
+            replayFile(rotatedPath, afterSequence, consumer);
+        }
+        long validLength = replayFile(path, afterSequence, consumer);
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > validLength) {
+            channel.truncate(validLength);
+        }
+        channel.position(channel.size());
+
+        // The last record is complete but its line break was never written
+        if (channel.size() < validLength) {
+            write("\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private long replayFile(Path file, long afterSequence, Consumer<Mutation> consumer) throws IOException {
+        long validLength = 0;
+        int count = 0;
+
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    Mutation mutation;
+                    try {
+                        mutation = mapper.readValue(line, Mutation.class);
+                    } catch (JsonProcessingException e) {
+                        logger.warn("Ignoring a torn record at the end of the journal {}", file);
+                        break;
+                    }
+
+                    // Already folded into the snapshot by a compaction
+                    if (mutation.getSequence() > afterSequence) {
+                        consumer.accept(mutation);
+                        lastSequence = Math.max(lastSequence, mutation.getSequence());
+                        count++;
+                    }
+                }
+                validLength += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+        }
+
+        logger.info("{} mutations replayed from the journal {}", count, file);
+        return validLength;
+    }
+
+    /**
+     * Move the current journal aside and start a new one, so a compaction can fold the old one
+     * into a snapshot while the writes keep going to the new one.
+     *
+     * @throws IOException if the journal cannot be rotated
+     */
+    public synchronized void rotate() throws IOException {
+        channel.force(false);
+
+        if (Files.exists(rotatedPath)) {
+            // A previous compaction failed : its mutations are not in any snapshot yet, so they are kept
+            try (FileChannel rotated = FileChannel.open(rotatedPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.transferTo(0, channel.size(), rotated);
+                rotated.force(false);
+            }
+            channel.truncate(0);
+            channel.position(0);
+            return;
+        }
+
+        channel.close();
+        Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Delete the journal moved aside by {@link #rotate()}, once its mutations are safely in a snapshot.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    public void discardRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+    }
+
+    /**
+     * Drop every mutation of the journal, the data file having been replaced by one that supersedes them.
+     * The next mutations are numbered after the given sequence, so they are replayed on top of the new file.
+     *
+     * @param sequence the journal sequence of the new data file
+     * @throws IOException if the journal cannot be emptied
+     */
+    public synchronized void reset(long sequence) throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(false);
+        Files.deleteIfExists(rotatedPath);
+        lastSequence = Math.max(lastSequence, sequence);
+    }
+
+    /**
+     * Gets size.
+     *
+     * @return the size in bytes of the current journal
+     */
+    public synchronized long getSize() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            logger.warn("Cannot read the size of the journal {}", path, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Append a batch of mutations and force them to disk with a single sync before returning.
+     * Each mutation receives the next sequence number of the journal.
+     * <p>
+     * A batch that fails to be written or synced is cut from the file, so that it is never replayed, and its sequences
+     * are given again to the next batch. If it cannot be cut, the journal refuses any other append.
+     *
+     * @param mutations the mutations
+     * @throws IOException if the mutations cannot be written
+     */
+    public synchronized void appendAll(List<Mutation> mutations) throws IOException {
+        if (failure != null) {
+            throw new IOException("The journal " + path + " holds a batch that failed to be written", failure);
+        }
+
+        StringBuilder lines = new StringBuilder();
+        long sequence = lastSequence;
+        for (Mutation mutation : mutations) {
+            mutation.setSequence(++sequence);
+            lines.append(mapper.writeValueAsString(mutation)).append('\n');
+        }
+
+        long end = channel.position();
+        try {
+            write(lines.toString().getBytes(StandardCharsets.UTF_8));
+
+            long start = System.nanoTime();
+            force();
+            stats.recordJournalSync(mutations.size(), System.nanoTime() - start);
+        } catch (IOException e) {
+            discardFrom(end, e);
+            throw e;
+        }
+
+        lastSequence = sequence;
+    }
+
+    private void discardFrom(long end, IOException cause) {
+        try {
+            channel.truncate(end);
+            channel.position(end);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            failure = cause;
+            logger.error("Cannot cut a failed batch from the journal {} : no other mutation is accepted", path, e);
+        }
+    }
+
+    /**
+     * Force the appended mutations to disk.
+     *
+     * @throws IOException if the sync fails
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Gets last sequence.
+     *
+     * @return the sequence number of the last mutation written or replayed
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -1,45 +1,65 @@
 package com.safetynet.repository;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.type.CollectionType;
 import com.safetynet.model.Firestation;
 import com.safetynet.model.MedicalRecord;
 import com.safetynet.model.Person;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.List;
 
 /**
  * The type Data repository.
+ * <p>
+ * The entry point of the services to the data, kept by the {@link StorageEngine} chosen for the deployment.
  */
 @Component
 public class DataRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(DataRepository.class);
 
-    /**
-     * The constant FILE_PATH.
-     */
-    public static String FILE_PATH = "src/main/resources/data.json";
-    private final ObjectMapper mapper = new ObjectMapper();
-    private JsonNode rootNode;
+    // Replaced as a whole by a reset
+    private volatile StorageEngine engine;
 
-    // Accessible from their respective getters
-    @Getter
-    private List<Person> persons;
-    @Getter
-    private List<Firestation> firestations;
+    // The data file, next to which the engines keep their journal, snapshots and segments
+    @Value("${safetynet.data.file:src/main/resources/data.json}")
+    private String dataFile = "src/main/resources/data.json";
+
+    // What the durability of the writes costs, logged at each compaction
     @Getter
-    private List<MedicalRecord> medicalRecords;
+    private final DurabilityStats durabilityStats = new DurabilityStats();
+
+    @Value("${safetynet.storage.engine:journaled}")
+    private StorageEngine.Type engineType = StorageEngine.Type.JOURNALED;
+
+    // How long the journal writer waits for concurrent mutations to commit them together
+    @Value("${safetynet.journal.group-commit.window:2ms}")
+    private Duration commitWindow = Duration.ofMillis(2);
+    @Value("${safetynet.journal.group-commit.max-batch-size:256}")
+    private int maxBatchSize = 256;
+
+    // Deserialize the sections of the data file concurrently at startup
+    @Value("${safetynet.data.parallel-load:false}")
+    private boolean parallelLoad;
+
+    // Keep a binary copy of the data file next to it, loaded instead of it at startup while it is up to date
+    @Value("${safetynet.data.binary-snapshot:true}")
+    private boolean binarySnapshotEnabled = true;
+
+    // Reload the data file when it is replaced from outside, instead of overwriting it at the next compaction
+    @Value("${safetynet.data.hot-reload:false}")
+    private boolean hotReload;
 
     // Load the JSON file only once at the start of the application.
     // This ensures that the data is available in memory for all subsequent calls.
@@ -48,78 +68,157 @@ public class DataRepository {
      */
     @PostConstruct
     public void init() {
-        try {
-            rootNode = mapper.readTree(new File(FILE_PATH));
+        engine = openEngine();
+    }
 
-            // The loaded data is sent to its respective "cache" variable (for performance issues)
-            persons = readData("persons", Person.class);
-            firestations = readData("firestations", Firestation.class);
-            medicalRecords = readData("medicalrecords", MedicalRecord.class);
+    private StorageEngine openEngine() {
+        StorageSettings settings = new StorageSettings(commitWindow, maxBatchSize, parallelLoad, binarySnapshotEnabled, hotReload);
+        StorageEngine opened = StorageEngine.create(engineType, Path.of(dataFile), settings, durabilityStats);
 
-            logger.info("JSON file loaded successfully.");
+        try {
+            opened.open();
+            logger.info("JSON file loaded successfully with the {} storage engine.", engineType);
         } catch (IOException e) {
             logger.error("Error reading the JSON file", e);
             throw new RuntimeException("Failed to load JSON file", e);
         }
+        return opened;
     }
 
     /**
-     * Read data list.
+     * Replace the data by the content of another data file, as if the application was started on it :
+     * the mutations not compacted yet are dropped with the journal, snapshots and segments of the previous data.
+     * The versions go on from the current one, so that no tag given for the previous data is given again.
+     * No mutation must be made meanwhile.
      *
-     * @param <T>         the type parameter
-     * @param theNodeName the node name
-     * @param theClass    the class
-     * @return the list
+     * @param source the data file to start from
+     * @throws IOException the io exception
      */
-    public <T> List<T> readData(String theNodeName, Class<T> theClass) {
-        try {
-            // Retrieve the specified node (e.g., "persons", "firestations", etc.) from the root object using the provided node name.
-            JsonNode node = rootNode.path(theNodeName);
-
-            if (node.isMissingNode() || node.isNull()) {
-                logger.warn("Node '{}' is missing or null. Returning empty list.", theNodeName);
-                return Collections.emptyList();
-            }
-
-            // Create a collection type representing a "List" of the specified class type "theClass".
-            // (This tells Jackson's ObjectMapper HOW to deserialize the JSON data)
-            CollectionType listType = mapper.getTypeFactory()
-                    .constructCollectionType(List.class, theClass);
-
-            // Deserialize the JSON node into a List of the specified type using ObjectMapper.
-            // In our case : Jackson's ObjectMapper go from the "node" in the JSON file to a "List<theClass>"
-            return mapper.readValue(node.traverse(), listType);
-        } catch (IOException e) {
-            logger.error("Error deserializing JSON node: -{}-", theNodeName, e);
-            return Collections.emptyList();
+    public synchronized void reset(Path source) throws IOException {
+        long version = engine.getDataset().getVersion();
+        engine.close();
+
+        Path file = Path.of(dataFile);
+        for (String suffix : List.of(".journal", ".journal.compacting", ".bin", ".migrated")) {
+            Files.deleteIfExists(Path.of(file + suffix));
         }
+        FileSystemUtils.deleteRecursively(Path.of(file + ".segments"));
+        Files.copy(source, file, StandardCopyOption.REPLACE_EXISTING);
+
+        StorageEngine reopened = openEngine();
+        reopened.getDataset().setVersion(version + 1);
+        engine = reopened;
     }
 
     /**
-     * Write data.
+     * Reload the data file if it was replaced from outside since it was last loaded or written.
+     * The data stays readable during the reload, then is swapped as a whole.
      *
-     * @param <T>         the type parameter
-     * @param theNodeName the node name
-     * @param data        the data
+     * @return true if the data file changed, whether it could be loaded or not
      */
-    public <T> void writeData(String theNodeName, List<T> data) {
-        try {
-            // Create a deep copy of the rootNode to preserve the original structure.
-            JsonNode actualRootNode = rootNode.deepCopy();
-
-            // Set the specified node (e.g., "persons", "firestations", etc.) with the new data.
-            // `valueToTree` converts the List<T> into a JSON node representation.
-            ObjectNode updatedRootNode = (ObjectNode) actualRootNode;
-            updatedRootNode.set(theNodeName, mapper.valueToTree(data));
-
-            // Write the updated rootNode back to the file.
-            // This ensures that the changes are persisted in the JSON file.
-            // The updatedRootNode will go back to the Json format by using the mapper
-            mapper.writeValue(new File(FILE_PATH), updatedRootNode);
-            logger.info("-{}- data written successfully", theNodeName);
-        } catch (IOException e) {
-            logger.error("Error writing data to JSON file", e);
+    public boolean reloadIfChanged() {
+        return engine.reloadIfChanged();
+    }
+
+    /**
+     * Gets dataset.
+     * <p>
+     * A request should get it once and work on it : the version currently published is never changed,
+     * but is replaced by the next mutation or a reload.
+     *
+     * @return the current dataset
+     */
+    public Dataset getDataset() {
+        return engine.getDataset();
+    }
+
+    /**
+     * Gets persons.
+     *
+     * @return the persons
+     */
+    public List<Person> getPersons() {
+        return engine.getDataset().getPersons();
+    }
+
+    /**
+     * Gets firestations.
+     *
+     * @return the firestations
+     */
+    public List<Firestation> getFirestations() {
+        return engine.getDataset().getFirestations();
+    }
+
+    /**
+     * Gets medical records.
+     *
+     * @return the medical records
+     */
+    public List<MedicalRecord> getMedicalRecords() {
+        return engine.getDataset().getMedicalRecords();
+    }
+
+    /**
+     * Add an entity to its section.
+     * Returns once the addition is durable and visible.
+     *
+     * @param section the section
+     * @param entity  the entity
+     */
+    public void add(DataSection section, Object entity) {
+        engine.add(section, entity);
+    }
+
+    /**
+     * Replace the entity having the same key as the given one.
+     * Returns once the update is durable and visible.
+     *
+     * @param section the section
+     * @param entity  the updated entity
+     */
+    public void update(DataSection section, Object entity) {
+        engine.update(section, entity);
+    }
+
+    /**
+     * Delete every entity having the given key.
+     * Returns once the deletion is durable and visible.
+     *
+     * @param section the section
+     * @param key     the key
+     * @return false if no entity has this key
+     */
+    public boolean delete(DataSection section, List<String> key) {
+        return engine.delete(section, key);
+    }
+
+    /**
+     * Fold the pending mutations into a new snapshot of the data file.
+     */
+    public void compact() {
+        engine.compact();
+    }
+
+    /**
+     * Gets journal size.
+     *
+     * @return the size in bytes of the mutations not yet compacted
+     */
+    public long getJournalSize() {
+        return engine.getJournalSize();
+    }
+
+    /**
+     * Close the storage engine, once the pending mutations are committed.
+     *
+     * @throws IOException the io exception
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (engine != null) {
+            engine.close();
         }
     }
 
-}
\ No newline at end of file
+}
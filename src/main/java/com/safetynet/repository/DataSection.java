@@ -0,0 +1,102 @@
+package com.safetynet.repository;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.safetynet.model.Firestation;
+import com.safetynet.model.MedicalRecord;
+import com.safetynet.model.Person;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The top-level sections of the data file, with the key identifying an entity inside each of them.
+ */
+@Getter
+public enum DataSection {
+
+    /**
+     * Persons, identified by their first and last name.
+     */
+    PERSONS("persons", Person.class) {
+        @Override
+        public List<String> keyOf(Object entity) {
+            Person person = (Person) entity;
+            return checkKey(Arrays.asList(person.getFirstName(), person.getLastName()));
+        }
+    },
+
+    /**
+     * Firestations, identified by their address.
+     */
+    FIRESTATIONS("firestations", Firestation.class) {
+        @Override
+        public List<String> keyOf(Object entity) {
+            return checkKey(Arrays.asList(((Firestation) entity).getAddress()));
+        }
+    },
+
+    /**
+     * Medical records, identified by the first and last name of their owner.
+     */
+    MEDICAL_RECORDS("medicalrecords", MedicalRecord.class) {
+        @Override
+        public List<String> keyOf(Object entity) {
+            MedicalRecord medicalRecord = (MedicalRecord) entity;
+            return checkKey(Arrays.asList(medicalRecord.getFirstName(), medicalRecord.getLastName()));
+        }
+    };
+
+    @JsonValue
+    private final String nodeName;
+    private final Class<?> entityClass;
+
+    DataSection(String nodeName, Class<?> entityClass) {
+        this.nodeName = nodeName;
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Key of an entity of this section.
+     *
+     * @param entity the entity
+     * @return the key
+     */
+    public abstract List<String> keyOf(Object entity);
+
+    /**
+     * Check a key of this section : the keys are ordered component by component, a null one cannot be.
+     *
+     * @param key the key
+     * @return the key, immutable
+     * @throws IllegalArgumentException if the key or one of its components is null
+     */
+    public List<String> checkKey(List<String> key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Missing key for an entity of " + nodeName);
+        }
+        for (String component : key) {
+            if (component == null) {
+                throw new IllegalArgumentException("Null component in the key of an entity of " + nodeName + " : " + key);
+            }
+        }
+        return List.copyOf(key);
+    }
+
+    /**
+     * From node name data section.
+     *
+     * @param theNodeName the node name
+     * @return the data section
+     */
+    @JsonCreator
+    public static DataSection fromNodeName(String theNodeName) {
+        for (DataSection section : values()) {
+            if (section.nodeName.equals(theNodeName)) {
+                return section;
+            }
+        }
+        throw new IllegalArgumentException("Unknown data section: " + theNodeName);
+    }
+}
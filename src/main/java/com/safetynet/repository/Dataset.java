@@ -0,0 +1,736 @@
+package com.safetynet.repository;
+
+import com.safetynet.model.Firestation;
+import com.safetynet.model.MedicalRecord;
+import com.safetynet.model.Person;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The type Dataset.
+ * <p>
+ * The content of the data file held in memory : the three sections, and the last journal sequence folded into them.
+ * Each key, and each section, has the version of its last write, that of the load if it was not written since.
+ * The entities are found by their key, or by group (see {@link Grouping}), and the values of an attribute are listed once per group
+ * (see {@link DistinctValues}), through indexes built on first use and kept up to date by {@link #apply},
+ * as are the coverage counts and the phones of the stations.
+ * <p>
+ * The lists are filled freely while the dataset is loaded, but must only be changed through {@link #apply} once it is in use.
+ * A published dataset is never changed : the writers apply their mutations to an {@link #edit} of it, the next version,
+ * then publish it in its place. The readers of a version, and of its indexes, need no lock and never see a change half done.
+ * The lists, the indexes and the versions of the keys are held in {@link SortedTree}s shared between the versions :
+ * a mutation only copies the paths to what it changes, whatever the size of the dataset.
+ */
+@Setter @Getter
+@NoArgsConstructor
+public class Dataset {
+
+    // Each one an EntityList, whatever list it is set from
+    private List<Person> persons = new EntityList<>();
+    private List<Firestation> firestations = new EntityList<>();
+    private List<MedicalRecord> medicalRecords = new EntityList<>();
+    private long journalSequence;
+    // Incremented by each edit, and each reload of the data file
+    private long version;
+    // The version of the entities not written since the data was loaded
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long loadedVersion;
+    // The version of the last write of each key, by section
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private final Map<DataSection, SortedTree<List<String>, Long>> writtenVersions = new EnumMap<>(DataSection.class);
+    // The version of the last write of each section
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private final Map<DataSection, Long> sectionVersions = new EnumMap<>(DataSection.class);
+
+    @Getter(AccessLevel.NONE)
+    private final Map<DataSection, KeyIndex> keyIndexes = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<Grouping, GroupIndex> groupIndexes = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<DistinctValues, DistinctIndex> distinctIndexes = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicReference<StationCoverage> stationCoverage = new AtomicReference<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicReference<StationPhones> stationPhones = new AtomicReference<>();
+
+    // The sections whose lists, and indexes, belong to this version : the others are shared with the previous one
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private final Set<DataSection> ownedSections = EnumSet.allOf(DataSection.class);
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private boolean ownsTallies = true;
+    // Set once the next version is edited : this one no longer changes
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private volatile boolean frozen;
+
+    /**
+     * Instantiates a new Dataset, holding a copy of the lists.
+     *
+     * @param persons         the persons
+     * @param firestations    the firestations
+     * @param medicalRecords  the medical records
+     * @param journalSequence the journal sequence
+     */
+    public Dataset(List<Person> persons, List<Firestation> firestations, List<MedicalRecord> medicalRecords, long journalSequence) {
+        this.persons = EntityList.copyOf(persons);
+        this.firestations = EntityList.copyOf(firestations);
+        this.medicalRecords = EntityList.copyOf(medicalRecords);
+        this.journalSequence = journalSequence;
+    }
+
+    // The next version of a dataset, sharing its lists
+    private Dataset(Dataset previous) {
+        this.persons = previous.persons;
+        this.firestations = previous.firestations;
+        this.medicalRecords = previous.medicalRecords;
+        this.journalSequence = previous.journalSequence;
+        this.version = previous.version + 1;
+        this.loadedVersion = previous.loadedVersion;
+    }
+
+    /**
+     * Sets version, that of the dataset and of every entity not written since it was loaded.
+     *
+     * @param version the version
+     */
+    public void setVersion(long version) {
+        this.version = version;
+        this.loadedVersion = version;
+    }
+
+    /**
+     * Sets persons, to a copy of the list.
+     *
+     * @param persons the persons
+     */
+    public void setPersons(List<Person> persons) {
+        this.persons = EntityList.copyOf(persons);
+        dropIndexes(DataSection.PERSONS);
+    }
+
+    /**
+     * Sets firestations, to a copy of the list.
+     *
+     * @param firestations the firestations
+     */
+    public void setFirestations(List<Firestation> firestations) {
+        this.firestations = EntityList.copyOf(firestations);
+        dropIndexes(DataSection.FIRESTATIONS);
+    }
+
+    /**
+     * Sets medical records, to a copy of the list.
+     *
+     * @param medicalRecords the medical records
+     */
+    public void setMedicalRecords(List<MedicalRecord> medicalRecords) {
+        this.medicalRecords = EntityList.copyOf(medicalRecords);
+        dropIndexes(DataSection.MEDICAL_RECORDS);
+    }
+
+    private void dropIndexes(DataSection section) {
+        keyIndexes.remove(section);
+        groupIndexes.keySet().removeIf(grouping -> grouping.getSection() == section);
+        distinctIndexes.keySet().removeIf(distinctValues -> distinctValues.getGrouping().getSection() == section);
+        writtenVersions.remove(section);
+        stationCoverage.set(null);
+        stationPhones.set(null);
+    }
+
+    /**
+     * The list of a section.
+     *
+     * @param section the section
+     * @return the list
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> sectionList(DataSection section) {
+        return (List<Object>) switch (section) {
+            case PERSONS -> persons;
+            case FIRESTATIONS -> firestations;
+            case MEDICAL_RECORDS -> medicalRecords;
+        };
+    }
+
+    private EntityList<Object> entities(DataSection section) {
+        return (EntityList<Object>) sectionList(section);
+    }
+
+    /**
+     * Whether a section holds an entity with the given key.
+     *
+     * @param section the section
+     * @param key     the key
+     * @return true if an entity has this key
+     */
+    public boolean contains(DataSection section, List<String> key) {
+        return find(section, key) != null;
+    }
+
+    /**
+     * Find the first entity of a section having the given key.
+     *
+     * @param section the section
+     * @param key     the key
+     * @return the entity, null if no entity has this key
+     */
+    public Object find(DataSection section, List<String> key) {
+        return keyIndex(section).find(entities(section), section.checkKey(key));
+    }
+
+    /**
+     * Gets the version of a key : that of the last add or update of its entity, or of the load if it was not written since.
+     * Only meaningful while an entity has the key.
+     *
+     * @param section the section
+     * @param key     the key
+     * @return the version
+     */
+    public long versionOf(DataSection section, List<String> key) {
+        SortedTree<List<String>, Long> versions = writtenVersions.get(section);
+        Long written = versions == null ? null : versions.get(section.checkKey(key));
+        return written == null ? loadedVersion : written;
+    }
+
+    /**
+     * Gets the version of a section : that of its last change, or of the load if it was not changed since.
+     *
+     * @param section the section
+     * @return the version
+     */
+    public long versionOf(DataSection section) {
+        return sectionVersions.getOrDefault(section, loadedVersion);
+    }
+
+    /**
+     * Find a person by first name and last name.
+     *
+     * @param firstName the first name
+     * @param lastName  the last name
+     * @return the person, null if not found
+     */
+    public Person findPerson(String firstName, String lastName) {
+        return (Person) find(DataSection.PERSONS, List.of(firstName, lastName));
+    }
+
+    /**
+     * Gets the medical record of a person.
+     * <p>
+     * Both are identified by the first and last name : the person is joined to its medical record through the index of the
+     * medical records, kept up to date by the mutations of either section.
+     *
+     * @param person the person
+     * @return the medical record, null if the person has none
+     */
+    public MedicalRecord getMedicalRecord(Person person) {
+        return (MedicalRecord) find(DataSection.MEDICAL_RECORDS, DataSection.PERSONS.keyOf(person));
+    }
+
+    /**
+     * Find the first firestation mapping of an address.
+     *
+     * @param address the address
+     * @return the firestation, null if not found
+     */
+    public Firestation findFirestation(String address) {
+        return (Firestation) find(DataSection.FIRESTATIONS, List.of(address));
+    }
+
+    /**
+     * Find a medical record by first name and last name.
+     *
+     * @param firstName the first name
+     * @param lastName  the last name
+     * @return the medical record, null if not found
+     */
+    public MedicalRecord findMedicalRecord(String firstName, String lastName) {
+        return (MedicalRecord) find(DataSection.MEDICAL_RECORDS, List.of(firstName, lastName));
+    }
+
+    /**
+     * Gets the residents of an address.
+     *
+     * @param address the address
+     * @return the residents, in the order of the list
+     */
+    @SuppressWarnings("unchecked")
+    public List<Person> getResidents(String address) {
+        return (List<Person>) (List<?>) group(Grouping.PERSONS_BY_ADDRESS, address);
+    }
+
+    /**
+     * Gets the addresses covered by a station.
+     *
+     * @param station the station number
+     * @return the addresses, each listed once
+     */
+    public List<String> getAddressesOfStation(int station) {
+        return group(Grouping.FIRESTATIONS_BY_STATION, station).stream()
+                .map(firestation -> ((Firestation) firestation).getAddress())
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Gets the stations covering an address.
+     *
+     * @param address the address
+     * @return the station numbers, each listed once
+     */
+    public List<Integer> getStationsOfAddress(String address) {
+        return group(Grouping.FIRESTATIONS_BY_ADDRESS, address).stream()
+                .map(firestation -> ((Firestation) firestation).getStation())
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Gets the entities of a group.
+     *
+     * @param grouping the grouping
+     * @param group    the group
+     * @return the entities of the group, empty if none
+     */
+    public List<Object> group(Grouping grouping, Object group) {
+        return groupIndex(grouping).get(group);
+    }
+
+    /**
+     * Gets the groups of a sorted grouping from a group to another.
+     *
+     * @param grouping the sorted grouping
+     * @param from     the first group, included, null to start with the first one
+     * @param to       the last group, excluded, null to go to the last one
+     * @return the entities of each group, in the order of the groups
+     */
+    public Iterable<List<Object>> groupRange(Grouping grouping, Object from, Object to) {
+        return groupIndex(grouping).range(from, to);
+    }
+
+    /**
+     * Gets the persons having a last name.
+     *
+     * @param lastName the last name
+     * @return the persons, in the order of the list
+     */
+    @SuppressWarnings("unchecked")
+    public List<Person> getPersonsByLastName(String lastName) {
+        return (List<Person>) (List<?>) group(Grouping.PERSONS_BY_LAST_NAME, lastName);
+    }
+
+    /**
+     * Gets a page of the persons whose last name is in a range, ordered by last name.
+     * The persons before the page are skipped, those after it are not read.
+     *
+     * @param from   the first last name, included, null to start with the first one
+     * @param to     the last last name, excluded, null to go to the last one
+     * @param offset the number of persons to skip
+     * @param limit  the maximum number of persons
+     * @return the persons of the page
+     */
+    public List<Person> getPersonsByLastNames(String from, String to, long offset, int limit) {
+        List<Person> page = new ArrayList<>(Math.min(limit, 64));
+        long skipped = 0;
+        for (List<Object> persons : groupRange(Grouping.PERSONS_BY_LAST_NAME, from, to)) {
+            if (skipped + persons.size() <= offset) {
+                skipped += persons.size();
+                continue;
+            }
+            for (int i = (int) (offset - skipped); i < persons.size() && page.size() < limit; i++) {
+                page.add((Person) persons.get(i));
+            }
+            skipped = offset;
+            if (page.size() == limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    private GroupIndex groupIndex(Grouping grouping) {
+        GroupIndex groupIndex = groupIndexes.get(grouping);
+        if (groupIndex == null) {
+            synchronized (this) {
+                groupIndex = groupIndexes.computeIfAbsent(grouping, g -> new GroupIndex(g, entities(g.getSection())));
+            }
+        }
+        return groupIndex;
+    }
+
+    /**
+     * Gets the emails of the persons of a city.
+     *
+     * @param city the city
+     * @return the emails, each listed once
+     */
+    public List<String> getEmailsOfCity(String city) {
+        return distinct(DistinctValues.EMAILS_BY_CITY, city);
+    }
+
+    /**
+     * Gets the values of a group, each listed once.
+     *
+     * @param distinctValues the distinct values
+     * @param group          the group
+     * @return the values, in the order they first appear in the list, empty if none
+     */
+    public List<String> distinct(DistinctValues distinctValues, Object group) {
+        DistinctIndex distinctIndex = distinctIndexes.get(distinctValues);
+        if (distinctIndex == null) {
+            synchronized (this) {
+                distinctIndex = distinctIndexes.computeIfAbsent(distinctValues,
+                        d -> new DistinctIndex(d, sectionList(d.getGrouping().getSection())));
+            }
+        }
+        return distinctIndex.get(group);
+    }
+
+    /**
+     * Gets the phones of the residents covered by a station.
+     * <p>
+     * The phones of every station are listed at the first call, then kept up to date by the mutations of the persons and firestations.
+     *
+     * @param station the station number
+     * @return the phones, each listed once, empty if none
+     */
+    public List<String> getPhonesOfStation(int station) {
+        StationPhones phones = stationPhones.get();
+        if (phones == null) {
+            synchronized (this) {
+                phones = stationPhones.get();
+                if (phones == null) {
+                    phones = new StationPhones(this);
+                    stationPhones.set(phones);
+                }
+            }
+        }
+        return phones.get(station);
+    }
+
+    /**
+     * Gets the residents covered by a station, counted by age group.
+     * <p>
+     * The counts of every station are computed at the first call, then kept up to date by the mutations.
+     * When the day changes, unless {@link #rollCoverage} already did it, they are rolled to it.
+     *
+     * @param station the station number
+     * @param today   the current day, in epoch days
+     * @return the counts
+     */
+    public CoverageCounts getCoverage(int station, long today) {
+        StationCoverage coverage = stationCoverage.get();
+        if (coverage == null || coverage.getDay() != today) {
+            synchronized (this) {
+                coverage = stationCoverage.get();
+                if (coverage == null) {
+                    coverage = new StationCoverage(this, today);
+                    stationCoverage.set(coverage);
+                } else {
+                    roll(coverage, today);
+                    coverage = stationCoverage.get();
+                }
+            }
+        }
+        return coverage.get(station);
+    }
+
+    /**
+     * Bring the coverage counts, if they are in use, to a new day : the children turning 18 since the last day
+     * become adults, and no other resident is counted again.
+     *
+     * @param today the current day, in epoch days
+     * @return the number of children who became adults
+     */
+    public synchronized int rollCoverage(long today) {
+        StationCoverage coverage = stationCoverage.get();
+        return coverage == null ? 0 : roll(coverage, today);
+    }
+
+    // The counts read meanwhile stay those of the previous day, the rolled ones replace them at once
+    private int roll(StationCoverage coverage, long today) {
+        if (today > coverage.getDay()) {
+            StationCoverage rolled = coverage.fork(this);
+            int turned18 = rolled.rollTo(today);
+            stationCoverage.set(rolled);
+            return turned18;
+        }
+        if (today < coverage.getDay()) {
+            // The clock went back : the adults are not queued, count them all again
+            stationCoverage.set(new StationCoverage(this, today));
+        }
+        return 0;
+    }
+
+    // Built under the lock of apply, so that no entity is added between the scan of the list and the publication of the index
+    private KeyIndex keyIndex(DataSection section) {
+        KeyIndex keyIndex = keyIndexes.get(section);
+        if (keyIndex == null) {
+            synchronized (this) {
+                keyIndex = keyIndexes.computeIfAbsent(section, s -> new KeyIndex(s, entities(s)));
+            }
+        }
+        return keyIndex;
+    }
+
+    /**
+     * Apply a change to a section : an UPDATE replaces the first entity having the key, a DELETE removes all of them.
+     *
+     * @param type    the type of change
+     * @param section the section
+     * @param key     the key of the changed entity
+     * @param entity  the new entity, null for a DELETE
+     * @return false if an UPDATE or a DELETE found no entity with the key
+     */
+    public synchronized boolean apply(Mutation.Type type, DataSection section, List<String> key, Object entity) {
+        if (frozen) {
+            throw new IllegalStateException("A published dataset cannot be changed : apply the mutation to an edit of it");
+        }
+        section.checkKey(key);
+        own(section);
+
+        List<StationTally> tallies = new ArrayList<>(2);
+        StationCoverage coverage = stationCoverage.get();
+        if (coverage != null) {
+            tallies.add(coverage);
+        }
+        StationPhones phones = stationPhones.get();
+        if (phones != null) {
+            tallies.add(phones);
+        }
+
+        tallies.forEach(tally -> tally.before(section, key));
+        boolean applied = applyToSection(type, section, key, entity);
+        tallies.forEach(tally -> tally.after(section, key));
+        if (applied) {
+            sectionVersions.put(section, version);
+        }
+        return applied;
+    }
+
+    private boolean applyToSection(Mutation.Type type, DataSection section, List<String> key, Object entity) {
+        EntityList<Object> entities = entities(section);
+        KeyIndex keyIndex = keyIndex(section);
+
+        SortedTree<List<String>, Long> versions = writtenVersions.getOrDefault(section, SortedTree.empty());
+
+        List<SectionIndex> sectionIndexes = new ArrayList<>();
+        groupIndexes.forEach((grouping, groupIndex) -> {
+            if (grouping.getSection() == section) {
+                sectionIndexes.add(groupIndex);
+            }
+        });
+        distinctIndexes.forEach((distinctValues, distinctIndex) -> {
+            if (distinctValues.getGrouping().getSection() == section) {
+                sectionIndexes.add(distinctIndex);
+            }
+        });
+
+        return switch (type) {
+            case ADD -> {
+                long id = entities.append(entity);
+                keyIndex.added(key, id);
+                sectionIndexes.forEach(sectionIndex -> sectionIndex.added(id, entity));
+                writtenVersions.put(section, versions.put(key, version));
+                yield true;
+            }
+            case UPDATE -> {
+                long[] ids = keyIndex.idsOf(key);
+                if (ids == null) {
+                    yield false;
+                }
+                Object previous = entities.replace(ids[0], entity);
+                sectionIndexes.forEach(sectionIndex -> sectionIndex.replaced(ids[0], previous, entity));
+                writtenVersions.put(section, versions.put(key, version));
+                yield true;
+            }
+            case DELETE -> {
+                long[] ids = keyIndex.idsOf(key);
+                if (ids == null) {
+                    yield false;
+                }
+                for (long id : ids) {
+                    Object removed = entities.removeId(id);
+                    sectionIndexes.forEach(sectionIndex -> sectionIndex.removed(id, removed));
+                }
+                keyIndex.removed(key);
+                writtenVersions.put(section, versions.remove(key));
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * The next version of the dataset, to apply mutations to before it is published in place of this one.
+     * <p>
+     * It shares the lists and the indexes of this version : the list of a section, and its indexes, are forked
+     * by the first mutation of the section, at no cost. This version is frozen : it can still be read, but no longer changed.
+     *
+     * @return the next version
+     */
+    public synchronized Dataset edit() {
+        frozen = true;
+
+        Dataset next = new Dataset(this);
+        next.writtenVersions.putAll(writtenVersions);
+        next.sectionVersions.putAll(sectionVersions);
+        next.ownedSections.clear();
+        next.ownsTallies = false;
+        next.keyIndexes.putAll(keyIndexes);
+        next.groupIndexes.putAll(groupIndexes);
+        next.distinctIndexes.putAll(distinctIndexes);
+        next.stationCoverage.set(stationCoverage.get());
+        next.stationPhones.set(stationPhones.get());
+        return next;
+    }
+
+    // Fork what the previous version shares with this one before the first mutation of the section.
+    // The versions of the keys need no fork : each write replaces their tree.
+    @SuppressWarnings("unchecked")
+    private void own(DataSection section) {
+        if (ownedSections.add(section)) {
+            EntityList<Object> entities = entities(section).fork();
+            switch (section) {
+                case PERSONS -> persons = (List<Person>) (List<?>) entities;
+                case FIRESTATIONS -> firestations = (List<Firestation>) (List<?>) entities;
+                case MEDICAL_RECORDS -> medicalRecords = (List<MedicalRecord>) (List<?>) entities;
+            }
+            keyIndexes.computeIfPresent(section, (s, keyIndex) -> keyIndex.fork());
+            groupIndexes.replaceAll((grouping, groupIndex) -> grouping.getSection() == section ? groupIndex.fork() : groupIndex);
+            distinctIndexes.replaceAll((distinctValues, distinctIndex) ->
+                    distinctValues.getGrouping().getSection() == section ? distinctIndex.fork() : distinctIndex);
+        }
+
+        if (!ownsTallies) {
+            ownsTallies = true;
+            StationCoverage coverage = stationCoverage.get();
+            if (coverage != null) {
+                stationCoverage.set(coverage.fork(this));
+            }
+            StationPhones phones = stationPhones.get();
+            if (phones != null) {
+                stationPhones.set(phones.fork(this));
+            }
+        }
+    }
+
+    /**
+     * A dataset sharing the lists of this one, but the list of the given section.
+     * The shared lists must no longer be changed through this dataset.
+     *
+     * @param section  the section
+     * @param entities the list of the section
+     * @return the new dataset
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Dataset withSection(DataSection section, List<Object> entities) {
+        frozen = true;
+
+        Dataset dataset = new Dataset(this);
+        switch (section) {
+            case PERSONS -> dataset.setPersons((List<Person>) (List<?>) entities);
+            case FIRESTATIONS -> dataset.setFirestations((List<Firestation>) (List<?>) entities);
+            case MEDICAL_RECORDS -> dataset.setMedicalRecords((List<MedicalRecord>) (List<?>) entities);
+        }
+        // The shared lists keep their indexes and versions, and are forked before they are changed
+        dataset.ownedSections.retainAll(Set.of(section));
+        writtenVersions.forEach((written, versions) -> {
+            if (written != section) {
+                dataset.writtenVersions.put(written, versions);
+            }
+        });
+        dataset.sectionVersions.putAll(sectionVersions);
+        dataset.sectionVersions.put(section, dataset.version);
+        keyIndexes.forEach((indexed, keyIndex) -> {
+            if (indexed != section) {
+                dataset.keyIndexes.put(indexed, keyIndex);
+            }
+        });
+        groupIndexes.forEach((grouping, groupIndex) -> {
+            if (grouping.getSection() != section) {
+                dataset.groupIndexes.put(grouping, groupIndex);
+            }
+        });
+        distinctIndexes.forEach((distinctValues, distinctIndex) -> {
+            if (distinctValues.getGrouping().getSection() != section) {
+                dataset.distinctIndexes.put(distinctValues, distinctIndex);
+            }
+        });
+        return dataset;
+    }
+
+    /**
+     * A dataset sharing the lists of this one, but the list of the given section, with its indexes and the versions of its keys,
+     * taken from another version of the dataset. The other version must no longer be changed.
+     * <p>
+     * The coverage counts and the phones of the stations are kept from whichever version holds the changes they depend on :
+     * the other version if the sections it shares with this one are unchanged for them, this one if they do not depend
+     * on the section taken, otherwise they are counted again at the next read.
+     *
+     * @param section the section
+     * @param source  the dataset holding the list of the section
+     * @return the new dataset
+     */
+    public synchronized Dataset withSection(DataSection section, Dataset source) {
+        Dataset dataset = withSection(section, source.sectionList(section));
+        SortedTree<List<String>, Long> versions = source.writtenVersions.get(section);
+        if (versions != null) {
+            dataset.writtenVersions.put(section, versions);
+        }
+        dataset.sectionVersions.put(section, source.versionOf(section));
+
+        // Forked with the list, which keeps the ids they refer to
+        KeyIndex keyIndex = source.keyIndexes.get(section);
+        if (keyIndex != null) {
+            dataset.keyIndexes.put(section, keyIndex.fork());
+        }
+        source.groupIndexes.forEach((grouping, groupIndex) -> {
+            if (grouping.getSection() == section) {
+                dataset.groupIndexes.put(grouping, groupIndex.fork());
+            }
+        });
+        source.distinctIndexes.forEach((distinctValues, distinctIndex) -> {
+            if (distinctValues.getGrouping().getSection() == section) {
+                dataset.distinctIndexes.put(distinctValues, distinctIndex.fork());
+            }
+        });
+
+        // The other sections changed in this version since the other one was edited
+        Set<DataSection> changed = EnumSet.noneOf(DataSection.class);
+        for (DataSection other : DataSection.values()) {
+            if (other != section && versionOf(other) != source.versionOf(other)) {
+                changed.add(other);
+            }
+        }
+        // Shared with the new dataset, and forked by its first mutation
+        dataset.ownsTallies = false;
+        dataset.stationCoverage.set(tallyOf(section, changed, stationCoverage.get(), source.stationCoverage.get()));
+        dataset.stationPhones.set(tallyOf(section, changed, stationPhones.get(), source.stationPhones.get()));
+        return dataset;
+    }
+
+    private static <T extends StationTally> T tallyOf(DataSection section, Set<DataSection> changed, T current, T source) {
+        if (source != null && changed.stream().noneMatch(source::dependsOn)) {
+            return source;
+        }
+        if (current != null && !current.dependsOn(section)) {
+            return current;
+        }
+        return null;
+    }
+
+    /**
+     * A copy of the dataset, sharing the entities but not the lists : a change to the lists of either one is not seen by the other.
+     *
+     * @return the copy
+     */
+    public Dataset copy() {
+        return new Dataset(persons, firestations, medicalRecords, journalSequence);
+    }
+}
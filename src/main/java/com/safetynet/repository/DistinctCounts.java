@@ -0,0 +1,90 @@
+package com.safetynet.repository;
+
+import java.util.List;
+
+/**
+ * The type Distinct counts.
+ * <p>
+ * The values of each group listed once, in the order they were first counted, with the number of times each one was counted :
+ * a value is only removed with its last occurrence.
+ * The groups, the counts and the listed values are kept in {@link SortedTree}s : a read never sees a list being changed,
+ * and a fork shares them all with the original, each count changed by either one only copying the path to it.
+ *
+ * @param <G> the type of the groups
+ */
+class DistinctCounts<G> {
+
+    // A value counted, and its place in the values of the group
+    private record Occurrence(int count, long order) {
+    }
+
+    private record Values(SortedTree<String, Occurrence> occurrences, SortedTree<Long, String> listed) {
+    }
+
+    private SortedTree<G, Values> groups;
+    // Only grows : a value first counted is listed last in its group
+    private long nextOrder;
+
+    /**
+     * Instantiates new empty Distinct counts.
+     */
+    DistinctCounts() {
+        this(SortedTree.empty(), 0);
+    }
+
+    private DistinctCounts(SortedTree<G, Values> groups, long nextOrder) {
+        this.groups = groups;
+        this.nextOrder = nextOrder;
+    }
+
+    /**
+     * A copy of these counts, to be changed instead of them.
+     *
+     * @return the fork
+     */
+    DistinctCounts<G> fork() {
+        return new DistinctCounts<>(groups, nextOrder);
+    }
+
+    /**
+     * Gets the values of a group.
+     *
+     * @param group the group
+     * @return an immutable list of the values, each listed once, empty if none
+     */
+    List<String> get(G group) {
+        Values values = group == null ? null : groups.get(group);
+        return values == null ? List.of() : values.listed().values();
+    }
+
+    /**
+     * Count a value of a group once more, or once less.
+     *
+     * @param group the group
+     * @param value the value
+     * @param sign  1 to count it, -1 to uncount it
+     */
+    void count(G group, String value, int sign) {
+        if (group == null || value == null) {
+            return;
+        }
+
+        Values values = groups.getOrDefault(group, new Values(SortedTree.empty(), SortedTree.empty()));
+        Occurrence occurrence = values.occurrences().get(value);
+        int count = (occurrence == null ? 0 : occurrence.count()) + sign;
+
+        if (count <= 0) {
+            if (occurrence != null) {
+                Values updated = new Values(values.occurrences().remove(value), values.listed().remove(occurrence.order()));
+                groups = updated.listed().isEmpty() ? groups.remove(group) : groups.put(group, updated);
+            }
+        } else if (occurrence == null) {
+            long order = nextOrder++;
+            groups = groups.put(group, new Values(values.occurrences().put(value, new Occurrence(count, order)),
+                    values.listed().put(order, value)));
+        } else {
+            groups = groups.put(group, new Values(values.occurrences().put(value, new Occurrence(count, occurrence.order())),
+                    values.listed()));
+        }
+    }
+}
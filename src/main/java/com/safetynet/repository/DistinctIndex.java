@@ -0,0 +1,72 @@
+package com.safetynet.repository;
+
+import java.util.List;
+
+/**
+ * The type Distinct index.
+ * <p>
+ * The values of each group listed once, in the order they first appear in the list (see {@link DistinctCounts}).
+ * The counts are only used by the mutations, under the lock of the dataset.
+ */
+class DistinctIndex implements SectionIndex {
+
+    private final DistinctValues distinctValues;
+    private final DistinctCounts<Object> counts;
+
+    /**
+     * Instantiates a new Distinct index.
+     *
+     * @param distinctValues the distinct values
+     * @param entities       the list of the section
+     */
+    DistinctIndex(DistinctValues distinctValues, List<Object> entities) {
+        this.distinctValues = distinctValues;
+        this.counts = new DistinctCounts<>();
+        entities.forEach(entity -> count(entity, 1));
+    }
+
+    private DistinctIndex(DistinctValues distinctValues, DistinctCounts<Object> counts) {
+        this.distinctValues = distinctValues;
+        this.counts = counts;
+    }
+
+    /**
+     * A copy of this index, to be changed instead of it.
+     *
+     * @return the fork
+     */
+    DistinctIndex fork() {
+        return new DistinctIndex(distinctValues, counts.fork());
+    }
+
+    /**
+     * Gets the values of a group.
+     *
+     * @param group the group
+     * @return the values, each listed once, empty if none
+     */
+    List<String> get(Object group) {
+        return counts.get(group);
+    }
+
+    @Override
+    public void added(long id, Object entity) {
+        count(entity, 1);
+    }
+
+    @Override
+    public void replaced(long id, Object previous, Object entity) {
+        // Counted before it is uncounted : a value kept by the new entity does not move
+        count(entity, 1);
+        count(previous, -1);
+    }
+
+    @Override
+    public void removed(long id, Object entity) {
+        count(entity, -1);
+    }
+
+    private void count(Object entity, int sign) {
+        counts.count(distinctValues.getGrouping().groupOf(entity), distinctValues.valueOf(entity), sign);
+    }
+}
@@ -0,0 +1,35 @@
+package com.safetynet.repository;
+
+import com.safetynet.model.Person;
+import lombok.Getter;
+
+/**
+ * The values of an attribute taken once per group of a {@link Grouping}, each kept as a {@link DistinctIndex} by the {@link Dataset}.
+ */
+@Getter
+public enum DistinctValues {
+
+    /**
+     * The emails of the persons of each city : a household sharing an email is listed once.
+     */
+    EMAILS_BY_CITY(Grouping.PERSONS_BY_CITY) {
+        @Override
+        public String valueOf(Object entity) {
+            return ((Person) entity).getEmail();
+        }
+    };
+
+    private final Grouping grouping;
+
+    DistinctValues(Grouping grouping) {
+        this.grouping = grouping;
+    }
+
+    /**
+     * Value of an entity of the section.
+     *
+     * @param entity the entity
+     * @return the value, null if the entity has none
+     */
+    public abstract String valueOf(Object entity);
+}
@@ -0,0 +1,145 @@
+package com.safetynet.repository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The type Durability stats.
+ * <p>
+ * Measures what the persistence pays to make the data durable : the syncs of the journal
+ * (one per committed batch) and the snapshots written by the compactions.
+ * Used to tune the group commit window against the write latency.
+ */
+public class DurabilityStats {
+
+    private final LongAdder journalSyncs = new LongAdder();
+    private final LongAdder journalMutations = new LongAdder();
+    private final LongAdder journalSyncNanos = new LongAdder();
+    private final AtomicLong journalMaxSyncNanos = new AtomicLong();
+
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder snapshotBytes = new LongAdder();
+    private final LongAdder snapshotWriteNanos = new LongAdder();
+    private final LongAdder snapshotSyncNanos = new LongAdder();
+
+    /**
+     * Record a sync of the journal.
+     *
+     * @param mutations the number of mutations made durable by the sync
+     * @param nanos     the duration of the sync
+     */
+    public void recordJournalSync(int mutations, long nanos) {
+        journalSyncs.increment();
+        journalMutations.add(mutations);
+        journalSyncNanos.add(nanos);
+        journalMaxSyncNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Record a snapshot written.
+     *
+     * @param bytes      the size of the snapshot
+     * @param writeNanos the time spent serializing and writing it
+     * @param syncNanos  the time spent forcing it to disk and renaming it
+     */
+    public void recordSnapshot(long bytes, long writeNanos, long syncNanos) {
+        snapshots.increment();
+        snapshotBytes.add(bytes);
+        snapshotWriteNanos.add(writeNanos);
+        snapshotSyncNanos.add(syncNanos);
+    }
+
+    /**
+     * Gets journal syncs.
+     *
+     * @return the journal syncs
+     */
+    public long getJournalSyncs() {
+        return journalSyncs.sum();
+    }
+
+    /**
+     * Gets journal mutations.
+     *
+     * @return the journal mutations
+     */
+    public long getJournalMutations() {
+        return journalMutations.sum();
+    }
+
+    /**
+     * Gets journal sync nanos.
+     *
+     * @return the journal sync nanos
+     */
+    public long getJournalSyncNanos() {
+        return journalSyncNanos.sum();
+    }
+
+    /**
+     * Gets journal max sync nanos.
+     *
+     * @return the journal max sync nanos
+     */
+    public long getJournalMaxSyncNanos() {
+        return journalMaxSyncNanos.get();
+    }
+
+    /**
+     * Gets snapshots.
+     *
+     * @return the snapshots
+     */
+    public long getSnapshots() {
+        return snapshots.sum();
+    }
+
+    /**
+     * Gets snapshot bytes.
+     *
+     * @return the snapshot bytes
+     */
+    public long getSnapshotBytes() {
+        return snapshotBytes.sum();
+    }
+
+    /**
+     * Gets snapshot write nanos.
+     *
+     * @return the snapshot write nanos
+     */
+    public long getSnapshotWriteNanos() {
+        return snapshotWriteNanos.sum();
+    }
+
+    /**
+     * Gets snapshot sync nanos.
+     *
+     * @return the snapshot sync nanos
+     */
+    public long getSnapshotSyncNanos() {
+        return snapshotSyncNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        long syncs = getJournalSyncs();
+        long snapshotCount = getSnapshots();
+        return String.format(
+                "%d journal syncs (%.1f mutations/sync, avg %.2f ms, max %.2f ms), %d snapshots (avg write %.1f ms, avg sync %.1f ms, %d bytes total)",
+                syncs,
+                syncs == 0 ? 0.0 : (double) getJournalMutations() / syncs,
+                syncs == 0 ? 0.0 : toMillis(getJournalSyncNanos()) / syncs,
+                toMillis(getJournalMaxSyncNanos()),
+                snapshotCount,
+                snapshotCount == 0 ? 0.0 : toMillis(getSnapshotWriteNanos()) / snapshotCount,
+                snapshotCount == 0 ? 0.0 : toMillis(getSnapshotSyncNanos()) / snapshotCount,
+                getSnapshotBytes()
+        );
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
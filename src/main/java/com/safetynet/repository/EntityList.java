@@ -0,0 +1,215 @@
+package com.safetynet.repository;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * The type Entity list.
+ * <p>
+ * The list of a section, held in a {@link SortedTree} : each entity is kept under an id, given in the order of the list
+ * when it is added and never changed, so that the indexes refer to the entities by an id that a removal does not shift.
+ * A fork shares the whole list with the original, and a change to either one only copies the path to the changed entity.
+ * Only appended to : an entity cannot be inserted before the last one.
+ *
+ * @param <E> the type of the entities
+ */
+class EntityList<E> extends AbstractList<E> {
+
+    private SortedTree<Long, E> entities;
+    // Only grows : the entity added last has the greatest id
+    private long nextId;
+
+    /**
+     * Instantiates a new empty Entity list.
+     */
+    EntityList() {
+        this(SortedTree.empty(), 0);
+    }
+
+    /**
+     * Instantiates a new Entity list.
+     *
+     * @param entities the entities, in their order
+     */
+    EntityList(Collection<? extends E> entities) {
+        this();
+        addAll(entities);
+    }
+
+    private EntityList(SortedTree<Long, E> entities, long nextId) {
+        this.entities = entities;
+        this.nextId = nextId;
+    }
+
+    /**
+     * An entity list holding the given entities : a fork if they already are one, a new list otherwise.
+     *
+     * @param <E>      the type of the entities
+     * @param entities the entities
+     * @return the entity list
+     */
+    static <E> EntityList<E> copyOf(List<E> entities) {
+        return entities instanceof EntityList<E> entityList ? entityList.fork() : new EntityList<>(entities);
+    }
+
+    /**
+     * A copy of this list, sharing its entities and their ids, to be changed independently of it.
+     *
+     * @return the fork
+     */
+    EntityList<E> fork() {
+        return new EntityList<>(entities, nextId);
+    }
+
+    @Override
+    public E get(int index) {
+        return entities.valueAt(index);
+    }
+
+    @Override
+    public int size() {
+        return entities.size();
+    }
+
+    @Override
+    public E set(int index, E entity) {
+        return replace(idAt(index), entity);
+    }
+
+    @Override
+    public boolean add(E entity) {
+        append(entity);
+        return true;
+    }
+
+    @Override
+    public E remove(int index) {
+        return removeId(idAt(index));
+    }
+
+    // Built at once, without a copy of the path for each entity, while the list is empty
+    @Override
+    public boolean addAll(Collection<? extends E> added) {
+        if (!isEmpty()) {
+            return super.addAll(added);
+        }
+
+        List<E> values = new ArrayList<>(added);
+        List<Long> ids = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            ids.add(nextId++);
+        }
+        entities = SortedTree.ofSorted(ids, values);
+        modCount++;
+        return !values.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        entities = SortedTree.empty();
+        modCount++;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<Map.Entry<Long, E>> iterator = entities.entries().iterator();
+        return new Iterator<>() {
+            private Long lastId;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                Map.Entry<Long, E> next = iterator.next();
+                lastId = next.getKey();
+                return next.getValue();
+            }
+
+            // The entities left are read from the tree the iteration started on
+            @Override
+            public void remove() {
+                if (lastId == null) {
+                    throw new IllegalStateException();
+                }
+                removeId(lastId);
+                lastId = null;
+            }
+        };
+    }
+
+    /**
+     * Gets the id of the entity at an index.
+     *
+     * @param index the index
+     * @return the id
+     */
+    long idAt(int index) {
+        return entities.keyAt(index);
+    }
+
+    /**
+     * Gets the entity having an id.
+     *
+     * @param id the id
+     * @return the entity, null if none has this id
+     */
+    E byId(long id) {
+        return entities.get(id);
+    }
+
+    /**
+     * Add an entity at the end of the list.
+     *
+     * @param entity the entity
+     * @return its id
+     */
+    long append(E entity) {
+        long id = nextId++;
+        entities = entities.put(id, entity);
+        modCount++;
+        return id;
+    }
+
+    /**
+     * Replace the entity having an id, keeping its place.
+     *
+     * @param id     the id
+     * @param entity the new entity
+     * @return the replaced entity
+     */
+    E replace(long id, E entity) {
+        E previous = entities.get(id);
+        entities = entities.put(id, entity);
+        return previous;
+    }
+
+    /**
+     * Remove the entity having an id.
+     *
+     * @param id the id
+     * @return the removed entity, null if none has this id
+     */
+    E removeId(long id) {
+        E removed = entities.get(id);
+        entities = entities.remove(id);
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Perform an action on each entity and its id, in the order of the list.
+     *
+     * @param action the action
+     */
+    void forEachWithId(BiConsumer<Long, ? super E> action) {
+        entities.forEach(action);
+    }
+}
@@ -0,0 +1,27 @@
+package com.safetynet.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * The size and modification time of a file, telling whether it changed since a content was derived from it.
+ *
+ * @param size         the size in bytes
+ * @param lastModified the modification time, in milliseconds since the epoch
+ */
+public record FileFingerprint(long size, long lastModified) {
+
+    /**
+     * The current fingerprint of a file.
+     *
+     * @param file the file
+     * @return the fingerprint
+     * @throws IOException if the file is missing
+     */
+    public static FileFingerprint of(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new FileFingerprint(attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+}
@@ -0,0 +1,168 @@
+package com.safetynet.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Group commit writer.
+ * <p>
+ * Single writer of the persistence pipeline : the mutations submitted by the request threads are queued,
+ * and the writer thread commits together all those arriving within a small window, with one durable flush.
+ * Each caller is released only once the batch holding its mutation is committed, or its mutation rejected.
+ */
+public class GroupCommitWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitWriter.class);
+
+    /**
+     * Commits a batch of mutations.
+     */
+    @FunctionalInterface
+    public interface BatchHandler {
+
+        /**
+         * Commit.
+         *
+         * @param batch the mutations, in submission order
+         * @return the mutations left out of the commit, by identity, with the reason, empty if none
+         * @throws IOException if the batch cannot be made durable
+         */
+        Map<Mutation, RuntimeException> commit(List<Mutation> batch) throws IOException;
+    }
+
+    private record Pending(Mutation mutation, CompletableFuture<Void> committed) {
+    }
+
+    // Queued by close() after the last accepted mutation, so everything submitted before is still committed
+    private static final Pending CLOSE = new Pending(null, null);
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final BatchHandler handler;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Thread writerThread;
+    private boolean closed;
+
+    /**
+     * Instantiates a new Group commit writer and starts its writer thread.
+     *
+     * @param handler      commits each batch
+     * @param window       how long the writer waits for more mutations after the first one of a batch
+     * @param maxBatchSize the maximum number of mutations committed together
+     */
+    public GroupCommitWriter(BatchHandler handler, Duration window, int maxBatchSize) {
+        this.handler = handler;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+
+        this.writerThread = new Thread(this::run, "journal-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queue a mutation for the next batch.
+     *
+     * @param mutation the mutation
+     * @return completed once the mutation is committed, or exceptionally if its batch failed
+     */
+    public synchronized CompletableFuture<Void> submit(Mutation mutation) {
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        if (closed) {
+            committed.completeExceptionally(new IllegalStateException("The journal writer is closed"));
+            return committed;
+        }
+
+        queue.add(new Pending(mutation, committed));
+        return committed;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+
+        try {
+            while (!stopping) {
+                Pending first = queue.take();
+                if (first == CLOSE) {
+                    break;
+                }
+                batch.add(first);
+
+                // Give the concurrent requests a chance to join the batch
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == CLOSE) {
+                        stopping = true;
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Nothing is committed anymore : the callers still waiting are released with an error
+        batch.addAll(queue);
+        batch.stream()
+                .filter(pending -> pending != CLOSE)
+                .forEach(pending -> pending.committed().completeExceptionally(new IllegalStateException("The journal writer is closed")));
+    }
+
+    private void commit(List<Pending> batch) {
+        try {
+            Map<Mutation, RuntimeException> rejected = handler.commit(batch.stream().map(Pending::mutation).toList());
+            for (Pending pending : batch) {
+                RuntimeException reason = rejected.get(pending.mutation());
+                if (reason == null) {
+                    pending.committed().complete(null);
+                } else {
+                    pending.committed().completeExceptionally(reason);
+                }
+            }
+            logger.debug("{} mutations committed together", batch.size() - rejected.size());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error committing a batch of {} mutations", batch.size(), e);
+            batch.forEach(pending -> pending.committed().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Commit the mutations already submitted, then stop the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(CLOSE);
+        }
+
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.safetynet.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The type Group index.
+ * <p>
+ * The entities of a section grouped by one of their attributes, in the order of the list.
+ * The groups, and the entities of each group by their id in the list, are kept in {@link SortedTree}s : a change only copies
+ * the path to the changed entity and to its group, a fork shares them all, and a read never sees a group being changed.
+ * The groups of a sorted grouping can be read by range, in the natural order of the groups.
+ */
+class GroupIndex implements SectionIndex {
+
+    private record Members(List<Long> ids, List<Object> entities) {
+    }
+
+    private final Grouping grouping;
+    private SortedTree<Object, SortedTree<Long, Object>> groups;
+
+    /**
+     * Instantiates a new Group index.
+     *
+     * @param grouping the grouping
+     * @param entities the list of the section
+     */
+    GroupIndex(Grouping grouping, EntityList<Object> entities) {
+        this.grouping = grouping;
+
+        Map<Object, Members> building = new HashMap<>();
+        entities.forEachWithId((id, entity) -> {
+            Object group = grouping.groupOf(entity);
+            if (group != null) {
+                Members members = building.computeIfAbsent(group, g -> new Members(new ArrayList<>(), new ArrayList<>()));
+                members.ids().add(id);
+                members.entities().add(entity);
+            }
+        });
+
+        Map<Object, SortedTree<Long, Object>> built = new HashMap<>();
+        building.forEach((group, members) -> built.put(group, SortedTree.ofSorted(members.ids(), members.entities())));
+        this.groups = SortedTree.copyOf(built);
+    }
+
+    private GroupIndex(Grouping grouping, SortedTree<Object, SortedTree<Long, Object>> groups) {
+        this.grouping = grouping;
+        this.groups = groups;
+    }
+
+    /**
+     * A copy of this index, to be changed instead of it : the groups are shared until either one changes them.
+     *
+     * @return the fork
+     */
+    GroupIndex fork() {
+        return new GroupIndex(grouping, groups);
+    }
+
+    /**
+     * Gets the entities of a group.
+     *
+     * @param group the group
+     * @return an immutable list of the entities, empty if none
+     */
+    List<Object> get(Object group) {
+        SortedTree<Long, Object> members = group == null ? null : groups.get(group);
+        return members == null ? List.of() : members.values();
+    }
+
+    /**
+     * Gets the groups from a group to another, in their order.
+     *
+     * @param from the first group, included, null to start with the first one
+     * @param to   the last group, excluded, null to go to the last one
+     * @return the entities of each group
+     */
+    Iterable<List<Object>> range(Object from, Object to) {
+        if (!grouping.isSorted()) {
+            throw new IllegalStateException("The groups of " + grouping + " are not sorted");
+        }
+
+        Iterable<Map.Entry<Object, SortedTree<Long, Object>>> range = groups.entries(from, to);
+        return () -> {
+            Iterator<Map.Entry<Object, SortedTree<Long, Object>>> entries = range.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public List<Object> next() {
+                    return entries.next().getValue().values();
+                }
+            };
+        };
+    }
+
+    /**
+     * Record an entity appended to the list.
+     *
+     * @param id     the id of the entity
+     * @param entity the entity
+     */
+    @Override
+    public void added(long id, Object entity) {
+        Object group = grouping.groupOf(entity);
+        if (group == null) {
+            return;
+        }
+
+        groups = groups.put(group, groups.getOrDefault(group, SortedTree.empty()).put(id, entity));
+    }
+
+    /**
+     * Record an entity replaced in the list.
+     *
+     * @param id       the id of both entities
+     * @param previous the replaced entity
+     * @param entity   the new entity
+     */
+    @Override
+    public void replaced(long id, Object previous, Object entity) {
+        Object group = grouping.groupOf(entity);
+        if (group == null || !group.equals(grouping.groupOf(previous))) {
+            removed(id, previous);
+            added(id, entity);
+            return;
+        }
+
+        SortedTree<Long, Object> members = groups.get(group);
+        if (members != null) {
+            groups = groups.put(group, members.put(id, entity));
+        }
+    }
+
+    /**
+     * Record an entity removed from the list.
+     *
+     * @param id     the id of the entity
+     * @param entity the entity
+     */
+    @Override
+    public void removed(long id, Object entity) {
+        Object group = grouping.groupOf(entity);
+        SortedTree<Long, Object> members = group == null ? null : groups.get(group);
+        if (members == null) {
+            return;
+        }
+
+        SortedTree<Long, Object> updated = members.remove(id);
+        groups = updated.isEmpty() ? groups.remove(group) : groups.put(group, updated);
+    }
+}
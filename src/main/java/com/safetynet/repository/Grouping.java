@@ -0,0 +1,93 @@
+package com.safetynet.repository;
+
+import com.safetynet.model.Firestation;
+import com.safetynet.model.Person;
+import lombok.Getter;
+
+/**
+ * The groupings of the entities of a section by one of their attributes, each kept as a {@link GroupIndex} by the {@link Dataset}.
+ */
+@Getter
+public enum Grouping {
+
+    /**
+     * The residents of each address.
+     */
+    PERSONS_BY_ADDRESS(DataSection.PERSONS) {
+        @Override
+        public Object groupOf(Object entity) {
+            return ((Person) entity).getAddress();
+        }
+    },
+
+    /**
+     * The persons having each key : more than one only if a name was added twice.
+     */
+    PERSONS_BY_NAME(DataSection.PERSONS) {
+        @Override
+        public Object groupOf(Object entity) {
+            return DataSection.PERSONS.keyOf(entity);
+        }
+    },
+
+    /**
+     * The persons of each last name, in the order of the names : see {@link Dataset#groupRange}.
+     */
+    PERSONS_BY_LAST_NAME(DataSection.PERSONS, true) {
+        @Override
+        public Object groupOf(Object entity) {
+            return ((Person) entity).getLastName();
+        }
+    },
+
+    /**
+     * The persons of each city.
+     */
+    PERSONS_BY_CITY(DataSection.PERSONS) {
+        @Override
+        public Object groupOf(Object entity) {
+            return ((Person) entity).getCity();
+        }
+    },
+
+    /**
+     * The addresses covered by each station.
+     */
+    FIRESTATIONS_BY_STATION(DataSection.FIRESTATIONS) {
+        @Override
+        public Object groupOf(Object entity) {
+            return ((Firestation) entity).getStation();
+        }
+    },
+
+    /**
+     * The stations covering each address : an address may be covered by several of them.
+     */
+    FIRESTATIONS_BY_ADDRESS(DataSection.FIRESTATIONS) {
+        @Override
+        public Object groupOf(Object entity) {
+            return ((Firestation) entity).getAddress();
+        }
+    };
+
+    private final DataSection section;
+    // The groups are kept in their natural order, and can be read by range
+    private final boolean sorted;
+
+    Grouping(DataSection section) {
+        this(section, false);
+    }
+
+    Grouping(DataSection section, boolean sorted) {
+        this.section = section;
+        this.sorted = sorted;
+    }
+
+    /**
+     * Group of an entity of the section.
+     *
+     * @param entity the entity
+     * @return the group, null if the entity belongs to none
+     */
+    public abstract Object groupOf(Object entity);
+}
@@ -0,0 +1,117 @@
+package com.safetynet.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The type In memory storage engine.
+ * <p>
+ * Loads the data file, if any, and never writes it : the mutations live as long as the application.
+ * Meant for the tests and the benchmarks, and as the base of the engines that persist each mutation.
+ */
+public class InMemoryStorageEngine implements StorageEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryStorageEngine.class);
+
+    /**
+     * The data file.
+     */
+    protected final Path dataFile;
+    /**
+     * The settings.
+     */
+    protected final StorageSettings settings;
+    /**
+     * The json data file.
+     */
+    protected final JsonDataFile jsonDataFile = new JsonDataFile(new ObjectMapper());
+    /**
+     * The dataset, read without locking : the current version, replaced by each mutation.
+     */
+    protected volatile Dataset dataset;
+
+    /**
+     * Instantiates a new In memory storage engine.
+     *
+     * @param dataFile the data file
+     * @param settings the settings
+     */
+    public InMemoryStorageEngine(Path dataFile, StorageSettings settings) {
+        this.dataFile = dataFile;
+        this.settings = settings;
+    }
+
+    @Override
+    public void open() throws IOException {
+        if (Files.exists(dataFile)) {
+            dataset = jsonDataFile.read(dataFile, settings.isParallelLoad());
+        } else {
+            logger.warn("No data file {}, starting with no data", dataFile);
+            dataset = new Dataset();
+        }
+    }
+
+    @Override
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    @Override
+    public void add(DataSection section, Object entity) {
+        commit(Mutation.Type.ADD, section, section.keyOf(entity), entity);
+    }
+
+    @Override
+    public void update(DataSection section, Object entity) {
+        commit(Mutation.Type.UPDATE, section, section.keyOf(entity), entity);
+    }
+
+    @Override
+    public synchronized boolean delete(DataSection section, List<String> key) {
+        if (!dataset.contains(section, key)) {
+            return false;
+        }
+
+        commit(Mutation.Type.DELETE, section, key, null);
+        return true;
+    }
+
+    /**
+     * Apply a mutation and make it durable.
+     *
+     * @param type    the type of change
+     * @param section the section
+     * @param key     the key of the changed entity
+     * @param entity  the new entity, null for a DELETE
+     */
+    protected synchronized void commit(Mutation.Type type, DataSection section, List<String> key, Object entity) {
+        Dataset next = dataset.edit();
+        next.apply(type, section, key, entity);
+        dataset = next;
+    }
+
+    /**
+     * Check the journaled engine left no mutation outside of the data file, as they would be silently lost.
+     *
+     * @throws IOException if a journal holds mutations
+     */
+    protected void checkNoPendingJournal() throws IOException {
+        for (Path journal : List.of(Path.of(dataFile + ".journal"), Path.of(dataFile + ".journal.compacting"))) {
+            if (Files.exists(journal) && Files.size(journal) > 0) {
+                throw new IOException("The journal " + journal + " holds mutations missing from the data file : "
+                        + "start once with the journaled engine to compact it");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Nothing to release
+    }
+}
@@ -0,0 +1,71 @@
+package com.safetynet.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The type Journal compactor.
+ * <p>
+ * Periodically folds the journal of the {@link DataRepository} into a fresh snapshot of the data file,
+ * off the request path, so the restart time and the disk use stay bounded.
+ * A compaction is triggered when the journal grows over a size, or when it holds mutations older than an interval.
+ */
+@Component
+public class JournalCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalCompactor.class);
+
+    private final DataRepository dataRepository;
+    private final DataSize maxSize;
+    private final Duration interval;
+    private final Clock clock;
+
+    private Instant lastCompaction;
+
+    /**
+     * Instantiates a new Journal compactor.
+     *
+     * @param dataRepository the data repository
+     * @param maxSize        the journal size triggering a compaction
+     * @param interval       the maximum time between two compactions of a non-empty journal
+     * @param clock          the clock
+     */
+    public JournalCompactor(DataRepository dataRepository,
+                            @Value("${safetynet.journal.compaction.max-size:16MB}") DataSize maxSize,
+                            @Value("${safetynet.journal.compaction.interval:10m}") Duration interval,
+                            Clock clock) {
+        this.dataRepository = dataRepository;
+        this.maxSize = maxSize;
+        this.interval = interval;
+        this.clock = clock;
+        this.lastCompaction = clock.instant();
+    }
+
+    /**
+     * Compact the journal if one of the triggers is reached.
+     */
+    @Scheduled(fixedDelayString = "${safetynet.journal.compaction.check-interval:10s}")
+    public void compactIfNeeded() {
+        long journalSize = dataRepository.getJournalSize();
+        if (journalSize == 0) {
+            return;
+        }
+
+        boolean tooBig = journalSize >= maxSize.toBytes();
+        boolean tooOld = !clock.instant().isBefore(lastCompaction.plus(interval));
+
+        if (tooBig || tooOld) {
+            logger.info("Compacting the journal ({} bytes)", journalSize);
+            dataRepository.compact();
+            lastCompaction = clock.instant();
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.safetynet.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Journaled storage engine.
+ * <p>
+ * The mutations are appended to a journal, committed in batches by a single writer thread, and replayed on top of
+ * the data file at startup. The journal is folded into a new snapshot of the data file in the background.
+ * A binary copy of each snapshot is kept for a fast start, and a data file replaced from outside can be reloaded.
+ */
+public class JournaledStorageEngine implements StorageEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournaledStorageEngine.class);
+
+    private final Path dataFile;
+    private final StorageSettings settings;
+    private final DurabilityStats durabilityStats;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonDataFile jsonDataFile = new JsonDataFile(mapper);
+    private final SnapshotFile snapshotFile;
+    private final BinarySnapshot binarySnapshot;
+
+    // Replaced as a whole by each batch of mutations and each reload : the reads take the current version without locking
+    private volatile Dataset dataset;
+    private DataJournal journal;
+    private GroupCommitWriter writer;
+
+    // The data file as last loaded or written by the application : any other version was dropped in place from outside
+    private volatile FileFingerprint dataFileFingerprint;
+    // Serializes the writes and the reloads of the data file
+    private final Object dataFileLock = new Object();
+
+    /**
+     * Instantiates a new Journaled storage engine.
+     *
+     * @param dataFile the data file
+     * @param settings the settings
+     * @param stats    where the cost of the writes is recorded
+     */
+    public JournaledStorageEngine(Path dataFile, StorageSettings settings, DurabilityStats stats) {
+        this.dataFile = dataFile;
+        this.settings = settings;
+        this.durabilityStats = stats;
+        this.snapshotFile = new SnapshotFile(dataFile, stats);
+        this.binarySnapshot = new BinarySnapshot(Path.of(dataFile + ".bin"));
+    }
+
+    @Override
+    public void open() throws IOException {
+        dataset = loadDataset();
+
+        // The mutations made since the file was written are replayed on top of it
+        journal = new DataJournal(Path.of(dataFile + ".journal"), mapper, durabilityStats);
+        journal.replay(dataset.getJournalSequence(), mutation -> applyMutation(dataset, mutation));
+        writer = new GroupCommitWriter(this::commitBatch, settings.getCommitWindow(), settings.getMaxBatchSize());
+    }
+
+    private Dataset loadDataset() throws IOException {
+        // A temporary data file left by a crash may be newer than the data file the binary snapshot was made from
+        if (settings.isBinarySnapshot() && Files.exists(dataFile) && !Files.exists(Path.of(dataFile + ".tmp"))) {
+            try {
+                FileFingerprint fingerprint = FileFingerprint.of(dataFile);
+                Dataset loaded = binarySnapshot.read(fingerprint);
+                if (loaded != null) {
+                    dataFileFingerprint = fingerprint;
+                    return loaded;
+                }
+            } catch (IOException e) {
+                logger.warn("Ignoring the binary snapshot : {}", e.getMessage());
+            }
+        }
+
+        // A crash while writing a snapshot never leaves a truncated data file behind : the newest complete one is loaded.
+        // The file is streamed straight into the lists, its JSON tree is never built.
+        Dataset loaded = snapshotFile.recover(this::readDataFile, Dataset::getJournalSequence);
+        dataFileFingerprint = FileFingerprint.of(dataFile);
+        writeBinarySnapshot(loaded, dataFileFingerprint);
+        return loaded;
+    }
+
+    private Dataset readDataFile(Path file) throws IOException {
+        return jsonDataFile.read(file, settings.isParallelLoad());
+    }
+
+    // The data file is the reference : a missing binary snapshot only makes the next start slower
+    private void writeBinarySnapshot(Dataset snapshot, FileFingerprint source) {
+        if (!settings.isBinarySnapshot()) {
+            return;
+        }
+        try {
+            binarySnapshot.write(snapshot, source);
+        } catch (IOException e) {
+            logger.warn("Error writing the binary snapshot", e);
+        }
+    }
+
+    /**
+     * Reload the data file if it was replaced from outside since it was last loaded or written.
+     * <p>
+     * The new file is parsed on the calling thread, while the reads and the writes go on with the current data.
+     * The whole dataset is then swapped at once : a read sees either the old or the new data, never a mix of both.
+     * The journal is emptied, its mutations being superseded by the new file.
+     * A file that cannot be parsed (still being copied, invalid) is ignored and the current data is kept.
+     *
+     * @return true if the data file changed, whether it could be loaded or not
+     */
+    @Override
+    public boolean reloadIfChanged() {
+        synchronized (dataFileLock) {
+            FileFingerprint fingerprint;
+            try {
+                fingerprint = FileFingerprint.of(dataFile);
+            } catch (IOException e) {
+                logger.debug("The data file {} cannot be read", dataFile, e);
+                return false;
+            }
+            if (fingerprint.equals(dataFileFingerprint)) {
+                return false;
+            }
+
+            long start = System.nanoTime();
+            Dataset reloaded;
+            try {
+                reloaded = readDataFile(dataFile);
+            } catch (IOException e) {
+                logger.error("The data file {} changed but cannot be loaded, the current data is kept : {}", dataFile, e.getMessage());
+                return true;
+            }
+
+            synchronized (this) {
+                try {
+                    journal.reset(reloaded.getJournalSequence());
+                } catch (IOException e) {
+                    logger.error("Error resetting the journal, the current data is kept", e);
+                    return true;
+                }
+                reloaded.setVersion(dataset.getVersion() + 1);
+                dataset = reloaded;
+            }
+
+            dataFileFingerprint = fingerprint;
+            writeBinarySnapshot(reloaded, fingerprint);
+            logger.info("Data file {} reloaded in {} ms", dataFile, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return true;
+        }
+    }
+
+    @Override
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Add an entity to its section.
+     * Returns once the addition is durable and visible.
+     *
+     * @param section the section
+     * @param entity  the entity
+     */
+    @Override
+    public void add(DataSection section, Object entity) {
+        persist(new Mutation(0, Mutation.Type.ADD, section, section.keyOf(entity), mapper.valueToTree(entity)));
+    }
+
+    /**
+     * Replace the entity having the same key as the given one.
+     * Returns once the update is durable and visible.
+     *
+     * @param section the section
+     * @param entity  the updated entity
+     */
+    @Override
+    public void update(DataSection section, Object entity) {
+        persist(new Mutation(0, Mutation.Type.UPDATE, section, section.keyOf(entity), mapper.valueToTree(entity)));
+    }
+
+    /**
+     * Delete every entity having the given key.
+     * Returns once the deletion is durable and visible.
+     *
+     * @param section the section
+     * @param key     the key
+     * @return false if no entity has this key
+     */
+    @Override
+    public boolean delete(DataSection section, List<String> key) {
+        if (!dataset.contains(section, key)) {
+            return false;
+        }
+
+        persist(new Mutation(0, Mutation.Type.DELETE, section, key, null));
+        return true;
+    }
+
+    // The mutation joins the next batch of the journal writer, the caller waits for that batch to be committed
+    private void persist(Mutation mutation) {
+        try {
+            writer.submit(mutation).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal", e);
+        } catch (ExecutionException e) {
+            // Rejected, or the writer is closed : nothing was journaled
+            if (e.getCause() instanceof RuntimeException rejected) {
+                throw rejected;
+            }
+            throw new UncheckedIOException("Failed to write the journal", e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause()));
+        }
+
+        logger.info("-{}- {} written to the journal", mutation.getSection().getNodeName(), mutation.getType());
+    }
+
+    // The batch is applied to the next version of the dataset first, then the mutations that applied are journaled
+    // with a single sync, then the version is published as a whole : memory never holds a change the journal does
+    // not know about, and the journal never holds a change that could not be applied, to be replayed at the next start.
+    private synchronized Map<Mutation, RuntimeException> commitBatch(List<Mutation> batch) throws IOException {
+        Map<Mutation, RuntimeException> rejected = new IdentityHashMap<>();
+        List<Mutation> applied = new ArrayList<>(batch);
+        Dataset next = applyAll(applied, rejected);
+
+        if (!applied.isEmpty()) {
+            journal.appendAll(applied);
+            dataset = next;
+        }
+        return rejected;
+    }
+
+    // A mutation failing halfway may leave the version it was applied to half changed :
+    // it is rejected, and the others are applied again to a new edit of the dataset
+    private Dataset applyAll(List<Mutation> mutations, Map<Mutation, RuntimeException> rejected) {
+        while (true) {
+            Dataset next = dataset.edit();
+            Mutation failed = null;
+            for (Mutation mutation : mutations) {
+                try {
+                    applyMutation(next, mutation);
+                } catch (RuntimeException e) {
+                    logger.error("Rejecting the {} of the key {} in -{}-", mutation.getType(), mutation.getKey(),
+                            mutation.getSection().getNodeName(), e);
+                    rejected.put(mutation, e);
+                    failed = mutation;
+                    break;
+                }
+            }
+            if (failed == null) {
+                return next;
+            }
+            Mutation removed = failed;
+            mutations.removeIf(mutation -> mutation == removed);
+        }
+    }
+
+    private void applyMutation(Dataset target, Mutation mutation) {
+        Object entity = mutation.getType() == Mutation.Type.DELETE ? null : toEntity(mutation);
+
+        if (!target.apply(mutation.getType(), mutation.getSection(), mutation.getKey(), entity)
+                && mutation.getType() == Mutation.Type.UPDATE) {
+            logger.warn("Nothing to update for the key {} in -{}-", mutation.getKey(), mutation.getSection().getNodeName());
+        }
+    }
+
+    private Object toEntity(Mutation mutation) {
+        try {
+            return mapper.treeToValue(mutation.getValue(), mutation.getSection().getEntityClass());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid entity in the journal", e);
+        }
+    }
+
+    /**
+     * Fold the journal into a new snapshot of the data file, then drop the folded mutations.
+     * <p>
+     * Only the rotation of the journal blocks the writes :
+     * the snapshot itself is written while the reads and the writes go on.
+     */
+    @Override
+    public void compact() {
+        synchronized (dataFileLock) {
+            // The data file dropped in place is loaded rather than overwritten
+            if (settings.isHotReload() && reloadIfChanged()) {
+                return;
+            }
+            compactLocked();
+        }
+    }
+
+    private void compactLocked() {
+        Dataset snapshot;
+
+        synchronized (this) {
+            try {
+                journal.rotate();
+            } catch (IOException e) {
+                logger.error("Error rotating the journal", e);
+                return;
+            }
+
+            // The lists of a published version never change : they are written as they are
+            snapshot = new Dataset(dataset.getPersons(), dataset.getFirestations(), dataset.getMedicalRecords(), journal.getLastSequence());
+        }
+
+        try {
+            snapshotFile.write(out -> jsonDataFile.write(out, snapshot));
+            dataFileFingerprint = FileFingerprint.of(dataFile);
+            writeBinarySnapshot(snapshot, dataFileFingerprint);
+            journal.discardRotated();
+            logger.info("Journal compacted up to the sequence {}", snapshot.getJournalSequence());
+            logger.info("Durability : {}", durabilityStats);
+        } catch (IOException e) {
+            // The rotated journal is kept and replayed at the next start
+            logger.error("Error writing the snapshot to the JSON file", e);
+        }
+    }
+
+    @Override
+    public long getJournalSize() {
+        return journal.getSize();
+    }
+
+    /**
+     * Close the journal, once the pending mutations are committed.
+     *
+     * @throws IOException the io exception
+     */
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+}
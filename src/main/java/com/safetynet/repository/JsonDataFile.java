@@ -0,0 +1,308 @@
+package com.safetynet.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.safetynet.model.MedicalRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Json data file.
+ * <p>
+ * Reads and writes the data file token by token : the entities go straight between the file and the lists of the
+ * {@link Dataset}, without building the JSON tree of the whole document in memory.
+ * The sections can also be read concurrently, each one by its own parser.
+ */
+public class JsonDataFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonDataFile.class);
+
+    /**
+     * Top-level field holding the last journal sequence folded into the file.
+     */
+    public static final String JOURNAL_SEQUENCE = "journalSequence";
+
+    private final ObjectMapper mapper;
+
+    /**
+     * Instantiates a new Json data file.
+     *
+     * @param mapper the mapper
+     */
+    public JsonDataFile(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Read a data file, one section after the other.
+     * Unknown top-level fields are skipped, missing sections are left empty.
+     *
+     * @param file the file
+     * @return the dataset
+     * @throws IOException if the file is missing, truncated or invalid
+     */
+    public Dataset read(Path file) throws IOException {
+        Dataset dataset = new Dataset();
+        Set<DataSection> missingSections = EnumSet.allOf(DataSection.class);
+
+        try (JsonParser parser = mapper.createParser(file.toFile())) {
+            readTopLevel(parser, file, dataset, (section, sectionParser) -> {
+                long start = System.nanoTime();
+                readSection(sectionParser, section, dataset);
+                logSectionLoaded(section, dataset, start);
+                missingSections.remove(section);
+            });
+        }
+
+        warnMissing(missingSections);
+        return dataset;
+    }
+
+    /**
+     * Read a data file, one section after the other or concurrently.
+     *
+     * @param file     the file
+     * @param parallel whether the sections are deserialized concurrently
+     * @return the dataset
+     * @throws IOException if the file is missing, truncated or invalid
+     */
+    public Dataset read(Path file, boolean parallel) throws IOException {
+        return parallel ? readParallel(file) : read(file);
+    }
+
+    /**
+     * Read a data file, its sections being deserialized concurrently.
+     * <p>
+     * A first pass skims the top-level fields, without binding anything, to find where each section starts.
+     * Each section is then read by its own parser, opened at that position, on its own thread.
+     *
+     * @param file the file
+     * @return the dataset
+     * @throws IOException if the file is missing, truncated or invalid
+     */
+    public Dataset readParallel(Path file) throws IOException {
+        Dataset dataset = new Dataset();
+        Map<DataSection, Long> offsets = new EnumMap<>(DataSection.class);
+
+        long start = System.nanoTime();
+        try (JsonParser parser = mapper.createParser(file.toFile())) {
+            readTopLevel(parser, file, dataset, (section, sectionParser) -> {
+                offsets.put(section, sectionParser.currentTokenLocation().getByteOffset());
+                sectionParser.skipChildren();
+            });
+        }
+        logger.info("Sections of {} located in {} ms", file, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, offsets.size()));
+        try {
+            List<Future<?>> loads = new ArrayList<>();
+            offsets.forEach((section, offset) -> loads.add(executor.submit(() -> {
+                readSectionAt(file, offset, section, dataset);
+                return null;
+            })));
+
+            for (Future<?> load : loads) {
+                load.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading " + file);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Set<DataSection> missingSections = EnumSet.allOf(DataSection.class);
+        missingSections.removeAll(offsets.keySet());
+        warnMissing(missingSections);
+        return dataset;
+    }
+
+    private void readSectionAt(Path file, long offset, DataSection section, Dataset dataset) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(offset);
+            try (JsonParser parser = mapper.createParser(Channels.newInputStream(channel))) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("No array at the position of the section " + section.getNodeName() + " in " + file);
+                }
+                readSection(parser, section, dataset);
+            }
+        }
+        logSectionLoaded(section, dataset, start);
+    }
+
+    @FunctionalInterface
+    private interface SectionHandler {
+        void handle(DataSection section, JsonParser parser) throws IOException;
+    }
+
+    // Walks the top-level fields : the sections are handed over, the journal sequence is read, anything else is skipped
+    private void readTopLevel(JsonParser parser, Path file, Dataset dataset, SectionHandler sectionHandler) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("No JSON object in " + file);
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken token = parser.nextToken();
+            DataSection section = sectionOf(fieldName);
+
+            if (JOURNAL_SEQUENCE.equals(fieldName)) {
+                dataset.setJournalSequence(parser.getValueAsLong());
+            } else if (section != null && token == JsonToken.START_ARRAY) {
+                sectionHandler.handle(section, parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+            throw new IOException("Unexpected content after the data in " + file);
+        }
+    }
+
+    private static void warnMissing(Set<DataSection> missingSections) {
+        missingSections.forEach(section -> logger.warn("Node '{}' is missing or null. Using an empty list.", section.getNodeName()));
+    }
+
+    private static void logSectionLoaded(DataSection section, Dataset dataset, long start) {
+        logger.info("Section {} : {} entries loaded in {} ms", section.getNodeName(),
+                dataset.sectionList(section).size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Read whole before they are added : the list of the dataset is built at once
+    private void readSection(JsonParser parser, DataSection section, Dataset dataset) throws IOException {
+        List<Object> entities = new ArrayList<>();
+        readSection(parser, section, entities);
+        dataset.sectionList(section).addAll(entities);
+    }
+
+    /**
+     * Read the entities of a section, the parser being on the start of its array.
+     *
+     * @param parser  the parser
+     * @param section the section
+     * @param target  receives the entities
+     * @throws IOException the io exception
+     */
+    public void readSection(JsonParser parser, DataSection section, List<Object> target) throws IOException {
+        ObjectReader reader = mapper.readerFor(section.getEntityClass());
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            Object entity = reader.readValue(parser);
+            // The birthdate is parsed with the record : one that is not a date leaves its person out of the ages
+            if (entity instanceof MedicalRecord medicalRecord && !medicalRecord.hasValidBirthdate()) {
+                logger.warn("Invalid birthdate for : {} {} : {}", medicalRecord.getFirstName(), medicalRecord.getLastName(),
+                        medicalRecord.getBirthdate());
+            }
+            target.add(entity);
+        }
+    }
+
+    /**
+     * Write a dataset.
+     *
+     * @param out     the stream
+     * @param dataset the dataset
+     * @throws IOException the io exception
+     */
+    public void write(OutputStream out, Dataset dataset) throws IOException {
+        try (JsonGenerator generator = mapper.createGenerator(out)) {
+            generator.writeStartObject();
+            for (DataSection section : DataSection.values()) {
+                writeSection(generator, section, dataset.sectionList(section));
+            }
+            generator.writeNumberField(JOURNAL_SEQUENCE, dataset.getJournalSequence());
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeSection(JsonGenerator generator, DataSection section, List<Object> entities) throws IOException {
+        generator.writeFieldName(section.getNodeName());
+        writeArray(generator, section, entities);
+    }
+
+    private void writeArray(JsonGenerator generator, DataSection section, List<Object> entities) throws IOException {
+        ObjectWriter writer = mapper.writerFor(section.getEntityClass()).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        generator.writeStartArray();
+        for (Object entity : entities) {
+            writer.writeValue(generator, entity);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Read a segment file : the entities of a single section, as a JSON array.
+     *
+     * @param file    the file
+     * @param section the section
+     * @return the entities
+     * @throws IOException if the file is missing, truncated or invalid
+     */
+    public List<Object> readSegment(Path file, DataSection section) throws IOException {
+        long start = System.nanoTime();
+        List<Object> entities = new ArrayList<>();
+
+        try (JsonParser parser = mapper.createParser(file.toFile())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("No JSON array in " + file);
+            }
+            readSection(parser, section, entities);
+            if (parser.nextToken() != null) {
+                throw new IOException("Unexpected content after the data in " + file);
+            }
+        }
+
+        logger.info("Segment {} : {} entries loaded in {} ms", file, entities.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return entities;
+    }
+
+    /**
+     * Write a segment file.
+     *
+     * @param out      the stream
+     * @param section  the section
+     * @param entities the entities of the section
+     * @throws IOException the io exception
+     */
+    public void writeSegment(OutputStream out, DataSection section, List<Object> entities) throws IOException {
+        try (JsonGenerator generator = mapper.createGenerator(out)) {
+            writeArray(generator, section, entities);
+        }
+    }
+
+    private static DataSection sectionOf(String fieldName) {
+        for (DataSection section : DataSection.values()) {
+            if (section.getNodeName().equals(fieldName)) {
+                return section;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.safetynet.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The type Json document storage engine.
+ * <p>
+ * The data file is the only copy on disk : it is rewritten as a whole, atomically, at each mutation.
+ * Simple and always up to date, but a write costs the size of the whole dataset.
+ * The new version is published only once it is written, so a failed write leaves the data unchanged.
+ */
+public class JsonDocumentStorageEngine extends InMemoryStorageEngine {
+
+    private final SnapshotFile snapshotFile;
+
+    /**
+     * Instantiates a new Json document storage engine.
+     *
+     * @param dataFile the data file
+     * @param settings the settings
+     * @param stats    where the cost of the writes is recorded
+     */
+    public JsonDocumentStorageEngine(Path dataFile, StorageSettings settings, DurabilityStats stats) {
+        super(dataFile, settings);
+        this.snapshotFile = new SnapshotFile(dataFile, stats);
+    }
+
+    @Override
+    public void open() throws IOException {
+        checkNoPendingJournal();
+        dataset = snapshotFile.recover(file -> jsonDataFile.read(file, settings.isParallelLoad()), Dataset::getJournalSequence);
+    }
+
+    @Override
+    protected synchronized void commit(Mutation.Type type, DataSection section, List<String> key, Object entity) {
+        Dataset next = dataset.edit();
+        next.apply(type, section, key, entity);
+
+        try {
+            snapshotFile.write(out -> jsonDataFile.write(out, next));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the JSON file", e);
+        }
+        dataset = next;
+    }
+}
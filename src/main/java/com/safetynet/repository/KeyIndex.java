@@ -0,0 +1,93 @@
+package com.safetynet.repository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The type Key index.
+ * <p>
+ * The ids in the list of a section (see {@link EntityList}) of the entities having each key, in the order of the list,
+ * so that an entity is found by its key without scanning the list.
+ * <p>
+ * The ids are kept in a {@link SortedTree} : the next version of the dataset changes a fork of the index,
+ * which only copies the path to each key it changes, and the index of the previous version is left as it was.
+ */
+class KeyIndex {
+
+    private SortedTree<List<String>, long[]> ids;
+
+    /**
+     * Instantiates a new Key index.
+     *
+     * @param section  the section
+     * @param entities the list of the section
+     */
+    KeyIndex(DataSection section, EntityList<Object> entities) {
+        Map<List<String>, long[]> building = new HashMap<>();
+        entities.forEachWithId((id, entity) -> building.merge(section.keyOf(entity), new long[] {id}, KeyIndex::concat));
+        this.ids = SortedTree.copyOf(building);
+    }
+
+    private KeyIndex(SortedTree<List<String>, long[]> ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * A copy of this index, to be changed instead of it.
+     *
+     * @return the fork
+     */
+    KeyIndex fork() {
+        return new KeyIndex(ids);
+    }
+
+    /**
+     * Gets the ids of the entities having the key.
+     *
+     * @param key the key
+     * @return the ids, in the order of the list, null if no entity has this key
+     */
+    long[] idsOf(List<String> key) {
+        return ids.get(key);
+    }
+
+    /**
+     * Find the first entity having the key.
+     *
+     * @param entities the list of the section
+     * @param key      the key
+     * @return the entity, null if no entity has this key
+     */
+    Object find(EntityList<Object> entities, List<String> key) {
+        long[] found = ids.get(key);
+        return found == null ? null : entities.byId(found[0]);
+    }
+
+    /**
+     * Record an entity appended to the list.
+     *
+     * @param key the key of the entity
+     * @param id  its id
+     */
+    void added(List<String> key, long id) {
+        long[] found = ids.get(key);
+        ids = ids.put(key, found == null ? new long[] {id} : concat(found, new long[] {id}));
+    }
+
+    /**
+     * Record the removal of all the entities having the key.
+     *
+     * @param key the key
+     */
+    void removed(List<String> key) {
+        ids = ids.remove(key);
+    }
+
+    private static long[] concat(long[] first, long[] second) {
+        long[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+}
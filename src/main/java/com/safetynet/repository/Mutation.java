@@ -0,0 +1,31 @@
+package com.safetynet.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * One record of the journal : a single add, update or delete applied to a section.
+ */
+@Setter @Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class Mutation {
+
+    /**
+     * The kind of change carried by a mutation.
+     */
+    public enum Type { ADD, UPDATE, DELETE }
+
+    private long sequence;
+    private Type type;
+    private DataSection section;
+    private List<String> key;
+
+    // The entity as written in the data file, null for a DELETE
+    private JsonNode value;
+
+}
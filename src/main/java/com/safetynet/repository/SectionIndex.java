@@ -0,0 +1,35 @@
+package com.safetynet.repository;
+
+/**
+ * The type Section index.
+ * <p>
+ * An index over the list of a section, kept up to date by {@link Dataset#apply} as the entities are added, replaced or removed.
+ * Each entity comes with its id in the list (see {@link EntityList}).
+ */
+interface SectionIndex {
+
+    /**
+     * Record an entity appended to the list.
+     *
+     * @param id     the id of the entity
+     * @param entity the entity
+     */
+    void added(long id, Object entity);
+
+    /**
+     * Record an entity replaced in the list.
+     *
+     * @param id       the id of both entities
+     * @param previous the replaced entity
+     * @param entity   the new entity
+     */
+    void replaced(long id, Object previous, Object entity);
+
+    /**
+     * Record an entity removed from the list.
+     *
+     * @param id     the id of the entity
+     * @param entity the entity
+     */
+    void removed(long id, Object entity);
+}
@@ -0,0 +1,146 @@
+package com.safetynet.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The type Segmented storage engine.
+ * <p>
+ * Each section is kept in its own segment file, a JSON array in the directory {@code <data file>.segments},
+ * rewritten atomically when one of its entities changes : a firestation change no longer rewrites the persons.
+ * The sections have their own lock, so the writes to different sections do not wait for each other,
+ * and the segments are loaded in parallel at startup.
+ * <p>
+ * A data file found next to the segments (the single-file layout, or a new file dropped in place) is migrated :
+ * its sections are written to the segments, then it is renamed {@code <data file>.migrated}.
+ */
+public class SegmentedStorageEngine extends InMemoryStorageEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedStorageEngine.class);
+
+    private final Path directory;
+    private final Map<DataSection, SnapshotFile> segments = new EnumMap<>(DataSection.class);
+    private final Map<DataSection, Object> locks = new EnumMap<>(DataSection.class);
+
+    /**
+     * Instantiates a new Segmented storage engine.
+     *
+     * @param dataFile the data file
+     * @param settings the settings
+     * @param stats    where the cost of the writes is recorded
+     */
+    public SegmentedStorageEngine(Path dataFile, StorageSettings settings, DurabilityStats stats) {
+        super(dataFile, settings);
+
+        this.directory = Path.of(dataFile + ".segments");
+        for (DataSection section : DataSection.values()) {
+            segments.put(section, new SnapshotFile(directory.resolve(section.getNodeName() + ".json"), stats));
+            locks.put(section, new Object());
+        }
+    }
+
+    @Override
+    public void open() throws IOException {
+        if (Files.exists(dataFile)) {
+            migrate();
+        }
+
+        if (Files.exists(directory)) {
+            dataset = loadSegments();
+        } else {
+            logger.warn("No data file {} nor segments, starting with no data", dataFile);
+            dataset = new Dataset();
+        }
+    }
+
+    private void migrate() throws IOException {
+        checkNoPendingJournal();
+
+        Dataset migrated = new SnapshotFile(dataFile, new DurabilityStats())
+                .recover(file -> jsonDataFile.read(file, settings.isParallelLoad()), Dataset::getJournalSequence);
+
+        Files.createDirectories(directory);
+        for (DataSection section : DataSection.values()) {
+            writeSegment(section, migrated.sectionList(section));
+        }
+
+        // Renamed last : a migration interrupted before is run again at the next start
+        Files.move(dataFile, Path.of(dataFile + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Data file {} migrated to one segment per section", dataFile);
+    }
+
+    private Dataset loadSegments() throws IOException {
+        Dataset loaded = new Dataset();
+        ExecutorService executor = Executors.newFixedThreadPool(DataSection.values().length);
+
+        try {
+            Map<DataSection, Future<List<Object>>> loads = new EnumMap<>(DataSection.class);
+            segments.forEach((section, segment) -> loads.put(section, executor.submit(() ->
+                    segment.recover(file -> jsonDataFile.readSegment(file, section), entities -> 0))));
+
+            for (Map.Entry<DataSection, Future<List<Object>>> load : loads.entrySet()) {
+                loaded = loaded.withSection(load.getKey(), load.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading the segments");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return loaded;
+    }
+
+    void writeSegment(DataSection section, List<Object> entities) throws IOException {
+        segments.get(section).write(out -> jsonDataFile.writeSegment(out, section, entities));
+    }
+
+    @Override
+    public boolean delete(DataSection section, List<String> key) {
+        synchronized (locks.get(section)) {
+            if (!dataset.contains(section, key)) {
+                return false;
+            }
+
+            commit(Mutation.Type.DELETE, section, key, null);
+            return true;
+        }
+    }
+
+    // Only the list of the section is copied and written. It is published once written, so a failed write changes nothing.
+    @Override
+    protected void commit(Mutation.Type type, DataSection section, List<String> key, Object entity) {
+        synchronized (locks.get(section)) {
+            Dataset previous = dataset;
+            Dataset next = previous.edit();
+            next.apply(type, section, key, entity);
+            List<Object> entities = next.sectionList(section);
+
+            try {
+                writeSegment(section, entities);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write the segment " + section.getNodeName(), e);
+            }
+
+            // The other sections may have been published meanwhile : the section is then set into their version
+            synchronized (this) {
+                dataset = dataset == previous ? next : dataset.withSection(section, next);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.safetynet.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * The type Snapshot file.
+ * <p>
+ * A data file that is never written in place : a new version is written to a temporary file,
+ * forced to disk, then renamed over the previous one, which is kept as a backup.
+ * A crash at any point leaves at least one complete version, and {@link #recover} picks the newest of them.
+ */
+public class SnapshotFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotFile.class);
+
+    /**
+     * Writes the content of a snapshot.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * Write.
+         *
+         * @param out the stream of the temporary file
+         * @throws IOException the io exception
+         */
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Reads and validates a snapshot.
+     *
+     * @param <T> the type of the loaded content
+     */
+    @FunctionalInterface
+    public interface ContentReader<T> {
+
+        /**
+         * Read.
+         *
+         * @param file the file
+         * @return the content
+         * @throws IOException if the file is missing, truncated or invalid
+         */
+        T read(Path file) throws IOException;
+    }
+
+    private final Path path;
+    private final Path tempPath;
+    private final Path backupPath;
+    private final DurabilityStats stats;
+
+    /**
+     * Instantiates a new Snapshot file.
+     *
+     * @param path  the data file
+     * @param stats where the cost of the writes is recorded
+     */
+    public SnapshotFile(Path path, DurabilityStats stats) {
+        this.path = path;
+        this.tempPath = Path.of(path + ".tmp");
+        this.backupPath = Path.of(path + ".bak");
+        this.stats = stats;
+    }
+
+    /**
+     * Write a new version of the file atomically.
+     *
+     * @param contentWriter writes the content
+     * @throws IOException if the new version cannot be written, in which case the current one is left untouched
+     */
+    public void write(ContentWriter contentWriter) throws IOException {
+        long start = System.nanoTime();
+        long size;
+        long writeNanos;
+
+        try (FileChannel channel = FileChannel.open(tempPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            // The content writer may close its stream : the channel stays open until it is forced
+            OutputStream out = new BufferedOutputStream(new FilterOutputStream(Channels.newOutputStream(channel)) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            });
+            contentWriter.write(out);
+            out.flush();
+
+            size = channel.size();
+            writeNanos = System.nanoTime() - start;
+
+            channel.force(true);
+        }
+
+        if (Files.exists(path)) {
+            Files.move(path, backupPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+        stats.recordSnapshot(size, writeNanos, System.nanoTime() - start - writeNanos);
+
+        logger.info("Snapshot {} written ({} bytes)", path, size);
+    }
+
+    // Makes the renames durable. Not supported on every platform, where the renames are durable anyway.
+    private void syncDirectory() {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Cannot sync the directory {}", directory, e);
+        }
+    }
+
+    /**
+     * Load the newest complete version of the file.
+     * <p>
+     * The file itself is used when it is valid, unless a complete temporary file newer than it was left by a crash
+     * just before its rename. The backup is only used when neither is valid.
+     * A version other than the file itself is moved back in place, the invalid file being kept aside for analysis.
+     *
+     * @param <T>        the type of the loaded content
+     * @param reader     reads and validates a version
+     * @param sequenceOf how recent a loaded version is
+     * @return the content of the newest valid version
+     * @throws IOException if no version is valid
+     */
+    public <T> T recover(ContentReader<T> reader, ToLongFunction<T> sequenceOf) throws IOException {
+        List<IOException> failures = new ArrayList<>();
+
+        T current = tryRead(path, reader, failures);
+        if (current != null && !Files.exists(tempPath)) {
+            return current;
+        }
+
+        T temp = Files.exists(tempPath) ? tryRead(tempPath, reader, failures) : null;
+        if (current != null && (temp == null || sequenceOf.applyAsLong(temp) <= sequenceOf.applyAsLong(current))) {
+            Files.deleteIfExists(tempPath);
+            return current;
+        }
+        if (temp != null) {
+            restore(tempPath);
+            return temp;
+        }
+
+        T backup = Files.exists(backupPath) ? tryRead(backupPath, reader, failures) : null;
+        if (backup != null) {
+            restore(backupPath);
+            return backup;
+        }
+
+        IOException exception = failures.isEmpty() ? new NoSuchFileException(path.toString()) : failures.getFirst();
+        failures.stream().skip(1).forEach(exception::addSuppressed);
+        throw exception;
+    }
+
+    private <T> T tryRead(Path file, ContentReader<T> reader, List<IOException> failures) {
+        try {
+            return reader.read(file);
+        } catch (IOException e) {
+            if (!(e instanceof NoSuchFileException)) {
+                logger.warn("Invalid snapshot {} : {}", file, e.getMessage());
+            }
+            failures.add(e);
+            return null;
+        }
+    }
+
+    private void restore(Path file) throws IOException {
+        logger.warn("Recovering the data file {} from {}", path, file);
+        if (Files.exists(path)) {
+            Files.move(path, Path.of(path + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(file, path, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+}
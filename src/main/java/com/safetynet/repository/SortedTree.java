@@ -0,0 +1,451 @@
+package com.safetynet.repository;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * The type Sorted tree.
+ * <p>
+ * An immutable map sorted by key : a balanced binary tree (AVL) whose nodes also count the entries below them,
+ * so that an entry is found by its key or by its index in logarithmic time.
+ * A change returns a new tree sharing all its nodes with this one but those on the path to the changed entry :
+ * keeping the previous version costs no copy, and a change only allocates a logarithmic number of nodes.
+ * The keys are compared in their natural order, the lists element by element.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class SortedTree<K, V> {
+
+    private static final SortedTree<?, ?> EMPTY = new SortedTree<>(null);
+
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+
+        private final K key;
+        private final V value;
+        private final Node<K, V> left;
+        private final Node<K, V> right;
+        private final int height;
+        private final int size;
+
+        private Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("The entries of a sorted tree cannot be changed");
+        }
+    }
+
+    private final Node<K, V> root;
+    // The view of the values, created on first use
+    private List<V> values;
+
+    private SortedTree(Node<K, V> root) {
+        this.root = root;
+    }
+
+    /**
+     * The empty tree.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the empty tree
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> SortedTree<K, V> empty() {
+        return (SortedTree<K, V>) EMPTY;
+    }
+
+    /**
+     * A tree of the entries of a map.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @param map the map
+     * @return the tree
+     */
+    static <K, V> SortedTree<K, V> copyOf(Map<K, V> map) {
+        List<Map.Entry<K, V>> entries = new ArrayList<>(map.entrySet());
+        entries.sort((entry, other) -> compare(entry.getKey(), other.getKey()));
+
+        List<K> keys = new ArrayList<>(entries.size());
+        List<V> entryValues = new ArrayList<>(entries.size());
+        for (Map.Entry<K, V> entry : entries) {
+            keys.add(entry.getKey());
+            entryValues.add(entry.getValue());
+        }
+        return ofSorted(keys, entryValues);
+    }
+
+    /**
+     * A tree of keys already sorted, each with the value at the same position, built without comparing them.
+     *
+     * @param <K>    the type of the keys
+     * @param <V>    the type of the values
+     * @param keys   the keys, in their order, each listed once
+     * @param values the values
+     * @return the tree
+     */
+    static <K, V> SortedTree<K, V> ofSorted(List<K> keys, List<V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("Not as many keys as values : " + keys.size() + " and " + values.size());
+        }
+        return keys.isEmpty() ? empty() : new SortedTree<>(build(keys, values, 0, keys.size()));
+    }
+
+    // Halved at each level : the heights of two siblings differ by one at most
+    private static <K, V> Node<K, V> build(List<K> keys, List<V> values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node<>(keys.get(middle), values.get(middle), build(keys, values, from, middle), build(keys, values, middle + 1, to));
+    }
+
+    /**
+     * Gets size.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Whether the tree has no entry.
+     *
+     * @return true if empty
+     */
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key the key
+     * @return the value, null if the key has none
+     */
+    V get(Object key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int comparison = compare(key, node.key);
+            if (comparison == 0) {
+                return node.value;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the value of a key, or a default one.
+     *
+     * @param key          the key
+     * @param defaultValue the value returned if the key has none
+     * @return the value
+     */
+    V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Gets the key at an index.
+     *
+     * @param index the index, in the order of the keys
+     * @return the key
+     */
+    K keyAt(int index) {
+        return nodeAt(index).key;
+    }
+
+    /**
+     * Gets the value at an index.
+     *
+     * @param index the index, in the order of the keys
+     * @return the value
+     */
+    V valueAt(int index) {
+        return nodeAt(index).value;
+    }
+
+    private Node<K, V> nodeAt(int index) {
+        Objects.checkIndex(index, size());
+        Node<K, V> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * A tree with a key set to a value, this one being unchanged.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the new tree, this one if the key already had this value
+     */
+    SortedTree<K, V> put(K key, V value) {
+        Node<K, V> updated = put(root, key, value);
+        return updated == root ? this : new SortedTree<>(updated);
+    }
+
+    private static <K, V> Node<K, V> put(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+
+        int comparison = compare(key, node.key);
+        if (comparison == 0) {
+            return node.value == value ? node : new Node<>(node.key, value, node.left, node.right);
+        }
+        if (comparison < 0) {
+            Node<K, V> left = put(node.left, key, value);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        Node<K, V> right = put(node.right, key, value);
+        return right == node.right ? node : balance(node.key, node.value, node.left, right);
+    }
+
+    /**
+     * A tree without a key, this one being unchanged.
+     *
+     * @param key the key
+     * @return the new tree, this one if the key had no value
+     */
+    SortedTree<K, V> remove(Object key) {
+        Node<K, V> updated = remove(root, key);
+        if (updated == root) {
+            return this;
+        }
+        return updated == null ? empty() : new SortedTree<>(updated);
+    }
+
+    private static <K, V> Node<K, V> remove(Node<K, V> node, Object key) {
+        if (node == null) {
+            return null;
+        }
+
+        int comparison = compare(key, node.key);
+        if (comparison < 0) {
+            Node<K, V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (comparison > 0) {
+            Node<K, V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Replaced by the next entry
+        Node<K, V> next = node.right;
+        while (next.left != null) {
+            next = next.left;
+        }
+        return balance(next.key, next.value, node.left, removeFirst(node.right));
+    }
+
+    private static <K, V> Node<K, V> removeFirst(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeFirst(node.left), node.right);
+    }
+
+    // A node whose subtrees differ in height by two at most, rotated if they differ by more than one
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int difference = height(left) - height(right);
+        if (difference > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            Node<K, V> pivot = left.right;
+            return new Node<>(pivot.key, pivot.value,
+                    new Node<>(left.key, left.value, left.left, pivot.left), new Node<>(key, value, pivot.right, right));
+        }
+        if (difference < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            Node<K, V> pivot = right.left;
+            return new Node<>(pivot.key, pivot.value,
+                    new Node<>(key, value, left, pivot.left), new Node<>(right.key, right.value, pivot.right, right.right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    /**
+     * Gets the entries, in the order of their keys.
+     *
+     * @return the entries
+     */
+    Iterable<Map.Entry<K, V>> entries() {
+        return entries(null, null);
+    }
+
+    /**
+     * Gets the entries from a key to another, in the order of their keys.
+     *
+     * @param from the first key, included, null to start with the first one
+     * @param to   the last key, excluded, null to go to the last one
+     * @return the entries
+     */
+    Iterable<Map.Entry<K, V>> entries(K from, K to) {
+        return () -> new EntryIterator<>(root, from, to);
+    }
+
+    /**
+     * Gets the values, in the order of their keys.
+     *
+     * @return an immutable view of the values
+     */
+    List<V> values() {
+        List<V> view = values;
+        if (view == null) {
+            view = new AbstractList<>() {
+                @Override
+                public V get(int index) {
+                    return valueAt(index);
+                }
+
+                @Override
+                public int size() {
+                    return SortedTree.this.size();
+                }
+
+                @Override
+                public Iterator<V> iterator() {
+                    Iterator<Map.Entry<K, V>> entries = new EntryIterator<>(root, null, null);
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public V next() {
+                            return entries.next().getValue();
+                        }
+                    };
+                }
+            };
+            values = view;
+        }
+        return view;
+    }
+
+    /**
+     * Perform an action on each entry, in the order of their keys.
+     *
+     * @param action the action
+     */
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(root, action);
+    }
+
+    private static <K, V> void forEach(Node<K, V> node, BiConsumer<? super K, ? super V> action) {
+        if (node != null) {
+            forEach(node.left, action);
+            action.accept(node.key, node.value);
+            forEach(node.right, action);
+        }
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+
+        private final K to;
+        // The nodes whose entry and right subtree are still to be read, the next one on top
+        private final Deque<Node<K, V>> path = new ArrayDeque<>();
+
+        private EntryIterator(Node<K, V> root, K from, K to) {
+            this.to = to;
+            Node<K, V> node = root;
+            while (node != null) {
+                if (from == null || compare(node.key, from) >= 0) {
+                    path.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty() && (to == null || compare(path.peek().key, to) < 0);
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> next = path.pop();
+            for (Node<K, V> node = next.right; node != null; node = node.left) {
+                path.push(node);
+            }
+            return next;
+        }
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object key, Object other) {
+        if (key instanceof List<?> list && other instanceof List<?> otherList) {
+            int length = Math.min(list.size(), otherList.size());
+            for (int i = 0; i < length; i++) {
+                int comparison = compare(list.get(i), otherList.get(i));
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return Integer.compare(list.size(), otherList.size());
+        }
+        return ((Comparable) key).compareTo(other);
+    }
+}
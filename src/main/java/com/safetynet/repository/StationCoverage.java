@@ -0,0 +1,150 @@
+package com.safetynet.repository;
+
+import com.safetynet.model.MedicalRecord;
+import com.safetynet.model.Person;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The type Station coverage.
+ * <p>
+ * The residents covered by each station counted by age group, as of a given day.
+ * The children are queued by birthdate : moving to a new day only counts again the ones turning 18 since the last day.
+ * Changed under the lock of the dataset, read without it. The counts of a published dataset are not changed :
+ * a new version of the dataset, or a new day, changes a fork of them, sharing the {@link SortedTree}s of the counts
+ * and of the children until it changes them.
+ */
+class StationCoverage extends StationTally {
+
+    private enum AgeGroup { ADULT, CHILD, UNCLASSIFIED }
+
+    @Getter
+    private volatile long day;
+    // The latest birthdate of the adults on that day
+    private long adultLimit;
+    private SortedTree<Integer, CoverageCounts> counts = SortedTree.empty();
+    // The children counted, by day of birth, each list being immutable
+    private SortedTree<Long, List<Person>> childrenByBirthdate = SortedTree.empty();
+
+    /**
+     * Instantiates a new Station coverage.
+     *
+     * @param dataset the dataset
+     * @param day     the day the ages are computed for, in epoch days
+     */
+    StationCoverage(Dataset dataset, long day) {
+        super(dataset);
+        this.day = day;
+        this.adultLimit = LocalDate.ofEpochDay(day).minusYears(18).toEpochDay();
+        countAll();
+    }
+
+    private StationCoverage(Dataset dataset, StationCoverage original) {
+        super(dataset);
+        this.day = original.day;
+        this.adultLimit = original.adultLimit;
+        this.counts = original.counts;
+        this.childrenByBirthdate = original.childrenByBirthdate;
+    }
+
+    /**
+     * A copy of these counts, kept up to date with another version of the dataset, or rolled to another day.
+     *
+     * @param dataset the dataset the fork counts
+     * @return the fork
+     */
+    StationCoverage fork(Dataset dataset) {
+        return new StationCoverage(dataset, this);
+    }
+
+    /**
+     * Gets the counts of a station.
+     *
+     * @param station the station number
+     * @return the counts
+     */
+    CoverageCounts get(int station) {
+        return counts.getOrDefault(station, CoverageCounts.NONE);
+    }
+
+    /**
+     * Move the counts to a later day : the children born on or before the new adult limit are counted as adults.
+     *
+     * @param today the new day, in epoch days, after the current one
+     * @return the number of children who became adults
+     */
+    int rollTo(long today) {
+        long newAdultLimit = LocalDate.ofEpochDay(today).minusYears(18).toEpochDay();
+        SortedTree<Long, List<Person>> stillChildren = childrenByBirthdate;
+
+        int flipped = 0;
+        for (Map.Entry<Long, List<Person>> turning18 : childrenByBirthdate.entries(null, newAdultLimit + 1)) {
+            for (Person child : turning18.getValue()) {
+                for (Integer station : dataset.getStationsOfAddress(child.getAddress())) {
+                    add(station, new CoverageCounts(1, -1, 0));
+                }
+                flipped++;
+            }
+            stillChildren = stillChildren.remove(turning18.getKey());
+        }
+        childrenByBirthdate = stillChildren;
+
+        adultLimit = newAdultLimit;
+        day = today;
+        return flipped;
+    }
+
+    @Override
+    protected void countPerson(Person person, int sign) {
+        CoverageCounts delta = switch (ageGroupOf(person)) {
+            case ADULT -> new CoverageCounts(sign, 0, 0);
+            case CHILD -> {
+                queueChild(person, sign);
+                yield new CoverageCounts(0, sign, 0);
+            }
+            case UNCLASSIFIED -> new CoverageCounts(0, 0, sign);
+        };
+
+        for (Integer station : dataset.getStationsOfAddress(person.getAddress())) {
+            add(station, delta);
+        }
+    }
+
+    private void add(Integer station, CoverageCounts delta) {
+        counts = counts.put(station, counts.getOrDefault(station, CoverageCounts.NONE).plus(delta));
+    }
+
+    private void queueChild(Person child, int sign) {
+        long birthEpochDay = dataset.getMedicalRecord(child).getBirthEpochDay();
+        List<Person> children = childrenByBirthdate.getOrDefault(birthEpochDay, List.of());
+
+        List<Person> updated = new ArrayList<>(children);
+        if (sign > 0) {
+            updated.add(child);
+        } else {
+            for (int i = 0; i < updated.size(); i++) {
+                if (updated.get(i) == child) {
+                    updated.remove(i);
+                    break;
+                }
+            }
+        }
+
+        childrenByBirthdate = updated.isEmpty()
+                ? childrenByBirthdate.remove(birthEpochDay)
+                : childrenByBirthdate.put(birthEpochDay, List.copyOf(updated));
+    }
+
+    private AgeGroup ageGroupOf(Person person) {
+        MedicalRecord medicalRecord = dataset.getMedicalRecord(person);
+        if (medicalRecord == null || !medicalRecord.hasValidBirthdate()) {
+            return AgeGroup.UNCLASSIFIED;
+        }
+
+        return medicalRecord.getBirthEpochDay() <= adultLimit ? AgeGroup.ADULT : AgeGroup.CHILD;
+    }
+}
@@ -0,0 +1,64 @@
+package com.safetynet.repository;
+
+import com.safetynet.model.Person;
+
+import java.util.List;
+
+/**
+ * The type Station phones.
+ * <p>
+ * The phones of the residents covered by each station, each listed once, in the order they were counted (see {@link DistinctCounts}) :
+ * the residents sharing a phone are counted, so that a phone is only removed with the last of them.
+ */
+class StationPhones extends StationTally {
+
+    private final DistinctCounts<Integer> phones;
+
+    /**
+     * Instantiates a new Station phones.
+     *
+     * @param dataset the dataset
+     */
+    StationPhones(Dataset dataset) {
+        super(dataset);
+        this.phones = new DistinctCounts<>();
+        countAll();
+    }
+
+    private StationPhones(Dataset dataset, DistinctCounts<Integer> phones) {
+        super(dataset);
+        this.phones = phones;
+    }
+
+    /**
+     * A copy of these phones, kept up to date with another version of the dataset.
+     *
+     * @param dataset the new version of the dataset
+     * @return the fork
+     */
+    StationPhones fork(Dataset dataset) {
+        return new StationPhones(dataset, phones.fork());
+    }
+
+    /**
+     * Gets the phones of a station.
+     *
+     * @param station the station number
+     * @return the phones, each listed once, empty if none
+     */
+    List<String> get(int station) {
+        return phones.get(station);
+    }
+
+    @Override
+    protected boolean dependsOn(DataSection section) {
+        return section != DataSection.MEDICAL_RECORDS;
+    }
+
+    @Override
+    protected void countPerson(Person person, int sign) {
+        for (Integer station : dataset.getStationsOfAddress(person.getAddress())) {
+            phones.count(station, person.getPhone(), sign);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.safetynet.repository;
+
+import com.safetynet.model.Firestation;
+import com.safetynet.model.Person;
+
+import java.util.List;
+
+/**
+ * The type Station tally.
+ * <p>
+ * A figure kept for each station over the residents it covers.
+ * A mutation subtracts the contribution of the entities having its key before it is applied, and adds it back after :
+ * only the persons of that key, or the residents of that address, are counted again.
+ * Changed under the lock of the dataset.
+ */
+abstract class StationTally {
+
+    /**
+     * The dataset counted.
+     */
+    protected final Dataset dataset;
+
+    /**
+     * Instantiates a new Station tally.
+     *
+     * @param dataset the dataset
+     */
+    StationTally(Dataset dataset) {
+        this.dataset = dataset;
+    }
+
+    /**
+     * Count the residents of every covered address, once the fields of the subclass are set.
+     */
+    protected void countAll() {
+        dataset.getFirestations().stream()
+                .map(Firestation::getAddress)
+                .distinct()
+                .forEach(address -> countResidents(address, 1));
+    }
+
+    /**
+     * Subtract the contribution of the entities having the key, before a mutation.
+     *
+     * @param section the section of the mutation
+     * @param key     the key of the mutation
+     */
+    void before(DataSection section, List<String> key) {
+        count(section, key, -1);
+    }
+
+    /**
+     * Add back the contribution of the entities having the key, after a mutation.
+     *
+     * @param section the section of the mutation
+     * @param key     the key of the mutation
+     */
+    void after(DataSection section, List<String> key) {
+        count(section, key, 1);
+    }
+
+    /**
+     * Whether the contribution of a person depends on the entities of a section.
+     *
+     * @param section the section
+     * @return true by default
+     */
+    protected boolean dependsOn(DataSection section) {
+        return true;
+    }
+
+    /**
+     * Add or subtract the contribution of a person to each station covering its address.
+     *
+     * @param person the person
+     * @param sign   1 to add, -1 to subtract
+     */
+    protected abstract void countPerson(Person person, int sign);
+
+    private void count(DataSection section, List<String> key, int sign) {
+        if (!dependsOn(section)) {
+            return;
+        }
+
+        switch (section) {
+            case PERSONS, MEDICAL_RECORDS -> {
+                for (Object person : dataset.group(Grouping.PERSONS_BY_NAME, key)) {
+                    countPerson((Person) person, sign);
+                }
+            }
+            case FIRESTATIONS -> countResidents(key.get(0), sign);
+        }
+    }
+
+    private void countResidents(String address, int sign) {
+        for (Person resident : dataset.getResidents(address)) {
+            countPerson(resident, sign);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.safetynet.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Where the {@link DataRepository} keeps its data.
+ * <p>
+ * Every engine serves the reads from a {@link Dataset} held in memory ; they differ in how the mutations are made durable.
+ * A mutation returns once it is durable, as far as the engine goes, and visible to the next reads.
+ */
+public interface StorageEngine extends Closeable {
+
+    /**
+     * The available engines.
+     */
+    enum Type {
+
+        /**
+         * The whole data file rewritten, atomically, at each mutation.
+         */
+        JSON_DOCUMENT,
+
+        /**
+         * The mutations appended to a journal, folded into the data file in the background.
+         */
+        JOURNALED,
+
+        /**
+         * One file per section, the file of the changed section rewritten, atomically, at each mutation.
+         */
+        SEGMENTED,
+
+        /**
+         * The data file loaded at startup, the mutations kept in memory only.
+         */
+        IN_MEMORY
+    }
+
+    /**
+     * Create an engine.
+     *
+     * @param type     the type of engine
+     * @param dataFile the data file
+     * @param settings the settings
+     * @param stats    where the cost of the writes is recorded
+     * @return the engine, not opened yet
+     */
+    static StorageEngine create(Type type, Path dataFile, StorageSettings settings, DurabilityStats stats) {
+        return switch (type) {
+            case JSON_DOCUMENT -> new JsonDocumentStorageEngine(dataFile, settings, stats);
+            case JOURNALED -> new JournaledStorageEngine(dataFile, settings, stats);
+            case SEGMENTED -> new SegmentedStorageEngine(dataFile, settings, stats);
+            case IN_MEMORY -> new InMemoryStorageEngine(dataFile, settings);
+        };
+    }
+
+    /**
+     * Load the data.
+     *
+     * @throws IOException if the data cannot be loaded
+     */
+    void open() throws IOException;
+
+    /**
+     * Gets dataset.
+     * <p>
+     * A request should get it once and work on it : the version currently published is never changed,
+     * but is replaced by the next mutation or a reload.
+     *
+     * @return the current dataset
+     */
+    Dataset getDataset();
+
+    /**
+     * Add an entity to its section.
+     *
+     * @param section the section
+     * @param entity  the entity
+     */
+    void add(DataSection section, Object entity);
+
+    /**
+     * Replace the entity having the same key as the given one.
+     *
+     * @param section the section
+     * @param entity  the updated entity
+     */
+    void update(DataSection section, Object entity);
+
+    /**
+     * Delete every entity having the given key.
+     *
+     * @param section the section
+     * @param key     the key
+     * @return false if no entity has this key
+     */
+    boolean delete(DataSection section, List<String> key);
+
+    /**
+     * Fold the pending mutations into the data file, for the engines that defer it.
+     */
+    default void compact() {
+    }
+
+    /**
+     * Reload the data file if it was replaced from outside, for the engines that support it.
+     *
+     * @return true if the data file changed, whether it could be loaded or not
+     */
+    default boolean reloadIfChanged() {
+        return false;
+    }
+
+    /**
+     * Gets journal size.
+     *
+     * @return the size in bytes of the mutations not yet folded into the data file
+     */
+    default long getJournalSize() {
+        return 0;
+    }
+}
@@ -0,0 +1,29 @@
+package com.safetynet.repository;
+
+import lombok.*;
+
+import java.time.Duration;
+
+/**
+ * The settings of a {@link StorageEngine}, each engine using those relevant to it.
+ */
+@Setter @Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class StorageSettings {
+
+    // How long the journal writer waits for concurrent mutations to commit them together
+    private Duration commitWindow = Duration.ofMillis(2);
+    private int maxBatchSize = 256;
+
+    // Deserialize the sections of the data file concurrently
+    private boolean parallelLoad;
+
+    // Keep a binary copy of the data file next to it, loaded instead of it at startup while it is up to date
+    private boolean binarySnapshot = true;
+
+    // Reload the data file when it is replaced from outside, instead of overwriting it at the next compaction
+    private boolean hotReload;
+
+}
@@ -0,0 +1,45 @@
+package com.safetynet.service;
+
+import com.safetynet.repository.DataRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Coverage rollover.
+ * <p>
+ * Brings the coverage counts of the stations to the new day at midnight, off the request path :
+ * the children turning 18 that day are taken from the queue of their birthdates and counted as adults.
+ */
+@Component
+public class CoverageRollover {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoverageRollover.class);
+
+    private final DataRepository dataRepository;
+    private final DailyClock dailyClock;
+
+    /**
+     * Instantiates a new Coverage rollover.
+     *
+     * @param dataRepository the data repository
+     * @param dailyClock     the daily clock
+     */
+    public CoverageRollover(DataRepository dataRepository, DailyClock dailyClock) {
+        this.dataRepository = dataRepository;
+        this.dailyClock = dailyClock;
+    }
+
+    /**
+     * Roll the coverage counts to the current day.
+     */
+    @Scheduled(cron = "${safetynet.coverage.rollover-cron:0 0 0 * * *}")
+    public void rollover() {
+        long start = System.nanoTime();
+        int turned18 = dataRepository.getDataset().rollCoverage(dailyClock.today());
+        logger.info("Coverage counts rolled over in {} ms : {} children became adults", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), turned18);
+    }
+}
@@ -0,0 +1,96 @@
+package com.safetynet.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+
+/**
+ * The type Daily clock.
+ * <p>
+ * The current day, read from the clock only once per day : it advances at midnight, in the zone of the clock.
+ * For each day, the dates at which a person born on it or before reaches each age are computed once,
+ * so that an age is found from a birthdate in epoch days by integer comparisons only.
+ */
+@Component
+public class DailyClock {
+
+    // The ages past it, as the future birthdates, are computed with a Period
+    private static final int MAX_AGE = 150;
+
+    private final Clock clock;
+    private volatile Day day;
+
+    /**
+     * Instantiates a new Daily clock.
+     *
+     * @param clock the clock
+     */
+    public DailyClock(Clock clock) {
+        this.clock = clock;
+        this.day = dayOf(LocalDate.now(clock));
+    }
+
+    /**
+     * Gets today.
+     *
+     * @return the current day, in epoch days
+     */
+    public long today() {
+        return currentDay().epochDay;
+    }
+
+    /**
+     * Gets the age of a person born on the given day.
+     *
+     * @param birthEpochDay the birthdate, in epoch days
+     * @return the age in whole years, as of today
+     */
+    public int ageOf(long birthEpochDay) {
+        Day current = currentDay();
+        long[] birthdayLimits = current.birthdayLimits;
+
+        if (birthEpochDay > current.epochDay || birthEpochDay < birthdayLimits[MAX_AGE]) {
+            return Period.between(LocalDate.ofEpochDay(birthEpochDay), LocalDate.ofEpochDay(current.epochDay)).getYears();
+        }
+
+        // The limits decrease with the age : the age is the last one whose limit is not before the birthdate
+        int low = 0;
+        int high = MAX_AGE;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (birthdayLimits[middle] >= birthEpochDay) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private Day currentDay() {
+        Day current = day;
+        if (clock.millis() >= current.nextMidnightMillis) {
+            current = dayOf(LocalDate.now(clock));
+            day = current;
+        }
+        return current;
+    }
+
+    private Day dayOf(LocalDate date) {
+        long[] birthdayLimits = new long[MAX_AGE + 1];
+        for (int age = 0; age <= MAX_AGE; age++) {
+            birthdayLimits[age] = date.minusYears(age).toEpochDay();
+        }
+
+        ZoneId zone = clock.getZone();
+        long nextMidnightMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        return new Day(date.toEpochDay(), nextMidnightMillis, birthdayLimits);
+    }
+
+    // birthdayLimits[age] : the latest birthdate of the persons having at least this age today
+    private record Day(long epochDay, long nextMidnightMillis, long[] birthdayLimits) {
+    }
+}
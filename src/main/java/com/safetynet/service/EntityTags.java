@@ -0,0 +1,57 @@
+package com.safetynet.service;
+
+/**
+ * The type Entity tags.
+ * <p>
+ * The ETags of the data and of its entities : the versions of the sections an answer depends on, or of the last write
+ * of the entity, prefixed with the start of the application so that a tag given before a restart never matches after it.
+ * The tag is read before the entity : the entity returned with it is of its version or a later one,
+ * whose writes an If-Match with the tag then rejects rather than losing them.
+ */
+public final class EntityTags {
+
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private EntityTags() {
+    }
+
+    /**
+     * The tag of one or more versions.
+     *
+     * @param versions the versions, in a fixed order
+     * @return the strong ETag, quoted
+     */
+    public static String of(long... versions) {
+        StringBuilder tag = new StringBuilder().append('"').append(EPOCH).append('-');
+        for (int i = 0; i < versions.length; i++) {
+            if (i > 0) {
+                tag.append('.');
+            }
+            tag.append(versions[i]);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Whether an If-Match header matches a version : absent, "*", or listing its tag.
+     *
+     * @param ifMatch the If-Match header, null if absent
+     * @param version the current version
+     * @return true if the write can proceed
+     */
+    public static boolean matches(String ifMatch, long version) {
+        if (ifMatch == null) {
+            return true;
+        }
+
+        String tag = of(version);
+        for (String candidate : ifMatch.split(",")) {
+            String trimmed = candidate.trim();
+            // The weak tags never match an If-Match, which compares them strongly
+            if (trimmed.equals("*") || trimmed.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -4,10 +4,13 @@ import com.safetynet.dto.firestation.FirestationCreateDTO;
 import com.safetynet.dto.firestation.FirestationResponseDTO;
 import com.safetynet.dto.firestation.FirestationUpdateDTO;
 import com.safetynet.exception.ConflictException;
+import com.safetynet.exception.PreconditionFailedException;
 import com.safetynet.exception.ResourceNotFoundException;
 import com.safetynet.mapper.FirestationMapper;
 import com.safetynet.model.Firestation;
 import com.safetynet.repository.DataRepository;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.Dataset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -24,20 +27,19 @@ public class FirestationService {
 
     private final DataRepository dataRepository;
     private final FirestationMapper firestationMapper;
-
-    private final List<Firestation> firestations;
+    private final KeyLocks keyLocks;
 
     /**
      * Instantiates a new Firestation service.
      *
      * @param dataRepository    the data repository
      * @param firestationMapper the firestation mapper
+     * @param keyLocks          the locks of the mutations, by key
      */
-    public FirestationService(DataRepository dataRepository, FirestationMapper firestationMapper) {
+    public FirestationService(DataRepository dataRepository, FirestationMapper firestationMapper, KeyLocks keyLocks) {
         this.dataRepository = dataRepository;
         this.firestationMapper = firestationMapper;
-
-        this.firestations = dataRepository.getFirestations();
+        this.keyLocks = keyLocks;
     }
 
     /**
@@ -46,6 +48,7 @@ public class FirestationService {
      * @return the list
      */
     public List<FirestationResponseDTO> findAllFirestations() {
+        List<Firestation> firestations = dataRepository.getFirestations();
 
         if (firestations.isEmpty()) {
             logger.warn("No firestations found in the database");
@@ -58,6 +61,15 @@ public class FirestationService {
                 .toList();
     }
 
+    /**
+     * Gets the tag of the firestations, that of the last change of the section.
+     *
+     * @return the ETag
+     */
+    public String getFirestationsTag() {
+        return EntityTags.of(dataRepository.getDataset().versionOf(DataSection.FIRESTATIONS));
+    }
+
     /**
      * Find firestation by address firestation response dto.
      *
@@ -65,16 +77,39 @@ public class FirestationService {
      * @return the firestation response dto
      */
     public FirestationResponseDTO findFirestationByAddress(String theAddress) {
+        Dataset dataset = dataRepository.getDataset();
+        Firestation firestation = dataset.findFirestation(theAddress);
 
-        for (Firestation firestation : firestations) {
-            if (firestation.getAddress().equals(theAddress)) {
-                logger.info("Found the firestation with the address {}", firestation.getAddress());
-                return firestationMapper.toResponseDTO(firestation);
-            }
+        if (firestation == null) {
+            logger.error("Firestation not found for address: {}", theAddress);
+            throw new ResourceNotFoundException("Resource not found");
+        }
+
+        // The first mapping is returned, as the one updated and deleted with the address
+        List<Integer> stations = dataset.getStationsOfAddress(theAddress);
+        if (stations.size() > 1) {
+            logger.info("The address {} is covered by the stations {}", theAddress, stations);
+        }
+
+        logger.info("Found the firestation with the address {}", firestation.getAddress());
+        return firestationMapper.toResponseDTO(firestation);
+    }
+
+    /**
+     * Gets the tag of the firestation of an address, that of its last write.
+     *
+     * @param theAddress the address
+     * @return the ETag
+     */
+    public String getFirestationTag(String theAddress) {
+        Dataset dataset = dataRepository.getDataset();
+
+        if (dataset.findFirestation(theAddress) == null) {
+            logger.error("Firestation not found for address: {}", theAddress);
+            throw new ResourceNotFoundException("Resource not found");
         }
 
-        logger.error("Firestation not found for address: {}", theAddress);
-        throw new ResourceNotFoundException("Resource not found");
+        return EntityTags.of(dataset.versionOf(DataSection.FIRESTATIONS, List.of(theAddress)));
     }
 
     /*
@@ -101,19 +136,16 @@ public class FirestationService {
      * @param theFirestation the firestation
      */
     public void addFirestation(FirestationCreateDTO theFirestation) {
+        keyLocks.withLock(List.of(theFirestation.getAddress()), () -> {
+            if (dataRepository.getDataset().findFirestation(theFirestation.getAddress()) != null) {
+                logger.warn("Firestation already exists at the address: {}", theFirestation.getAddress());
+                throw new ConflictException("Resource already exist");
+            }
 
-        boolean exists = firestations.stream()
-                .anyMatch(firestation -> firestation.getAddress().equals(theFirestation.getAddress()));
-
-        if (exists) {
-            logger.warn("Firestation already exists at the address: {}", theFirestation.getAddress());
-            throw new ConflictException("Resource already exist");
-        }
-
-        Firestation firestation = firestationMapper.toEntityFromCreateDTO(theFirestation);
-        firestations.add(firestation);
-        dataRepository.writeData("firestations", firestations);
-        logger.info("{} added successfully", theFirestation.getAddress());
+            Firestation firestation = firestationMapper.toEntityFromCreateDTO(theFirestation);
+            dataRepository.add(DataSection.FIRESTATIONS, firestation);
+            logger.info("{} added successfully", theFirestation.getAddress());
+        });
     }
 
     /**
@@ -123,29 +155,35 @@ public class FirestationService {
      * @param theAddress     the address
      */
     public void updateFirestation(FirestationUpdateDTO theFirestation, String theAddress) {
+        updateFirestation(theFirestation, theAddress, null);
+    }
 
-        for (Firestation firestation : firestations) {
-            if (firestation.getAddress().equals(theAddress)) {
-
-                Firestation updatedFirestation = firestationMapper.toEntityFromUpdateDTO(theFirestation);
-                updatedFirestation.setAddress(theAddress);
-
-                if (firestation.equals(updatedFirestation)) {
-                    logger.warn("The firestation with the address {} is exactly the same as the one you are trying to update", theAddress);
-                    throw new ConflictException("The firestation with this address is exactly the same as the one you are trying to update");
-                }
+    /**
+     * Update firestation, if it was not written since the version the client read.
+     *
+     * @param theFirestation the firestation
+     * @param theAddress     the address
+     * @param ifMatch        the If-Match header, null if absent
+     */
+    public void updateFirestation(FirestationUpdateDTO theFirestation, String theAddress, String ifMatch) {
+        List<String> key = List.of(theAddress);
+        keyLocks.withLock(key, () -> {
+            Dataset dataset = dataRepository.getDataset();
+            Firestation firestation = dataset.findFirestation(theAddress);
+
+            if (firestation == null) {
+                logger.error("Firestation not found for address: {}", theAddress);
+                throw new ResourceNotFoundException("Resource not found");
+            }
 
-                int index = firestations.indexOf(firestation);
-                firestations.set(index, updatedFirestation);
-                dataRepository.writeData("firestations", firestations);
-                logger.info("Firestation at {} updated successfully", theAddress);
+            checkVersion(dataset, key, ifMatch);
 
-                return;
-            }
-        }
+            Firestation updatedFirestation = firestationMapper.toEntityFromUpdateDTO(theFirestation);
+            updatedFirestation.setAddress(theAddress);
 
-        logger.error("Firestation not found for address: {}", theAddress);
-        throw new ResourceNotFoundException("Resource not found");
+            dataRepository.update(DataSection.FIRESTATIONS, updatedFirestation);
+            logger.info("Firestation at {} updated successfully", theAddress);
+        });
     }
 
     /**
@@ -154,16 +192,40 @@ public class FirestationService {
      * @param theAddress the address
      */
     public void deleteFirestation(String theAddress) {
+        deleteFirestation(theAddress, null);
+    }
 
-        boolean removed = firestations.removeIf(firestation -> firestation.getAddress().equals(theAddress));
+    /**
+     * Delete firestation, if it was not written since the version the client read.
+     *
+     * @param theAddress the address
+     * @param ifMatch    the If-Match header, null if absent
+     */
+    public void deleteFirestation(String theAddress, String ifMatch) {
+        List<String> key = List.of(theAddress);
+        keyLocks.withLock(key, () -> {
+            Dataset dataset = dataRepository.getDataset();
+            if (dataset.contains(DataSection.FIRESTATIONS, key)) {
+                checkVersion(dataset, key, ifMatch);
+            }
 
-        if (!removed) {
-            logger.error("Firestation not found for address: {}", theAddress);
-            throw new ResourceNotFoundException("Resource not found");
-        }
+            boolean removed = dataRepository.delete(DataSection.FIRESTATIONS, key);
+
+            if (!removed) {
+                logger.error("Firestation not found for address: {}", theAddress);
+                throw new ResourceNotFoundException("Resource not found");
+            }
 
-        dataRepository.writeData("firestations", firestations);
-        logger.info("{} deleted successfully", theAddress);
+            logger.info("{} deleted successfully", theAddress);
+        });
+    }
+
+    // Called under the lock of the key : the version checked is the one replaced
+    private void checkVersion(Dataset dataset, List<String> key, String ifMatch) {
+        if (!EntityTags.matches(ifMatch, dataset.versionOf(DataSection.FIRESTATIONS, key))) {
+            logger.warn("Firestation at {} changed since the version : {}", key.get(0), ifMatch);
+            throw new PreconditionFailedException("Resource changed since it was read");
+        }
     }
 
 }
@@ -0,0 +1,69 @@
+package com.safetynet.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The type Key locks.
+ * <p>
+ * Serializes the mutations of an entity, from the check of its current state to the write, without serializing
+ * the mutations of unrelated entities : the keys are hashed onto a fixed set of locks, the stripes.
+ * A person and its medical record, having the same key, share their stripe.
+ * <p>
+ * Each mutation of the services holds a single stripe, and nothing else may be locked by its action :
+ * no action runs {@link #withLock} again, as two keys may share a stripe or be taken in opposite orders.
+ * An operation that has to hold several keys at once would take their stripes in increasing order of
+ * {@link #stripeOf}, each one once, so that two such operations never wait for each other.
+ */
+@Component
+public class KeyLocks {
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Instantiates new Key locks.
+     *
+     * @param stripes the number of stripes, 1 serializing every mutation
+     */
+    public KeyLocks(@Value("${safetynet.mutation.lock-stripes:64}") int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("At least one lock stripe is needed : " + stripes);
+        }
+
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Run an action holding the stripe of a key.
+     *
+     * @param key    the key, (first name, last name) or (address)
+     * @param action the action
+     */
+    public void withLock(List<String> key, Runnable action) {
+        ReentrantLock stripe = stripes[stripeOf(key)];
+        stripe.lock();
+        try {
+            action.run();
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Gets the stripe of a key.
+     *
+     * @param key the key
+     * @return the index of its stripe
+     */
+    int stripeOf(List<String> key) {
+        int hash = key.hashCode();
+        // The high bits spread over the low ones, as the hash of a list is a polynomial of its elements
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+}
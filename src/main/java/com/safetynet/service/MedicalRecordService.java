@@ -4,10 +4,13 @@ import com.safetynet.dto.medicalrecord.MedicalRecordCreateDTO;
 import com.safetynet.dto.medicalrecord.MedicalRecordResponseDTO;
 import com.safetynet.dto.medicalrecord.MedicalRecordUpdateDTO;
 import com.safetynet.exception.ConflictException;
+import com.safetynet.exception.PreconditionFailedException;
 import com.safetynet.exception.ResourceNotFoundException;
 import com.safetynet.mapper.MedicalRecordMapper;
 import com.safetynet.model.MedicalRecord;
 import com.safetynet.repository.DataRepository;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.Dataset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -24,20 +27,19 @@ public class MedicalRecordService {
 
     private final DataRepository dataRepository;
     private final MedicalRecordMapper medicalRecordMapper;
-
-    private final List<MedicalRecord> medicalRecords;
+    private final KeyLocks keyLocks;
 
     /**
      * Instantiates a new Medical record service.
      *
      * @param dataRepository      the data repository
      * @param medicalRecordMapper the medical record mapper
+     * @param keyLocks            the locks of the mutations, by key
      */
-    public MedicalRecordService(DataRepository dataRepository, MedicalRecordMapper medicalRecordMapper) {
+    public MedicalRecordService(DataRepository dataRepository, MedicalRecordMapper medicalRecordMapper, KeyLocks keyLocks) {
         this.dataRepository = dataRepository;
         this.medicalRecordMapper = medicalRecordMapper;
-
-        this.medicalRecords = dataRepository.getMedicalRecords();
+        this.keyLocks = keyLocks;
     }
 
     /**
@@ -46,6 +48,7 @@ public class MedicalRecordService {
      * @return the list
      */
     public List<MedicalRecordResponseDTO> findAllMedicalRecords() {
+        List<MedicalRecord> medicalRecords = dataRepository.getMedicalRecords();
 
         if (medicalRecords.isEmpty()) {
             logger.warn("No medicalRecords found in the database");
@@ -58,6 +61,15 @@ public class MedicalRecordService {
                 .toList();
     }
 
+    /**
+     * Gets the tag of the medical records, that of the last change of the section.
+     *
+     * @return the ETag
+     */
+    public String getMedicalRecordsTag() {
+        return EntityTags.of(dataRepository.getDataset().versionOf(DataSection.MEDICAL_RECORDS));
+    }
+
     /**
      * Find medicalrecord by first name and last name medical record response dto.
      *
@@ -66,16 +78,33 @@ public class MedicalRecordService {
      * @return the medical record response dto
      */
     public MedicalRecordResponseDTO findMedicalrecordByFirstNameAndLastName(String theFirstName, String theLastName) {
+        MedicalRecord medicalRecord = dataRepository.getDataset().findMedicalRecord(theFirstName, theLastName);
 
-        for (MedicalRecord medicalRecord : medicalRecords) {
-            if (medicalRecord.getFirstName().equals(theFirstName) && medicalRecord.getLastName().equals(theLastName)) {
-                logger.info("Found the medicalRecord with the first name {} and last name {}", medicalRecord.getFirstName(), medicalRecord.getLastName());
-                return medicalRecordMapper.toResponseDTO(medicalRecord);
-            }
+        if (medicalRecord == null) {
+            logger.error("MedicalRecord not found for : {} {}", theFirstName, theLastName);
+            throw new ResourceNotFoundException("Resource not found");
+        }
+
+        logger.info("Found the medicalRecord with the first name {} and last name {}", medicalRecord.getFirstName(), medicalRecord.getLastName());
+        return medicalRecordMapper.toResponseDTO(medicalRecord);
+    }
+
+    /**
+     * Gets the tag of a medical record, that of its last write.
+     *
+     * @param theFirstName the first name
+     * @param theLastName  the last name
+     * @return the ETag
+     */
+    public String getMedicalrecordTag(String theFirstName, String theLastName) {
+        Dataset dataset = dataRepository.getDataset();
+
+        if (dataset.findMedicalRecord(theFirstName, theLastName) == null) {
+            logger.error("MedicalRecord not found for : {} {}", theFirstName, theLastName);
+            throw new ResourceNotFoundException("Resource not found");
         }
 
-        logger.error("MedicalRecord not found for : {} {}", theFirstName, theLastName);
-        throw new ResourceNotFoundException("Resource not found");
+        return EntityTags.of(dataset.versionOf(DataSection.MEDICAL_RECORDS, List.of(theFirstName, theLastName)));
     }
 
     /**
@@ -84,20 +113,17 @@ public class MedicalRecordService {
      * @param theMedicalrecord the the medicalrecord
      */
     public void addMedicalrecord(MedicalRecordCreateDTO theMedicalrecord) {
+        keyLocks.withLock(List.of(theMedicalrecord.getFirstName(), theMedicalrecord.getLastName()), () -> {
+            if (dataRepository.getDataset().findMedicalRecord(theMedicalrecord.getFirstName(), theMedicalrecord.getLastName()) != null) {
+                logger.warn("Medicalrecord already exists at for : {} {}", theMedicalrecord.getFirstName(), theMedicalrecord.getLastName());
+                throw new ConflictException("Resource already exist");
+            }
 
-        boolean exists = medicalRecords.stream().anyMatch(medicalRecord ->
-                medicalRecord.getFirstName().equals(theMedicalrecord.getFirstName()) && medicalRecord.getLastName().equals(theMedicalrecord.getLastName())
-        );
-
-        if (exists) {
-            logger.warn("Medicalrecord already exists at for : {} {}", theMedicalrecord.getFirstName(), theMedicalrecord.getLastName());
-            throw new ConflictException("Resource already exist");
-        }
-
-        MedicalRecord medicalRecord = medicalRecordMapper.toEntityFromCreateDTO(theMedicalrecord);
-        medicalRecords.add(medicalRecord);
-        dataRepository.writeData("medicalrecords", medicalRecords);
-        logger.info("{} added successfully", theMedicalrecord.getFirstName());
+            MedicalRecord medicalRecord = medicalRecordMapper.toEntityFromCreateDTO(theMedicalrecord);
+            checkBirthdate(medicalRecord);
+            dataRepository.add(DataSection.MEDICAL_RECORDS, medicalRecord);
+            logger.info("{} added successfully", theMedicalrecord.getFirstName());
+        });
     }
 
     /**
@@ -108,31 +134,38 @@ public class MedicalRecordService {
      * @param theLastName      the last name
      */
     public void updateMedicalrecord(MedicalRecordUpdateDTO theMedicalrecord, String theFirstName, String theLastName) {
+        updateMedicalrecord(theMedicalrecord, theFirstName, theLastName, null);
+    }
 
-        for (MedicalRecord medicalRecord : medicalRecords) {
-            if (medicalRecord.getFirstName().equals(theFirstName) &&
-                    medicalRecord.getLastName().equals(theLastName)) {
-
-                MedicalRecord updatedMedicalRecord = medicalRecordMapper.toEntityFromUpdateDTO(theMedicalrecord);
-                updatedMedicalRecord.setFirstName(theFirstName);
-                updatedMedicalRecord.setLastName(theLastName);
-
-                if (medicalRecord.equals(updatedMedicalRecord)) {
-                    logger.warn("The medicalRecord with the name {} is exactly the same as the one you are trying to update", theLastName);
-                    throw new ConflictException("The medicalRecord with this name is exactly the same as the one you are trying to update");
-                }
+    /**
+     * Update medicalrecord, if it was not written since the version the client read.
+     *
+     * @param theMedicalrecord the medicalrecord
+     * @param theFirstName     the first name
+     * @param theLastName      the last name
+     * @param ifMatch          the If-Match header, null if absent
+     */
+    public void updateMedicalrecord(MedicalRecordUpdateDTO theMedicalrecord, String theFirstName, String theLastName, String ifMatch) {
+        List<String> key = List.of(theFirstName, theLastName);
+        keyLocks.withLock(key, () -> {
+            Dataset dataset = dataRepository.getDataset();
+            MedicalRecord medicalRecord = dataset.findMedicalRecord(theFirstName, theLastName);
+
+            if (medicalRecord == null) {
+                logger.error("MedicalRecord not found for : {} {}", theFirstName, theLastName);
+                throw new ResourceNotFoundException("Resource not found");
+            }
 
-                int index = medicalRecords.indexOf(medicalRecord);
-                medicalRecords.set(index, updatedMedicalRecord);
-                dataRepository.writeData("medicalRecords", medicalRecords);
-                logger.info("{} updated successfully", theFirstName + " " + theLastName);
+            checkVersion(dataset, key, ifMatch);
 
-                return;
-            }
-        }
+            MedicalRecord updatedMedicalRecord = medicalRecordMapper.toEntityFromUpdateDTO(theMedicalrecord);
+            updatedMedicalRecord.setFirstName(theFirstName);
+            updatedMedicalRecord.setLastName(theLastName);
+            checkBirthdate(updatedMedicalRecord);
 
-        logger.error("MedicalRecord not found for : {} {}", theFirstName, theLastName);
-        throw new ResourceNotFoundException("Resource not found");
+            dataRepository.update(DataSection.MEDICAL_RECORDS, updatedMedicalRecord);
+            logger.info("{} updated successfully", theFirstName + " " + theLastName);
+        });
     }
 
     /**
@@ -142,15 +175,49 @@ public class MedicalRecordService {
      * @param theLastName  the last name
      */
     public void deleteMedicalrecord(String theFirstName, String theLastName) {
-        boolean removed = medicalRecords.removeIf(medicalRecord -> medicalRecord.getFirstName().equals(theFirstName) && medicalRecord.getLastName().equals(theLastName));
+        deleteMedicalrecord(theFirstName, theLastName, null);
+    }
 
-        if (!removed) {
-            logger.error("MedicalRecord not found for address: {} {}", theFirstName, theLastName);
-            throw new ResourceNotFoundException("Resource not found");
+    /**
+     * Delete medicalrecord, if it was not written since the version the client read.
+     *
+     * @param theFirstName the first name
+     * @param theLastName  the last name
+     * @param ifMatch      the If-Match header, null if absent
+     */
+    public void deleteMedicalrecord(String theFirstName, String theLastName, String ifMatch) {
+        List<String> key = List.of(theFirstName, theLastName);
+        keyLocks.withLock(key, () -> {
+            Dataset dataset = dataRepository.getDataset();
+            if (dataset.contains(DataSection.MEDICAL_RECORDS, key)) {
+                checkVersion(dataset, key, ifMatch);
+            }
+
+            boolean removed = dataRepository.delete(DataSection.MEDICAL_RECORDS, key);
+
+            if (!removed) {
+                logger.error("MedicalRecord not found for address: {} {}", theFirstName, theLastName);
+                throw new ResourceNotFoundException("Resource not found");
+            }
+
+            logger.info("{} deleted successfully", theFirstName);
+        });
+    }
+
+    // Called under the lock of the key : the version checked is the one replaced
+    private void checkVersion(Dataset dataset, List<String> key, String ifMatch) {
+        if (!EntityTags.matches(ifMatch, dataset.versionOf(DataSection.MEDICAL_RECORDS, key))) {
+            logger.warn("MedicalRecord {} {} changed since the version : {}", key.get(0), key.get(1), ifMatch);
+            throw new PreconditionFailedException("Resource changed since it was read");
         }
+    }
 
-        dataRepository.writeData("medicalRecord", medicalRecords);
-        logger.info("{} deleted successfully", theFirstName);
+    // The format is checked on the DTO, the date here : 13/45/2000 has the format but is not a date
+    private void checkBirthdate(MedicalRecord medicalRecord) {
+        if (!medicalRecord.hasValidBirthdate()) {
+            logger.warn("Invalid birthdate for : {} {} : {}", medicalRecord.getFirstName(), medicalRecord.getLastName(), medicalRecord.getBirthdate());
+            throw new IllegalArgumentException("Birthdate must be a valid date in the format MM/dd/yyyy");
+        }
     }
 
 }
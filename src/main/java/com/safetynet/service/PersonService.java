@@ -4,10 +4,13 @@ import com.safetynet.dto.person.PersonCreateDTO;
 import com.safetynet.dto.person.PersonResponseDTO;
 import com.safetynet.dto.person.PersonUpdateDTO;
 import com.safetynet.exception.ConflictException;
+import com.safetynet.exception.PreconditionFailedException;
 import com.safetynet.exception.ResourceNotFoundException;
 import com.safetynet.mapper.PersonMapper;
 import com.safetynet.model.Person;
 import com.safetynet.repository.DataRepository;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.Dataset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -24,19 +27,19 @@ public class PersonService {
 
     private final DataRepository dataRepository;
     private final PersonMapper personMapper;
-
-    private final List<Person> persons;
+    private final KeyLocks keyLocks;
 
     /**
      * Instantiates a new Person service.
      *
      * @param dataRepository the data repository
      * @param personMapper   the person mapper
+     * @param keyLocks       the locks of the mutations, by key
      */
-    public PersonService(DataRepository dataRepository, PersonMapper personMapper) {
+    public PersonService(DataRepository dataRepository, PersonMapper personMapper, KeyLocks keyLocks) {
         this.dataRepository = dataRepository;
         this.personMapper = personMapper;
-        this.persons = dataRepository.getPersons();
+        this.keyLocks = keyLocks;
     }
 
     /**
@@ -45,6 +48,7 @@ public class PersonService {
      * @return the list
      */
     public List<PersonResponseDTO> findAllPersons() {
+        List<Person> persons = dataRepository.getPersons();
 
         if (persons.isEmpty()) {
             logger.warn("No persons found in the database");
@@ -57,6 +61,15 @@ public class PersonService {
                 .toList();
     }
 
+    /**
+     * Gets the tag of the persons, that of the last change of the section.
+     *
+     * @return the ETag
+     */
+    public String getPersonsTag() {
+        return EntityTags.of(dataRepository.getDataset().versionOf(DataSection.PERSONS));
+    }
+
     /**
      * Find person by first name and last name person response dto.
      *
@@ -65,15 +78,33 @@ public class PersonService {
      * @return the person response dto
      */
     public PersonResponseDTO findPersonByFirstNameAndLastName(String theFirstName, String theLastName) {
-        for (Person person : persons) {
-            if (person.getFirstName().equals(theFirstName) && person.getLastName().equals(theLastName)) {
-                logger.info("Found the person with the first name {} and last name {}", person.getFirstName(), person.getLastName());
-                return personMapper.toResponseDTO(person);
-            }
+        Person person = dataRepository.getDataset().findPerson(theFirstName, theLastName);
+
+        if (person == null) {
+            logger.error("Person not found : {} {}", theFirstName, theLastName);
+            throw new ResourceNotFoundException("Resource not found");
+        }
+
+        logger.info("Found the person with the first name {} and last name {}", person.getFirstName(), person.getLastName());
+        return personMapper.toResponseDTO(person);
+    }
+
+    /**
+     * Gets the tag of a person, that of its last write.
+     *
+     * @param theFirstName the first name
+     * @param theLastName  the last name
+     * @return the ETag
+     */
+    public String getPersonTag(String theFirstName, String theLastName) {
+        Dataset dataset = dataRepository.getDataset();
+
+        if (dataset.findPerson(theFirstName, theLastName) == null) {
+            logger.error("Person not found : {} {}", theFirstName, theLastName);
+            throw new ResourceNotFoundException("Resource not found");
         }
 
-        logger.error("Person not found : {} {}", theFirstName, theLastName);
-        throw new ResourceNotFoundException("Resource not found");
+        return EntityTags.of(dataset.versionOf(DataSection.PERSONS, List.of(theFirstName, theLastName)));
     }
 
     /**
@@ -82,20 +113,16 @@ public class PersonService {
      * @param thePerson the the person
      */
     public void addPerson(PersonCreateDTO thePerson) {
+        keyLocks.withLock(List.of(thePerson.getFirstName(), thePerson.getLastName()), () -> {
+            if (dataRepository.getDataset().findPerson(thePerson.getFirstName(), thePerson.getLastName()) != null) {
+                logger.warn("Person already exist : {} {}", thePerson.getFirstName(), thePerson.getLastName());
+                throw new ConflictException("Resource already exist");
+            }
 
-        boolean exists = persons.stream().anyMatch(persons ->
-                persons.getFirstName().equals(thePerson.getFirstName()) && persons.getLastName().equals(thePerson.getLastName())
-        );
-
-        if (exists) {
-            logger.warn("Person already exist : {} {}", thePerson.getFirstName(), thePerson.getLastName());
-            throw new ConflictException("Resource already exist");
-        }
-
-        Person person = personMapper.toEntityFromCreateDTO(thePerson);
-        persons.add(person);
-        dataRepository.writeData("persons", persons);
-        logger.info("{} added successfully", person.getFirstName());
+            Person person = personMapper.toEntityFromCreateDTO(thePerson);
+            dataRepository.add(DataSection.PERSONS, person);
+            logger.info("{} added successfully", person.getFirstName());
+        });
     }
 
     /**
@@ -106,34 +133,39 @@ public class PersonService {
      * @param theLastName  the last name
      */
     public void updatePerson(PersonUpdateDTO thePerson, String theFirstName, String theLastName) {
+        updatePerson(thePerson, theFirstName, theLastName, null);
+    }
 
-        for (Person person : persons) {
-            if (person.getFirstName().equals(theFirstName) &&
-                    person.getLastName().equals(theLastName)) {
-
-                // Merging the DTO with the first and last name injected as params
-                Person updatedPerson = personMapper.toEntityFromUpdateDTO(thePerson);
-                updatedPerson.setFirstName(theFirstName);
-                updatedPerson.setLastName(theLastName);
-
-                if (person.equals(updatedPerson)) {
-                    logger.warn("The person with the name {} is exactly the same as the one you are trying to update", theLastName);
-                    throw new ConflictException("The person with this name is exactly the same as the one you are trying to update");
-                }
-
-                // Replace the existing person with the updatedPerson
-                int index = persons.indexOf(person);
-                persons.set(index, updatedPerson);
+    /**
+     * Update person, if it was not written since the version the client read.
+     *
+     * @param thePerson    the person
+     * @param theFirstName the first name
+     * @param theLastName  the last name
+     * @param ifMatch      the If-Match header, null if absent
+     */
+    public void updatePerson(PersonUpdateDTO thePerson, String theFirstName, String theLastName, String ifMatch) {
+        List<String> key = List.of(theFirstName, theLastName);
+        keyLocks.withLock(key, () -> {
+            Dataset dataset = dataRepository.getDataset();
+            Person person = dataset.findPerson(theFirstName, theLastName);
+
+            if (person == null) {
+                logger.error("Person not found for : {} {}", theFirstName, theLastName);
+                throw new ResourceNotFoundException("Resource not found");
+            }
 
-                dataRepository.writeData("persons", persons);
-                logger.info("{} updated successfully", person.getFirstName());
+            checkVersion(dataset, key, ifMatch);
 
-                return;
-            }
-        }
+            // Merging the DTO with the first and last name injected as params
+            Person updatedPerson = personMapper.toEntityFromUpdateDTO(thePerson);
+            updatedPerson.setFirstName(theFirstName);
+            updatedPerson.setLastName(theLastName);
 
-        logger.error("Person not found for : {} {}", theFirstName, theLastName);
-        throw new ResourceNotFoundException("Resource not found");
+            // Replace the existing person with the updatedPerson
+            dataRepository.update(DataSection.PERSONS, updatedPerson);
+            logger.info("{} updated successfully", person.getFirstName());
+        });
     }
 
     /**
@@ -143,17 +175,41 @@ public class PersonService {
      * @param theLastName  the last name
      */
     public void deletePerson(String theFirstName, String theLastName) {
-        // Not using the "persons.remove(person)" to avoid ConcurrentModificationException.
-        // Occurs when a collection is modified while it is being iterated over.
-        boolean removed = persons.removeIf(person -> person.getFirstName().equals(theFirstName) && person.getLastName().equals(theLastName));
+        deletePerson(theFirstName, theLastName, null);
+    }
 
-        if (!removed) {
-            logger.error("Person not found : {} {}", theFirstName, theLastName);
-            throw new ResourceNotFoundException("Resource not found");
-        }
+    /**
+     * Delete person, if it was not written since the version the client read.
+     *
+     * @param theFirstName the first name
+     * @param theLastName  the last name
+     * @param ifMatch      the If-Match header, null if absent
+     */
+    public void deletePerson(String theFirstName, String theLastName, String ifMatch) {
+        List<String> key = List.of(theFirstName, theLastName);
+        keyLocks.withLock(key, () -> {
+            Dataset dataset = dataRepository.getDataset();
+            if (dataset.contains(DataSection.PERSONS, key)) {
+                checkVersion(dataset, key, ifMatch);
+            }
 
-        dataRepository.writeData("persons", persons);
-        logger.info("{} deleted successfully", theFirstName);
+            boolean removed = dataRepository.delete(DataSection.PERSONS, key);
+
+            if (!removed) {
+                logger.error("Person not found : {} {}", theFirstName, theLastName);
+                throw new ResourceNotFoundException("Resource not found");
+            }
+
+            logger.info("{} deleted successfully", theFirstName);
+        });
+    }
+
+    // Called under the lock of the key : the version checked is the one replaced
+    private void checkVersion(Dataset dataset, List<String> key, String ifMatch) {
+        if (!EntityTags.matches(ifMatch, dataset.versionOf(DataSection.PERSONS, key))) {
+            logger.warn("Person {} {} changed since the version : {}", key.get(0), key.get(1), ifMatch);
+            throw new PreconditionFailedException("Resource changed since it was read");
+        }
     }
 
 }
@@ -0,0 +1,261 @@
+package com.safetynet.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The type Query cache.
+ * <p>
+ * The answers of the search queries, by query and parameters, each kept with the versions of the data it was computed from
+ * (see {@link EntityTags}) : an answer is served again while the sections it depends on are unchanged, and computed again
+ * as soon as one of them changes. Past the maximum number of answers, the least recently used ones are evicted.
+ * <p>
+ * The concurrent misses of a query on the same versions compute it once, the others waiting for its answer.
+ * The answers must not be changed once returned, as they are shared by the requests.
+ * The hits, misses, evictions and size are published as the {@code cache.*} meters, tagged {@code cache=search}.
+ */
+@Component
+public class QueryCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCache.class);
+
+    private record Entry(long[] versions, Object answer) {
+    }
+
+    // A query computed on given versions
+    private record Flight(List<?> key, long[] versions) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Flight flight && key.equals(flight.key) && Arrays.equals(versions, flight.versions);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + Arrays.hashCode(versions);
+        }
+    }
+
+    private final int maxEntries;
+    // In access order : the eldest entry is the least recently used
+    private final Map<List<?>, Entry> entries;
+    // The queries being computed, completed with their answer
+    private final Map<Flight, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Instantiates a new Query cache.
+     *
+     * @param maxEntries the maximum number of answers kept, 0 to keep none
+     */
+    public QueryCache(@Value("${safetynet.search.cache.max-entries:10000}") int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("The maximum number of entries cannot be negative : " + maxEntries);
+        }
+
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<?>, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the answer of a query, computed again unless it was computed from the current data.
+     * <p>
+     * The versions must be read before the query runs : the answer is then of those versions or later ones,
+     * and an answer kept under versions is never older than them. Each version only grows : an answer replaces
+     * the one kept only if none of its versions is older. A query that throws keeps nothing, and fails the
+     * requests waiting for it.
+     *
+     * @param <T>      the type of the answer
+     * @param key      the query and its parameters
+     * @param versions the current versions of the data the query depends on, in a fixed order
+     * @param query    the query
+     * @return the answer
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(List<?> key, long[] versions, Supplier<T> query) {
+        if (maxEntries == 0) {
+            misses.increment();
+            return query.get();
+        }
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && Arrays.equals(entry.versions(), versions)) {
+                hits.increment();
+                return (T) entry.answer();
+            }
+        }
+
+        Flight flight = new Flight(key, versions);
+        CompletableFuture<Object> computing = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.computeIfAbsent(flight, f -> computing);
+        if (running != computing) {
+            // Served without being computed again
+            hits.increment();
+            return (T) await(running);
+        }
+
+        // Computed outside of the lock : the concurrent queries, cached or not, do not wait for it
+        misses.increment();
+        try {
+            T answer = query.get();
+            store(key, versions, answer);
+            computing.complete(answer);
+            return answer;
+        } catch (RuntimeException | Error e) {
+            computing.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Removed once stored : a later miss finds either the flight or the entry
+            inFlight.remove(flight, computing);
+        }
+    }
+
+    private void store(List<?> key, long[] versions, Object answer) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || !isOlder(versions, entry.versions())) {
+                entries.put(key, new Entry(versions, answer));
+            }
+        }
+    }
+
+    private static boolean isOlder(long[] versions, long[] kept) {
+        for (int i = 0; i < versions.length; i++) {
+            if (versions[i] < kept[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets hits.
+     *
+     * @return the number of answers served without being computed
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets misses.
+     *
+     * @return the number of answers computed
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets evictions.
+     *
+     * @return the number of answers evicted to make room for others
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets size.
+     *
+     * @return the number of answers kept
+     */
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Publish the statistics of the cache to the metrics, under the names of the caches of Micrometer.
+     *
+     * @param registry the registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", "search", "result", "hit")
+                .description("The answers served without being computed")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", "search", "result", "miss")
+                .description("The answers computed")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tags("cache", "search")
+                .description("The answers evicted to make room for others")
+                .register(registry);
+        Gauge.builder("cache.size", this, QueryCache::getSize)
+                .tags("cache", "search")
+                .description("The number of answers kept")
+                .register(registry);
+    }
+
+    /**
+     * Log the statistics of the cache, to size it against the traffic.
+     */
+    @Scheduled(fixedDelayString = "${safetynet.search.cache.stats-interval:5m}", initialDelayString = "${safetynet.search.cache.stats-interval:5m}")
+    public void logStats() {
+        logger.info("Search query cache : {}", this);
+    }
+
+    @Override
+    public String toString() {
+        long hitCount = getHits();
+        long missCount = getMisses();
+        long lookups = hitCount + missCount;
+        return String.format(
+                "%d hits, %d misses (%.1f%% hit ratio), %d evictions, %d/%d entries",
+                hitCount,
+                missCount,
+                lookups == 0 ? 0.0 : 100.0 * hitCount / lookups,
+                getEvictions(),
+                getSize(),
+                maxEntries
+        );
+    }
+}
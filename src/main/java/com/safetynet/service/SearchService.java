@@ -4,55 +4,97 @@ import com.safetynet.dto.person.*;
 import com.safetynet.dto.search.*;
 import com.safetynet.exception.ResourceNotFoundException;
 import com.safetynet.mapper.PersonMapper;
-import com.safetynet.model.Firestation;
 import com.safetynet.model.MedicalRecord;
 import com.safetynet.model.Person;
+import com.safetynet.repository.CoverageCounts;
 import com.safetynet.repository.DataRepository;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.Dataset;
+import com.safetynet.repository.Grouping;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
-import java.time.Period;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The type Search service.
+ * <p>
+ * The answers computed from the residents are kept in the {@link QueryCache} until the data they depend on changes.
+ * Those of phoneAlert and communityEmail, read from lists maintained with the data, are not.
  */
 @Service
 public class SearchService {
 
+    /**
+     * The number of persons of a page when none is given.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    /**
+     * The largest number of persons of a page.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+    private final DataRepository dataRepository;
     private final PersonMapper personMapper;
+    private final DailyClock dailyClock;
+    private final QueryCache queryCache;
 
     /**
-     * The Persons.
+     * Instantiates a new Search service.
+     *
+     * @param dataRepository the data repository
+     * @param personMapper   the person mapper
+     * @param dailyClock     the daily clock
+     * @param queryCache     the answers of the queries, by parameters
      */
-    List<Person> persons;
+    public SearchService(DataRepository dataRepository, PersonMapper personMapper, DailyClock dailyClock, QueryCache queryCache) {
+        this.dataRepository = dataRepository;
+        this.personMapper = personMapper;
+        this.dailyClock = dailyClock;
+        this.queryCache = queryCache;
+    }
+
     /**
-     * The Firestations.
+     * Gets the tag of the answers about the residents, their ages and medical records : the versions of the three sections,
+     * and the current day, as the children become adults.
+     *
+     * @return the ETag
      */
-    List<Firestation> firestations;
+    public String getResidentsTag() {
+        return EntityTags.of(residentsVersions());
+    }
+
+    // What the answers about the residents are cached under
+    private long[] residentsVersions() {
+        Dataset dataset = dataRepository.getDataset();
+        return new long[] {dataset.versionOf(DataSection.PERSONS), dataset.versionOf(DataSection.FIRESTATIONS),
+                dataset.versionOf(DataSection.MEDICAL_RECORDS), dailyClock.today()};
+    }
+
     /**
-     * The Medical records.
+     * Gets the tag of the phones of the stations : the versions of the persons and firestations.
+     *
+     * @return the ETag
      */
-    List<MedicalRecord> medicalRecords;
+    public String getPhonesTag() {
+        Dataset dataset = dataRepository.getDataset();
+        return EntityTags.of(dataset.versionOf(DataSection.PERSONS), dataset.versionOf(DataSection.FIRESTATIONS));
+    }
 
     /**
-     * Instantiates a new Search service.
+     * Gets the tag of the emails of the cities : the version of the persons.
      *
-     * @param dataRepository the data repository
-     * @param personMapper   the person mapper
+     * @return the ETag
      */
-    public SearchService(DataRepository dataRepository, PersonMapper personMapper) {
-        this.firestations = dataRepository.getFirestations();
-        this.medicalRecords = dataRepository.getMedicalRecords();
-        this.persons = dataRepository.getPersons();
-
-        this.personMapper = personMapper;
+    public String getEmailsTag() {
+        return EntityTags.of(dataRepository.getDataset().versionOf(DataSection.PERSONS));
     }
 
     /**
@@ -62,42 +104,46 @@ public class SearchService {
      * @return the covered persons by station
      */
     public FirestationCoverageResponseDTO getCoveredPersonsByStation(int stationNumber) {
+        Coverage coverage = queryCache.get(List.of("firestationCoverage", stationNumber), residentsVersions(), () -> {
+            Dataset dataset = dataRepository.getDataset();
 
-        AtomicInteger adultCount = new AtomicInteger();
-        AtomicInteger childCount = new AtomicInteger();
+            List<String> coveredAddresses = dataset.getAddressesOfStation(stationNumber);
 
-        List<Firestation> firestationsWithSameNumberStation = firestations.stream()
-            .filter(firestation -> firestation.getStation() == stationNumber)
-            .toList();
+            if (coveredAddresses.isEmpty()) {
+                logger.warn("Resource not found");
+                throw new ResourceNotFoundException("No firestations found for station number: " + stationNumber);
+            }
 
-        if (firestationsWithSameNumberStation.isEmpty()) {
-            logger.warn("Resource not found");
-            throw new ResourceNotFoundException("No firestations found for station number: " + stationNumber);
-        }
+            List<Person> residents = coveredAddresses.stream()
+                .flatMap(address -> dataset.getResidents(address).stream())
+                .toList();
 
-        List<PersonForFirestationCoverageResponseDTO> coveredPersons = persons.stream()
-            .filter(person ->
-                firestationsWithSameNumberStation.stream()
-                    .anyMatch(firestation -> firestation.getAddress().equals(person.getAddress())))
-            .map(person -> {
+            // Maintained with the data : the ages are not computed again
+            CoverageCounts counts = dataset.getCoverage(stationNumber, dailyClock.today());
 
-                if (getAge(person) >= 18) {
-                    adultCount.incrementAndGet();
-                } else {
-                    childCount.incrementAndGet();
-                }
+            if (counts.unclassified() > 0) {
+                // A resident has no medical record or an invalid birthdate : reported as for the other endpoints
+                residents.forEach(person -> getAge(dataset, person));
+            }
 
-                return personMapper.toPersonForFirestationCoverageResponseDTO(person);
-            })
-            .toList();
+            List<PersonForFirestationCoverageResponseDTO> coveredPersons = residents.stream()
+                .map(personMapper::toPersonForFirestationCoverageResponseDTO)
+                .toList();
+
+            return new Coverage(counts.adults(), counts.children(), coveredPersons);
+        });
 
         return new FirestationCoverageResponseDTO(
-            adultCount,
-            childCount,
-            coveredPersons
+            new AtomicInteger(coverage.adults()),
+            new AtomicInteger(coverage.children()),
+            coverage.persons()
         );
     }
 
+    // Cached instead of the answer, whose counters can be changed : each request gets counters of its own
+    private record Coverage(int adults, int children, List<PersonForFirestationCoverageResponseDTO> persons) {
+    }
+
     /**
      * Gets children by address.
      *
@@ -105,35 +151,39 @@ public class SearchService {
      * @return the children by address
      */
     public ChildAlertResponseDTO getChildrenByAddress(String address) {
+        return queryCache.get(List.of("childAlert", address), residentsVersions(), () -> {
+            Dataset dataset = dataRepository.getDataset();
 
-        List<Person> residents = persons.stream()
-            .filter(person -> person.getAddress().equals(address))
-            .toList();
+            List<Person> residents = dataset.getResidents(address);
 
-        if (residents.isEmpty()) {
-            logger.warn("Resource not found");
-            return new ChildAlertResponseDTO(List.of());
-        }
+            if (residents.isEmpty()) {
+                logger.warn("Resource not found");
+                return new ChildAlertResponseDTO(List.of());
+            }
+
+            List<PersonForChildAlertResponseDTO> children = new ArrayList<>();
 
-        List<PersonForChildAlertResponseDTO> children = residents.stream()
-            .filter(resident -> getAge(resident) <= 18)
-            .map(child -> {
+            for (Person child : residents) {
+                int age = getAge(dataset, child);
+                if (age > 18) {
+                    continue;
+                }
 
                 List<PersonResponseDTO> relatives = residents.stream()
                     .filter(resident -> !resident.equals(child))
                     .map(personMapper::toResponseDTO)
                     .toList();
 
-                return new PersonForChildAlertResponseDTO(
+                children.add(new PersonForChildAlertResponseDTO(
                     child.getFirstName(),
                     child.getLastName(),
-                    getAge(child),
+                    age,
                     relatives
-                );
-            })
-            .toList();
+                ));
+            }
 
-        return new ChildAlertResponseDTO(children);
+            return new ChildAlertResponseDTO(children);
+        });
     }
 
     /**
@@ -143,22 +193,15 @@ public class SearchService {
      * @return the phones by station
      */
     public PhoneAlertResponseDTO getPhonesByStation(int stationNumber) {
+        Dataset dataset = dataRepository.getDataset();
 
-        List<Firestation> firestationsWithSameNumberStation = firestations.stream()
-            .filter(firestation -> firestation.getStation() == stationNumber)
-            .toList();
-
-        if (firestationsWithSameNumberStation.isEmpty()) {
+        if (dataset.group(Grouping.FIRESTATIONS_BY_STATION, stationNumber).isEmpty()) {
             logger.warn("Resource not found");
             throw new ResourceNotFoundException("No firestations found for station number: " + stationNumber);
         }
 
-        List<String> phones = persons.stream()
-            .filter(person ->
-                firestationsWithSameNumberStation.stream()
-                    .anyMatch(firestation -> firestation.getAddress().equals(person.getAddress())))
-            .map(Person::getPhone)
-            .toList();
+        // Kept up to date by the mutations, each phone once : the list is shared, not copied
+        List<String> phones = dataset.getPhonesOfStation(stationNumber);
 
         return new PhoneAlertResponseDTO(phones);
     }
@@ -170,40 +213,38 @@ public class SearchService {
      * @return the persons by address station
      */
     public FireResponseDTO getPersonsByAddressStation(String address) {
+        return queryCache.get(List.of("fire", address), residentsVersions(), () -> {
+            Dataset dataset = dataRepository.getDataset();
 
-        List<Integer> stations = firestations.stream()
-            .filter(firestation -> firestation.getAddress().equals(address))
-            .map(Firestation::getStation)
-            .toList();
+            List<Integer> stations = dataset.getStationsOfAddress(address);
 
-        if (stations.isEmpty()) {
-            logger.warn("Resource not found");
-            throw new ResourceNotFoundException("No firestation found for address: " + address);
-        }
+            if (stations.isEmpty()) {
+                logger.warn("Resource not found");
+                throw new ResourceNotFoundException("No firestation found for address: " + address);
+            }
 
-        List<Person> residents = persons.stream()
-            .filter(person -> person.getAddress().equals(address))
-            .toList();
+            List<Person> residents = dataset.getResidents(address);
 
-        if (residents.isEmpty()) {
-            logger.warn("Resource not found");
-            throw new ResourceNotFoundException("No residents found for the address: " + address);
-        }
+            if (residents.isEmpty()) {
+                logger.warn("Resource not found");
+                throw new ResourceNotFoundException("No residents found for the address: " + address);
+            }
+
+            List<PersonForFireResponseDTO> persons = residents.stream()
+                .map(person -> new PersonForFireResponseDTO(
+                    person.getLastName(),
+                    person.getPhone(),
+                    getAge(dataset, person),
+                    getMedications(dataset, person),
+                    getAllergies(dataset, person)
+                ))
+                .toList();
 
-        List<PersonForFireResponseDTO> persons = residents.stream()
-            .map(person -> new PersonForFireResponseDTO(
-                person.getLastName(),
-                person.getPhone(),
-                getAge(person),
-                getMedications(person),
-                getAllergies(person)
-            ))
-            .toList();
-
-        return new FireResponseDTO(
-            stations,
-            persons
-        );
+            return new FireResponseDTO(
+                stations,
+                persons
+            );
+        });
     }
 
     /**
@@ -213,70 +254,149 @@ public class SearchService {
      * @return the persons by stations with medical record
      */
     public FloodStationsResponseDTO getPersonsByStationsWithMedicalRecord(List<Integer> stationNumbers) {
+        return queryCache.get(List.of("flood", List.copyOf(stationNumbers)), residentsVersions(), () -> {
+            Dataset dataset = dataRepository.getDataset();
 
-        List<String> firestationsByAddress = new ArrayList<>();
+            // An address covered by several of the stations is only listed once
+            Set<String> firestationsByAddress = new LinkedHashSet<>();
 
-        for (Integer stationNumber : stationNumbers) {
-            firestations.stream()
-                .filter(firestation -> firestation.getStation() == stationNumber)
-                .map(Firestation::getAddress)
-                .forEach(firestationsByAddress::add);
-        }
+            for (Integer stationNumber : stationNumbers) {
+                firestationsByAddress.addAll(dataset.getAddressesOfStation(stationNumber));
+            }
 
-        if (firestationsByAddress.isEmpty()) {
-            logger.warn("Resource not found");
-            throw new ResourceNotFoundException("Resource not found for station numbers: " + stationNumbers);
-        }
+            if (firestationsByAddress.isEmpty()) {
+                logger.warn("Resource not found");
+                throw new ResourceNotFoundException("Resource not found for station numbers: " + stationNumbers);
+            }
 
-        List<Person> residents = persons.stream()
-            .filter(person -> firestationsByAddress.contains(person.getAddress()))
-            .toList();
+            List<Person> residents = firestationsByAddress.stream()
+                .flatMap(address -> dataset.getResidents(address).stream())
+                .toList();
 
-        if (residents.isEmpty()) {
-            logger.warn("Resource not found");
-            throw new ResourceNotFoundException("No residents found for the given stations.");
-        }
+            if (residents.isEmpty()) {
+                logger.warn("Resource not found");
+                throw new ResourceNotFoundException("No residents found for the given stations.");
+            }
+
+            List<PersonForFloodStationsResponseDTO> persons = residents.stream()
+                .map(person -> new PersonForFloodStationsResponseDTO(
+                    person.getAddress(),
+                    person.getLastName(),
+                    person.getPhone(),
+                    getAge(dataset, person),
+                    getMedications(dataset, person),
+                    getAllergies(dataset, person)
+                ))
+                .toList();
 
-        List<PersonForFloodStationsResponseDTO> persons = residents.stream()
-            .map(person -> new PersonForFloodStationsResponseDTO(
-                person.getAddress(),
-                person.getLastName(),
-                person.getPhone(),
-                getAge(person),
-                getMedications(person),
-                getAllergies(person)
-            ))
-            .toList();
-
-        return new FloodStationsResponseDTO(persons);
+            return new FloodStationsResponseDTO(persons);
+        });
     }
 
     /**
      * Gets person by last name with medical record.
      *
      * @param lastName the last name
-     * @return the person by last name with medical record
+     * @return the first page of the person by last name with medical record
      */
     public PersonsInfoLastNameResponseDTO getPersonByLastNameWithMedicalRecord(String lastName) {
+        return getPersonByLastNameWithMedicalRecord(lastName, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Gets a page of the person by last name with medical record.
+     *
+     * @param lastName the last name
+     * @param page     the page number, from 0
+     * @param size     the page size, up to MAX_PAGE_SIZE
+     * @return the page of the person by last name with medical record
+     * @throws IllegalArgumentException if the page is negative, or the size out of range
+     */
+    public PersonsInfoLastNameResponseDTO getPersonByLastNameWithMedicalRecord(String lastName, int page, int size) {
+        checkPage(page, size);
+        return queryCache.get(List.of("personInfoLastName", lastName, page, size), residentsVersions(), () -> {
+            Dataset dataset = dataRepository.getDataset();
+
+            List<Person> persons = dataset.getPersonsByLastName(lastName);
+
+            if (persons.isEmpty()) {
+                logger.warn("Resource not found");
+                throw new ResourceNotFoundException("Resource not found for the lastName: " + lastName);
+            }
+
+            long offset = (long) page * size;
+            List<Person> pagePersons = offset >= persons.size()
+                ? List.of()
+                : persons.subList((int) offset, (int) Math.min(persons.size(), offset + size));
+
+            return toPersonsInfoLastNameResponseDTO(dataset, pagePersons, page, size, offset + size < persons.size());
+        });
+    }
 
+    /**
+     * Gets a page of the persons whose last name starts with a prefix, ordered by last name, with medical record.
+     *
+     * @param prefix the start of the last name
+     * @param page   the page number, from 0
+     * @param size   the page size, up to MAX_PAGE_SIZE
+     * @return the page of the persons, empty if none
+     */
+    public PersonsInfoLastNameResponseDTO getPersonsByLastNamePrefix(String prefix, int page, int size) {
+        // The names starting with the prefix sort between the prefix and the prefix followed by the greatest char
+        return getPersonsByLastNameRange(prefix, prefix + Character.MAX_VALUE, page, size);
+    }
+
+    /**
+     * Gets a page of the persons whose last name is in a range, ordered by last name, with medical record.
+     *
+     * @param from the first last name, included, null to start with the first one
+     * @param to   the last last name, excluded, null to go to the last one
+     * @param page the page number, from 0
+     * @param size the page size, up to MAX_PAGE_SIZE
+     * @return the page of the persons, empty if none
+     * @throws IllegalArgumentException if the page is negative, or the size out of range
+     */
+    public PersonsInfoLastNameResponseDTO getPersonsByLastNameRange(String from, String to, int page, int size) {
+        checkPage(page, size);
+        return queryCache.get(Arrays.asList("personInfoLastNameRange", from, to, page, size), residentsVersions(), () -> {
+            Dataset dataset = dataRepository.getDataset();
+
+            if (from != null && to != null && from.compareTo(to) > 0) {
+                return new PersonsInfoLastNameResponseDTO(List.of(), page, size, false);
+            }
+
+            // One more person than the page, to know whether another page follows
+            List<Person> persons = dataset.getPersonsByLastNames(from, to, (long) page * size, size + 1);
+            boolean hasNext = persons.size() > size;
+
+            return toPersonsInfoLastNameResponseDTO(dataset, hasNext ? persons.subList(0, size) : persons, page, size, hasNext);
+        });
+    }
+
+    private PersonsInfoLastNameResponseDTO toPersonsInfoLastNameResponseDTO(Dataset dataset, List<Person> persons,
+                                                                           int page, int size, boolean hasNext) {
         List<PersonForPersonsInfoLastNameResponseDTO> personsTargeted = persons.stream()
-                .filter(person -> person.getLastName().equals(lastName))
                 .map(person -> new PersonForPersonsInfoLastNameResponseDTO(
                         person.getLastName(),
                         person.getAddress(),
-                        getAge(person),
+                        getAge(dataset, person),
                         person.getEmail(),
-                        getMedications(person),
-                        getAllergies(person)
+                        getMedications(dataset, person),
+                        getAllergies(dataset, person)
                 ))
                 .toList();
 
-        if (personsTargeted.isEmpty()) {
-            logger.warn("Resource not found");
-            throw new ResourceNotFoundException("Resource not found for the lastName: " + lastName);
-        }
+        return new PersonsInfoLastNameResponseDTO(personsTargeted, page, size, hasNext);
+    }
 
-        return new PersonsInfoLastNameResponseDTO(personsTargeted);
+    // Rejected by the controller first : the page echoed in the answer is always the one served
+    private static void checkPage(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("The page must be 0 or more");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("The page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
     }
 
     /**
@@ -286,11 +406,10 @@ public class SearchService {
      * @return the emails by city
      */
     public CommunityEmailResponseDTO getEmailsByCity(String city) {
+        Dataset dataset = dataRepository.getDataset();
 
-        List<String> emails = persons.stream()
-            .filter(person -> person.getCity().equals(city))
-            .map(Person::getEmail)
-            .toList();
+        // Kept up to date by the mutations, each email once : the list is shared, not copied
+        List<String> emails = dataset.getEmailsOfCity(city);
 
         if (emails.isEmpty()) {
             logger.warn("Resource not found");
@@ -300,49 +419,50 @@ public class SearchService {
         return new CommunityEmailResponseDTO(emails);
     }
 
-    private MedicalRecord getMedicalRecord(Person person) {
-        return medicalRecords.stream()
-            .filter(record ->
-                record.getFirstName().equals(person.getFirstName()) &&
-                record.getLastName().equals(person.getLastName()))
-            .findFirst()
-            .orElseThrow(() -> {
-                logger.warn("Resource not found");
-                return new ResourceNotFoundException("Medical record not found");
-            });
+    private MedicalRecord getMedicalRecord(Dataset dataset, Person person) {
+        MedicalRecord record = dataset.getMedicalRecord(person);
+
+        if (record == null) {
+            logger.warn("Resource not found");
+            throw new ResourceNotFoundException("Medical record not found");
+        }
+
+        return record;
     }
 
     /**
      * Gets medications.
      *
-     * @param person the person
+     * @param dataset the dataset
+     * @param person  the person
      * @return the medications
      */
-    public List<String> getMedications(Person person) {
-        MedicalRecord record = getMedicalRecord(person);
+    public List<String> getMedications(Dataset dataset, Person person) {
+        MedicalRecord record = getMedicalRecord(dataset, person);
         return record.getMedications();
     }
 
     /**
      * Gets allergies.
      *
-     * @param person the person
+     * @param dataset the dataset
+     * @param person  the person
      * @return the allergies
      */
-    public List<String> getAllergies(Person person) {
-        MedicalRecord record = getMedicalRecord(person);
+    public List<String> getAllergies(Dataset dataset, Person person) {
+        MedicalRecord record = getMedicalRecord(dataset, person);
         return record.getAllergies();
     }
 
     /**
      * Gets age.
      *
-     * @param person the person
+     * @param dataset the dataset
+     * @param person  the person
      * @return the age
      */
-    public int getAge(Person person) {
-        MedicalRecord record = getMedicalRecord(person);
-        LocalDate dateOfBirth = LocalDate.parse(record.getBirthdate(), DateTimeFormatter.ofPattern("MM/dd/yyyy"));
-        return Period.between(dateOfBirth, LocalDate.now()).getYears();
+    public int getAge(Dataset dataset, Person person) {
+        MedicalRecord record = getMedicalRecord(dataset, person);
+        return dailyClock.ageOf(record.getBirthEpochDay());
     }
 }
@@ -0,0 +1,69 @@
+package com.safetynet.benchmark;
+
+import com.safetynet.model.MedicalRecord;
+import com.safetynet.service.DailyClock;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of the age of the persons of a request : the birthdate parsed at each call against the day of birth parsed once
+ * and compared to the limits of the current day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgeBenchmark {
+
+    private final DailyClock dailyClock = new DailyClock(Clock.systemDefaultZone());
+    private List<MedicalRecord> medicalRecords;
+
+    @Setup(Level.Trial)
+    public void createRecords() {
+        Random random = new Random(42);
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+        medicalRecords = IntStream.range(0, 1000)
+                .mapToObj(i -> new MedicalRecord("First" + i, "Last" + i,
+                        LocalDate.of(1930, 1, 1).plusDays(random.nextInt(95 * 365)).format(format), List.of(), List.of()))
+                .toList();
+    }
+
+    /**
+     * The former computation : a formatter, a parse and a Period for each age.
+     *
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void parsedAtEachCall(Blackhole blackhole) {
+        for (MedicalRecord record : medicalRecords) {
+            LocalDate dateOfBirth = LocalDate.parse(record.getBirthdate(), DateTimeFormatter.ofPattern("MM/dd/yyyy"));
+            blackhole.consume(Period.between(dateOfBirth, LocalDate.now()).getYears());
+        }
+    }
+
+    /**
+     * The birthdate parsed once, the age found among the limits of the current day.
+     *
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void dailyClock(Blackhole blackhole) {
+        for (MedicalRecord record : medicalRecords) {
+            blackhole.consume(dailyClock.ageOf(record.getBirthEpochDay()));
+        }
+    }
+}
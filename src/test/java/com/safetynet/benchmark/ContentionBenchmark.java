@@ -0,0 +1,84 @@
+package com.safetynet.benchmark;
+
+import com.safetynet.model.Person;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.DurabilityStats;
+import com.safetynet.repository.StorageEngine;
+import com.safetynet.repository.StorageSettings;
+import com.safetynet.service.KeyLocks;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write throughput under contention : concurrent updates of random persons, each checked and written under the
+ * lock of its key as the services do. One stripe is a global lock ; run with -t 1, -t 4, -t 8... to compare the scaling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(8)
+@Fork(1)
+public class ContentionBenchmark {
+
+    @Param({"JOURNALED", "IN_MEMORY"})
+    public StorageEngine.Type engine;
+
+    @Param({"1", "64"})
+    public int stripes;
+
+    @Param({"1000"})
+    public int persons;
+
+    private Path directory;
+    private StorageEngine storageEngine;
+    private KeyLocks keyLocks;
+    private List<Person> existingPersons;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("contention-" + engine);
+        Path file = directory.resolve("data.json");
+        SyntheticData.write(file, persons, 10);
+
+        storageEngine = StorageEngine.create(engine, file, new StorageSettings(), new DurabilityStats());
+        storageEngine.open();
+        keyLocks = new KeyLocks(stripes);
+        existingPersons = List.copyOf(storageEngine.getDataset().getPersons());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        storageEngine.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * The phone of a random person changed, read and written under the lock of the person.
+     */
+    @Benchmark
+    public void update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Person person = existingPersons.get(random.nextInt(existingPersons.size()));
+        String phone = String.format("841-874-%04d", random.nextInt(10_000));
+
+        keyLocks.withLock(List.of(person.getFirstName(), person.getLastName()), () -> {
+            Person current = storageEngine.getDataset().findPerson(person.getFirstName(), person.getLastName());
+            storageEngine.update(DataSection.PERSONS, new Person(current.getFirstName(), current.getLastName(),
+                    current.getAddress(), current.getCity(), current.getZip(), phone, current.getEmail()));
+        });
+    }
+}
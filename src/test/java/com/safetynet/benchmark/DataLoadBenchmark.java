@@ -0,0 +1,113 @@
+package com.safetynet.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.repository.BinarySnapshot;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.Dataset;
+import com.safetynet.repository.FileFingerprint;
+import com.safetynet.repository.JsonDataFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of loading the data file : the former tree based loading against the streaming one,
+ * section after section or with the sections read concurrently, and the binary snapshot written next to it.
+ * Each invocation is a cold load, as at startup ; the peak heap used during the load is printed after each of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DataLoadBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int persons;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonDataFile jsonDataFile = new JsonDataFile(mapper);
+    private Path file;
+    private BinarySnapshot binarySnapshot;
+    private FileFingerprint fingerprint;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("data-" + persons, ".json");
+        SyntheticData.write(file, persons, 10);
+        fingerprint = FileFingerprint.of(file);
+        binarySnapshot = new BinarySnapshot(Path.of(file + ".bin"));
+        binarySnapshot.write(jsonDataFile.read(file), fingerprint);
+        System.out.printf("%n%s : %d MB, binary snapshot : %d MB%n", file, Files.size(file) / (1024 * 1024),
+                Files.size(Path.of(file + ".bin")) / (1024 * 1024));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + ".bin"));
+    }
+
+    @Setup(Level.Invocation)
+    public void resetPeakHeap() {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @TearDown(Level.Invocation)
+    public void printPeakHeap() {
+        long peak = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        System.out.printf(" [peak heap %d MB]", peak / (1024 * 1024));
+    }
+
+    /**
+     * The whole document parsed to a JSON tree, then each section converted to a list.
+     */
+    @Benchmark
+    public Dataset tree() throws IOException {
+        JsonNode rootNode = mapper.readTree(file.toFile());
+        Dataset dataset = new Dataset();
+        for (DataSection section : DataSection.values()) {
+            List<?> entities = mapper.readValue(rootNode.path(section.getNodeName()).traverse(),
+                    mapper.getTypeFactory().constructCollectionType(List.class, section.getEntityClass()));
+            dataset.sectionList(section).addAll(entities);
+        }
+        return dataset;
+    }
+
+    /**
+     * The document streamed straight into the lists.
+     */
+    @Benchmark
+    public Dataset streaming() throws IOException {
+        return jsonDataFile.read(file);
+    }
+
+    /**
+     * The sections located by a first pass, then streamed concurrently into the lists.
+     */
+    @Benchmark
+    public Dataset parallelStreaming() throws IOException {
+        return jsonDataFile.readParallel(file);
+    }
+
+    /**
+     * The binary snapshot, memory-mapped and decoded.
+     */
+    @Benchmark
+    public Dataset binarySnapshot() throws IOException {
+        return binarySnapshot.read(fingerprint);
+    }
+}
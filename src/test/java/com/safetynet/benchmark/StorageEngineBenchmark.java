@@ -0,0 +1,86 @@
+package com.safetynet.benchmark;
+
+import com.safetynet.model.Person;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.Dataset;
+import com.safetynet.repository.DurabilityStats;
+import com.safetynet.repository.Grouping;
+import com.safetynet.repository.StorageEngine;
+import com.safetynet.repository.StorageSettings;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write throughput of the storage engines : concurrent updates of random persons, each returning once durable.
+ * The indexes and tallies of the queries are built first, to be kept up to date by each write as on a serving instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(8)
+@Fork(1)
+public class StorageEngineBenchmark {
+
+    @Param({"IN_MEMORY", "JOURNALED", "JSON_DOCUMENT", "SEGMENTED"})
+    public StorageEngine.Type engine;
+
+    @Param({"1000", "100000"})
+    public int persons;
+
+    private Path directory;
+    private StorageEngine storageEngine;
+    private List<Person> existingPersons;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("storage-" + engine);
+        Path file = directory.resolve("data.json");
+        SyntheticData.write(file, persons, 10);
+
+        storageEngine = StorageEngine.create(engine, file, new StorageSettings(), new DurabilityStats());
+        storageEngine.open();
+        existingPersons = List.copyOf(storageEngine.getDataset().getPersons());
+
+        Dataset dataset = storageEngine.getDataset();
+        for (Grouping grouping : Grouping.values()) {
+            dataset.group(grouping, grouping.groupOf(dataset.sectionList(grouping.getSection()).get(0)));
+        }
+        dataset.getEmailsOfCity(existingPersons.get(0).getCity());
+        dataset.getPhonesOfStation(1);
+        dataset.getCoverage(1, LocalDate.now().toEpochDay());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        storageEngine.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * The phone of a random person changed.
+     */
+    @Benchmark
+    public void update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Person person = existingPersons.get(random.nextInt(existingPersons.size()));
+        Person updated = new Person(person.getFirstName(), person.getLastName(), person.getAddress(), person.getCity(),
+                person.getZip(), String.format("841-874-%04d", random.nextInt(10_000)), person.getEmail());
+
+        storageEngine.update(DataSection.PERSONS, updated);
+    }
+}
@@ -0,0 +1,119 @@
+package com.safetynet.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Writes data files shaped like the real one, at any size : households of 1 to 5 persons sharing an address,
+ * a phone and an email, a firestation per address (a few addresses having two), a medical record per person.
+ */
+public final class SyntheticData {
+
+    private static final String[] FIRST_NAMES = {"John", "Jacob", "Tenley", "Roger", "Felicia", "Tessa", "Peter", "Foster",
+            "Tony", "Lily", "Sophia", "Warren", "Zach", "Reginold", "Jamie", "Ron", "Allison", "Brian", "Shawna", "Kendrik", "Clive", "Eric"};
+    private static final String[] LAST_NAMES = {"Boyd", "Marrack", "Carman", "Duncan", "Shepard", "Cooper", "Zemicks", "Walker",
+            "Peters", "Stelzer", "Ferguson", "Cadigan"};
+    private static final String[] STREETS = {"Culver St", "15th St", "Binoc Ave", "Gershwin Cir", "Townings Dr", "Steppes Pl",
+            "Manchester St", "Downing Ct", "73rd St", "E. Rose Dr", "LoneTree Rd"};
+    private static final String[] CITIES = {"Culver", "Springfield", "Shelbyville", "Ogdenville"};
+    private static final String[] MEDICATIONS = {"aznol:350mg", "hydrapermazol:100mg", "pharmacol:5000mg", "terazine:10mg", "noznazol:250mg"};
+    private static final String[] ALLERGIES = {"nillacilan", "peanut", "shellfish"};
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Write a data file.
+     *
+     * @param file     the file
+     * @param persons  the number of persons
+     * @param stations the number of firestation numbers
+     * @throws IOException the io exception
+     */
+    public static void write(Path file, int persons, int stations) throws IOException {
+        Random random = new Random(persons);
+
+        try (JsonGenerator generator = new JsonFactory().createGenerator(Files.newOutputStream(file))) {
+            generator.writeStartObject();
+
+            generator.writeArrayFieldStart("persons");
+            int household = 0;
+            for (int i = 0; i < persons; household++) {
+                int size = 1 + random.nextInt(5);
+                for (int member = 0; member < size && i < persons; member++, i++) {
+                    generator.writeStartObject();
+                    generator.writeStringField("firstName", firstName(i));
+                    generator.writeStringField("lastName", lastName(household));
+                    generator.writeStringField("address", address(household));
+                    generator.writeStringField("city", CITIES[household % CITIES.length]);
+                    generator.writeStringField("zip", String.valueOf(97451 + household % CITIES.length));
+                    generator.writeStringField("phone", "841-874-" + (household % 10000));
+                    generator.writeStringField("email", "household" + household + "@email.com");
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("firestations");
+            for (int h = 0; h < household; h++) {
+                writeFirestation(generator, address(h), 1 + h % stations);
+                if (h % 50 == 0) {
+                    writeFirestation(generator, address(h), 1 + (h + 1) % stations);
+                }
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("medicalrecords");
+            household = 0;
+            random = new Random(persons);
+            for (int i = 0; i < persons; household++) {
+                int size = 1 + random.nextInt(5);
+                for (int member = 0; member < size && i < persons; member++, i++) {
+                    generator.writeStartObject();
+                    generator.writeStringField("firstName", firstName(i));
+                    generator.writeStringField("lastName", lastName(household));
+                    generator.writeStringField("birthdate", String.format("%02d/%02d/%d", 1 + i % 12, 1 + i % 28, 1940 + i % 80));
+                    generator.writeArrayFieldStart("medications");
+                    for (int m = 0; m < i % 3; m++) {
+                        generator.writeString(MEDICATIONS[(i + m) % MEDICATIONS.length]);
+                    }
+                    generator.writeEndArray();
+                    generator.writeArrayFieldStart("allergies");
+                    if (i % 4 == 0) {
+                        generator.writeString(ALLERGIES[i % ALLERGIES.length]);
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeFirestation(JsonGenerator generator, String address, int station) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("address", address);
+        generator.writeStringField("station", String.valueOf(station));
+        generator.writeEndObject();
+    }
+
+    // Unique with the last name : the index makes every (first name, last name) pair distinct
+    private static String firstName(int index) {
+        return FIRST_NAMES[index % FIRST_NAMES.length] + index;
+    }
+
+    private static String lastName(int household) {
+        return LAST_NAMES[household % LAST_NAMES.length];
+    }
+
+    private static String address(int household) {
+        return (household + 1) + " " + STREETS[household % STREETS.length];
+    }
+}
@@ -5,6 +5,7 @@ import com.safetynet.dto.firestation.FirestationCreateDTO;
 import com.safetynet.dto.firestation.FirestationResponseDTO;
 import com.safetynet.dto.firestation.FirestationUpdateDTO;
 import com.safetynet.exception.ConflictException;
+import com.safetynet.exception.PreconditionFailedException;
 import com.safetynet.exception.ResourceNotFoundException;
 import com.safetynet.service.FirestationService;
 import org.junit.jupiter.api.AfterEach;
@@ -129,7 +130,8 @@ class FirestationRestControllerTest {
         doNothing()
                 .when(firestationService).updateFirestation(
                         any(FirestationUpdateDTO.class),
-                        eq(theAddress)
+                        eq(theAddress),
+                        isNull()
                 );
 
         mockMvc.perform(put("/firestation/{address}", theAddress)
@@ -150,7 +152,8 @@ class FirestationRestControllerTest {
         doThrow(new ResourceNotFoundException(errorResponse))
                 .when(firestationService).updateFirestation(
                         any(FirestationUpdateDTO.class),
-                        eq(theAddress)
+                        eq(theAddress),
+                        isNull()
                 );
 
         mockMvc.perform(put("/firestation/{address}", theAddress)
@@ -162,23 +165,25 @@ class FirestationRestControllerTest {
     }
 
     @Test
-    void updateFirestation_Conflict_test() throws Exception {
+    void updateFirestation_PreconditionFailed_test() throws Exception {
 
         String theAddress = "123 Main St";
         FirestationUpdateDTO updatedFirestation = new FirestationUpdateDTO(5);
-        String errorResponse = "The firestation with this address is exactly the same as the one you are trying to update";
+        String errorResponse = "Resource changed since it was read";
 
-        doThrow(new ConflictException(errorResponse))
+        doThrow(new PreconditionFailedException(errorResponse))
                 .when(firestationService).updateFirestation(
                         any(FirestationUpdateDTO.class),
-                        eq(theAddress)
+                        eq(theAddress),
+                        eq("\"1-6\"")
                 );
 
         mockMvc.perform(put("/firestation/{address}", theAddress)
+                        .header("If-Match", "\"1-6\"")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updatedFirestation)))
-                .andExpect(status().isConflict())
-                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412))
                 .andExpect(jsonPath("$.message").value(errorResponse));
     }
 
@@ -189,7 +194,7 @@ class FirestationRestControllerTest {
         String successResponse = "Firestation deleted successfully";
 
         doNothing()
-                .when(firestationService).deleteFirestation(theAddress);
+                .when(firestationService).deleteFirestation(theAddress, null);
 
         mockMvc.perform(delete("/firestation/{address}", theAddress))
                 .andExpect(status().isOk())
@@ -203,7 +208,7 @@ class FirestationRestControllerTest {
         String errorResponse = "Resource not found";
 
         doThrow(new ResourceNotFoundException(errorResponse))
-                .when(firestationService).deleteFirestation(theAddress);
+                .when(firestationService).deleteFirestation(theAddress, null);
 
         mockMvc.perform(delete("/firestation/{theAddress}", theAddress))
                 .andExpect(status().isNotFound())
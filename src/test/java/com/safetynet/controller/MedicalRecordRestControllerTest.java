@@ -5,6 +5,7 @@ import com.safetynet.dto.medicalrecord.MedicalRecordCreateDTO;
 import com.safetynet.dto.medicalrecord.MedicalRecordResponseDTO;
 import com.safetynet.dto.medicalrecord.MedicalRecordUpdateDTO;
 import com.safetynet.exception.ConflictException;
+import com.safetynet.exception.PreconditionFailedException;
 import com.safetynet.exception.ResourceNotFoundException;
 import com.safetynet.service.MedicalRecordService;
 import org.junit.jupiter.api.Test;
@@ -158,7 +159,8 @@ class MedicalRecordRestControllerTest {
             .when(medicalRecordService).updateMedicalrecord(
                 any(MedicalRecordUpdateDTO.class),
                 eq(firstName),
-                eq(lastName)
+                eq(lastName),
+                isNull()
             );
 
         mockMvc.perform(put("/medicalRecord/{theFirstName}-{theLastName}", firstName, lastName)
@@ -170,7 +172,7 @@ class MedicalRecordRestControllerTest {
     }
 
     @Test
-    void updateMedicalRecord_Conflict_test() throws Exception {
+    void updateMedicalRecord_PreconditionFailed_test() throws Exception {
         String firstName = "John";
         String lastName = "Boyd";
         MedicalRecordUpdateDTO updatedMedicalRecord = new MedicalRecordUpdateDTO(
@@ -178,20 +180,22 @@ class MedicalRecordRestControllerTest {
                 List.of("aznol:350mg", "hydrapermazol:100mg"),
                 List.of("nillacilan")
         );
-        String errorResponse = "The medical record for this patient is exactly the same as the one you are trying to update";
+        String errorResponse = "Resource changed since it was read";
 
-        doThrow(new ConflictException(errorResponse))
+        doThrow(new PreconditionFailedException(errorResponse))
                 .when(medicalRecordService).updateMedicalrecord(
                         any(MedicalRecordUpdateDTO.class),
                         eq(firstName),
-                        eq(lastName)
+                        eq(lastName),
+                        eq("\"1-6\"")
                 );
 
         mockMvc.perform(put("/medicalRecord/{theFirstName}-{theLastName}", firstName, lastName)
+                        .header("If-Match", "\"1-6\"")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updatedMedicalRecord)))
-                .andExpect(status().isConflict())
-                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412))
                 .andExpect(jsonPath("$.message").value(errorResponse));
     }
 
@@ -210,7 +214,8 @@ class MedicalRecordRestControllerTest {
             .when(medicalRecordService).updateMedicalrecord(
                 any(MedicalRecordUpdateDTO.class),
                 eq(firstName),
-                eq(lastName)
+                eq(lastName),
+                isNull()
             );
 
         mockMvc.perform(put("/medicalRecord/{theFirstName}-{theLastName}", firstName, lastName)
@@ -228,7 +233,7 @@ class MedicalRecordRestControllerTest {
         String successResponse = "Medical record deleted successfully";
 
         doNothing()
-            .when(medicalRecordService).deleteMedicalrecord(firstName, lastName);
+            .when(medicalRecordService).deleteMedicalrecord(firstName, lastName, null);
 
         mockMvc.perform(delete("/medicalRecord/{theFirstName}-{theLastName}", firstName, lastName))
             .andExpect(status().isOk())
@@ -243,7 +248,7 @@ class MedicalRecordRestControllerTest {
         String errorResponse = "Resource not found";
 
         doThrow(new ResourceNotFoundException(errorResponse))
-            .when(medicalRecordService).deleteMedicalrecord(firstName, lastName);
+            .when(medicalRecordService).deleteMedicalrecord(firstName, lastName, null);
 
         mockMvc.perform(delete("/medicalRecord/{theFirstName}-{theLastName}", firstName, lastName))
             .andExpect(status().isNotFound())
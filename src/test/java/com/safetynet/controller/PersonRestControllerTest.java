@@ -5,6 +5,7 @@ import com.safetynet.dto.person.PersonCreateDTO;
 import com.safetynet.dto.person.PersonResponseDTO;
 import com.safetynet.dto.person.PersonUpdateDTO;
 import com.safetynet.exception.ConflictException;
+import com.safetynet.exception.PreconditionFailedException;
 import com.safetynet.exception.ResourceNotFoundException;
 import com.safetynet.service.PersonService;
 import org.junit.jupiter.api.Test;
@@ -19,6 +20,7 @@ import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -65,11 +67,14 @@ class PersonRestControllerTest {
             "12345"
         );
 
+        when(personService.getPersonTag(firstName, lastName))
+            .thenReturn("\"1-7\"");
         when(personService.findPersonByFirstNameAndLastName(firstName, lastName))
             .thenReturn(person);
 
         mockMvc.perform(get("/person/{theFirstName}-{theLastName}", firstName, lastName))
             .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"1-7\""))
             .andExpect(jsonPath("$.firstName").value(firstName))
             .andExpect(jsonPath("$.lastName").value(lastName));
     }
@@ -154,7 +159,8 @@ class PersonRestControllerTest {
             .when(personService).updatePerson(
                     any(PersonUpdateDTO.class),
                     eq(firstName),
-                    eq(lastName)
+                    eq(lastName),
+                    isNull()
             );
 
         mockMvc.perform(put("/person/{theFirstName}-{theLastName}", firstName, lastName)
@@ -166,31 +172,32 @@ class PersonRestControllerTest {
     }
 
     @Test
-    void updatePerson_Conflict_test() throws Exception {
+    void updatePerson_PreconditionFailed_test() throws Exception {
         String firstName = "John";
         String lastName = "Boyd";
         PersonUpdateDTO updatedPerson = new PersonUpdateDTO(
-            "789 Boulevard",
-            "City2",
-            "67890",
-            "987-654-3210",
-            "john.boyd@example.com"
+            "1509 Culver St",
+            "Culver",
+            "97451",
+            "841-874-6512",
+            "jaboyd@email.com"
         );
-        String errorResponse = "The person with this name is exactly the same as the one you are trying to update";
 
-        doThrow(new ConflictException(errorResponse))
+        doThrow(new PreconditionFailedException("Resource changed since it was read"))
             .when(personService).updatePerson(
                 any(PersonUpdateDTO.class),
                 eq(firstName),
-                eq(lastName)
+                eq(lastName),
+                eq("\"1-6\"")
             );
 
         mockMvc.perform(put("/person/{theFirstName}-{theLastName}", firstName, lastName)
+                .header("If-Match", "\"1-6\"")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(updatedPerson)))
-            .andExpect(status().isConflict())
-            .andExpect(jsonPath("$.status").value(409))
-            .andExpect(jsonPath("$.message").value(errorResponse));
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.status").value(412))
+            .andExpect(jsonPath("$.message").value("Resource changed since it was read"));
     }
 
     @Test
@@ -210,7 +217,8 @@ class PersonRestControllerTest {
             .when(personService).updatePerson(
                 any(PersonUpdateDTO.class),
                 eq(firstName),
-                eq(lastName)
+                eq(lastName),
+                isNull()
             );
 
         mockMvc.perform(put("/person/{theFirstName}-{theLastName}", firstName, lastName)
@@ -228,7 +236,7 @@ class PersonRestControllerTest {
         String successResponse = "Person deleted successfully";
 
         doNothing()
-            .when(personService).deletePerson(firstName, lastName);
+            .when(personService).deletePerson(firstName, lastName, null);
 
         mockMvc.perform(delete("/person/{theFirstName}-{theLastName}", firstName, lastName))
             .andExpect(status().isOk())
@@ -243,7 +251,7 @@ class PersonRestControllerTest {
         String errorResponse = "Resource not found";
 
         doThrow(new ResourceNotFoundException(errorResponse))
-            .when(personService).deletePerson(firstName, lastName);
+            .when(personService).deletePerson(firstName, lastName, null);
 
         mockMvc.perform(delete("/person/{theFirstName}-{theLastName}", firstName, lastName))
             .andExpect(status().isNotFound())
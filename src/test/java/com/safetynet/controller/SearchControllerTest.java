@@ -75,6 +75,19 @@ public class SearchControllerTest {
                 .andExpect(jsonPath("$.phones[0]").value("123-456-7890"));
     }
 
+    @Test
+    public void getPhonesByStation_whenNotModified_test() throws Exception {
+
+        when(searchService.getPhonesTag()).thenReturn("\"1-4.2\"");
+
+        mockMvc.perform(get("/phoneAlert").param("stationNumber", "1").header("If-None-Match", "\"1-4.2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-4.2\""))
+                .andExpect(content().string(""));
+
+        verify(searchService, never()).getPhonesByStation(anyInt());
+    }
+
     @Test
     public void getPersonsByAddressStation_test() throws Exception {
 
@@ -119,14 +132,49 @@ public class SearchControllerTest {
                         List.of("Lisinopril"),
                         List.of("Dust", "Pollen")
                 )
-        ));
-        when(searchService.getPersonByLastNameWithMedicalRecord("Smith")).thenReturn(response);
+        ), 0, 100, false);
+        when(searchService.getPersonByLastNameWithMedicalRecord("Smith", 0, 100)).thenReturn(response);
 
         mockMvc.perform(get("/personInfoLastName={lastName}", "Smith"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.persons[0].lastName").value("Smith"));
     }
 
+    @Test
+    public void getPersonsByLastNamePrefix_test() throws Exception {
+
+        PersonsInfoLastNameResponseDTO response = new PersonsInfoLastNameResponseDTO(List.of(
+                new PersonForPersonsInfoLastNameResponseDTO(
+                        "Smith",
+                        "456 Oak St",
+                        34,
+                        "john.smith@example.com",
+                        List.of(),
+                        List.of()
+                )
+        ), 1, 1, true);
+        when(searchService.getPersonsByLastNamePrefix("Sm", 1, 1)).thenReturn(response);
+
+        mockMvc.perform(get("/personInfoLastName/prefix").param("prefix", "Sm").param("page", "1").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.persons[0].lastName").value("Smith"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    @Test
+    public void getPersonsByLastNamePrefix_whenThePageIsOutOfRange_test() throws Exception {
+
+        mockMvc.perform(get("/personInfoLastName/prefix").param("prefix", "Sm").param("page", "-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The page must be 0 or more"));
+        mockMvc.perform(get("/personInfoLastName/range").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/personInfoLastName=Smith").param("size", String.valueOf(SearchService.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The page size must be between 1 and " + SearchService.MAX_PAGE_SIZE));
+        verifyNoInteractions(searchService);
+    }
+
     @Test
     public void getEmailsByCity_test() throws Exception {
 
@@ -13,9 +13,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -28,20 +26,15 @@ class FirestationIT {
     @Autowired
     protected MockMvc mockMvc;
 
+    @Autowired
+    private DataRepository dataRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() throws Exception {
-        Path testFile = Path.of("src/test/resources/data-test.json");
-        Path tempFile = Path.of("src/test/resources/data-test-temp.json");
-
-        Files.copy(testFile, tempFile, StandardCopyOption.REPLACE_EXISTING);
-
-        DataRepository dataRepository = new DataRepository();
-        DataRepository.FILE_PATH = tempFile.toString();
-
-        dataRepository.init();
+        dataRepository.reset(Path.of("src/test/resources/data-test.json"));
     }
 
     @Test
@@ -139,16 +132,16 @@ class FirestationIT {
     }
 
     @Test
-    void updateFirestation_shouldReturnConflict() throws Exception {
+    void updateFirestation_whenUnchanged_shouldReturnOk() throws Exception {
         String address = "29 15th St";
         FirestationUpdateDTO alreadyExistDTO = new FirestationUpdateDTO(2); // No change in station number
 
         mockMvc.perform(put("/firestation/{address}", address)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(alreadyExistDTO)))
-                .andExpect(status().isConflict())
-                .andExpect(jsonPath("$.status").value(409))
-                .andExpect(jsonPath("$.message").value("The firestation with this address is exactly the same as the one you are trying to update"));
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.message").value("Firestation updated successfully"));
     }
 
     @Test
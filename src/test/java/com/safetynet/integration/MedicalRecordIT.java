@@ -14,9 +14,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 import static org.hamcrest.Matchers.containsString;
@@ -31,20 +29,15 @@ class MedicalRecordIT {
     @Autowired
     protected MockMvc mockMvc;
 
+    @Autowired
+    private DataRepository dataRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() throws Exception {
-        Path testFile = Path.of("src/test/resources/data-test.json");
-        Path tempFile = Path.of("src/test/resources/data-test-temp.json");
-
-        Files.copy(testFile, tempFile, StandardCopyOption.REPLACE_EXISTING);
-
-        DataRepository dataRepository = new DataRepository();
-        DataRepository.FILE_PATH = tempFile.toString();
-
-        dataRepository.init();
+        dataRepository.reset(Path.of("src/test/resources/data-test.json"));
     }
 
     @Test
@@ -130,6 +123,27 @@ class MedicalRecordIT {
                 .andExpect(jsonPath("$.message", containsString("Birthdate must be in the format MM/dd/yyyy")));
     }
 
+    @Test
+    void addMedicalRecord_whenTheBirthdateIsNotADate_shouldReturnBadRequest() throws Exception {
+        MedicalRecordCreateDTO invalidMedicalRecord = new MedicalRecordCreateDTO(
+                "Alice",
+                "Smith",
+                "13/45/2000",
+                List.of("Medication1"),
+                List.of("Allergy1")
+        );
+
+        mockMvc.perform(post("/medicalRecord")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(invalidMedicalRecord)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.message").value("Birthdate must be a valid date in the format MM/dd/yyyy"));
+
+        mockMvc.perform(get("/medicalRecord/{firstName}-{lastName}", "Alice", "Smith"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void updateMedicalRecord_shouldReturnOk() throws Exception {
         MedicalRecordUpdateDTO updateDTO = new MedicalRecordUpdateDTO(
@@ -163,7 +177,7 @@ class MedicalRecordIT {
     }
 
     @Test
-    void updateMedicalRecord_shouldReturnConflict() throws Exception {
+    void updateMedicalRecord_whenUnchanged_shouldReturnOk() throws Exception {
         MedicalRecordUpdateDTO updateDTO = new MedicalRecordUpdateDTO(
                 "09/06/2017",
                 List.of(),
@@ -173,9 +187,9 @@ class MedicalRecordIT {
         mockMvc.perform(put("/medicalRecord/{firstName}-{lastName}", "Roger", "Boyd")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updateDTO)))
-                .andExpect(status().isConflict())
-                .andExpect(jsonPath("$.status").value(409))
-                .andExpect(jsonPath("$.message").value("The medicalRecord with this name is exactly the same as the one you are trying to update"));
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.message").value("Medical record updated successfully"));
     }
 
     @Test
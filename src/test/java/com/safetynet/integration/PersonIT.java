@@ -12,12 +12,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -28,20 +27,15 @@ class PersonIT {
     @Autowired
     protected MockMvc mockMvc;
 
+    @Autowired
+    private DataRepository dataRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() throws Exception {
-        Path testFile = Path.of("src/test/resources/data-test.json");
-        Path tempFile = Path.of("src/test/resources/data-test-temp.json");
-
-        Files.copy(testFile, tempFile, StandardCopyOption.REPLACE_EXISTING);
-
-        DataRepository dataRepository = new DataRepository();
-        DataRepository.FILE_PATH = tempFile.toString();
-
-        dataRepository.init();
+        dataRepository.reset(Path.of("src/test/resources/data-test.json"));
     }
 
     @Test
@@ -154,7 +148,7 @@ class PersonIT {
     }
 
     @Test
-    void updatePerson_shouldReturnConflict() throws Exception {
+    void updatePerson_whenUnchanged_shouldReturnOk() throws Exception {
         PersonUpdateDTO updateDTO = new PersonUpdateDTO(
                 "947 E. Rose Dr", "Culver", "97451", "841-874-7784", "bstel@email.com"
         );
@@ -162,9 +156,27 @@ class PersonIT {
         mockMvc.perform(put("/person/{firstName}-{lastName}", "Kendrik", "Stelzer")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updateDTO)))
-                .andExpect(status().isConflict())
-                .andExpect(jsonPath("$.status").value(409))
-                .andExpect(jsonPath("$.message").value("The person with this name is exactly the same as the one you are trying to update"));
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.message").value("Person updated successfully"));
+    }
+
+    @Test
+    void updatePerson_whenChangedSinceRead_shouldReturnPreconditionFailed() throws Exception {
+        String tag = mockMvc.perform(get("/person/{firstName}-{lastName}", "Foster", "Shepard"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        PersonUpdateDTO updateDTO = new PersonUpdateDTO(
+                "Updated St", "Updated City", "12345", "999-999-9999", "updated.email@example.com"
+        );
+
+        mockMvc.perform(put("/person/{firstName}-{lastName}", "Foster", "Shepard")
+                        .header("If-Match", tag + "-stale")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateDTO)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
     }
 
     @Test
@@ -8,9 +8,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -22,17 +20,12 @@ public class SearchIT {
     @Autowired
     protected MockMvc mockMvc;
 
+    @Autowired
+    private DataRepository dataRepository;
+
     @BeforeEach
     void setUp() throws Exception {
-        Path testFile = Path.of("src/test/resources/data-test.json");
-        Path tempFile = Path.of("src/test/resources/data-test-temp.json");
-
-        Files.copy(testFile, tempFile, StandardCopyOption.REPLACE_EXISTING);
-
-        DataRepository dataRepository = new DataRepository();
-        DataRepository.FILE_PATH = tempFile.toString();
-
-        dataRepository.init();
+        dataRepository.reset(Path.of("src/test/resources/data-test.json"));
     }
 
     @Test
@@ -56,6 +49,19 @@ public class SearchIT {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void getPhonesByStation_whenNotModified_test() throws Exception {
+        String tag = mockMvc.perform(get("/phoneAlert")
+                        .param("stationNumber", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/phoneAlert")
+                        .param("stationNumber", "1")
+                        .header("If-None-Match", tag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     public void getPersonsByAddressStation_test() throws Exception {
         mockMvc.perform(get("/fire")
@@ -77,10 +83,33 @@ public class SearchIT {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void getPersonsByLastNamePrefix_test() throws Exception {
+        mockMvc.perform(get("/personInfoLastName/prefix")
+                        .param("prefix", "Bo")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.persons.length()").value(2))
+                .andExpect(jsonPath("$.persons[0].lastName").value("Boyd"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
     @Test
     public void getEmailsByCity_test() throws Exception {
         mockMvc.perform(get("/communityEmail")
                         .param("city", "Culver"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    public void cacheMetrics_test() throws Exception {
+        mockMvc.perform(get("/fire")
+                        .param("address", "1509 Culver St"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/metrics/cache.gets")
+                        .param("tag", "cache:search"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").isNumber());
+    }
 }
@@ -0,0 +1,71 @@
+package com.safetynet.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.model.Firestation;
+import com.safetynet.model.MedicalRecord;
+import com.safetynet.model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTest {
+
+    private static final FileFingerprint SOURCE = new FileFingerprint(1234, 1_700_000_000_000L);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void read_ShouldReturnTheWrittenDataset_test() throws Exception {
+        Dataset dataset = new JsonDataFile(new ObjectMapper()).read(Path.of("src/test/resources/data-test.json"));
+        dataset.getPersons().add(new Person("Zoé", null, "1 Rue ✓", "Culver", -1, "841-874-0000", "zoe@email.com"));
+        dataset.getMedicalRecords().add(new MedicalRecord("Zoé", null, "01/01/2000", null, List.of()));
+        dataset.getFirestations().add(new Firestation("1 Rue ✓", 42));
+        dataset.setJournalSequence(17);
+
+        BinarySnapshot snapshot = new BinarySnapshot(directory.resolve("data.json.bin"));
+        snapshot.write(dataset, SOURCE);
+        Dataset readBack = snapshot.read(SOURCE);
+
+        assertEquals(dataset.getPersons(), readBack.getPersons());
+        assertEquals(dataset.getFirestations(), readBack.getFirestations());
+        assertEquals(dataset.getMedicalRecords(), readBack.getMedicalRecords());
+        assertEquals(17, readBack.getJournalSequence());
+    }
+
+    @Test
+    void read_ShouldReturnNull_WhenMissingOrStale_test() throws Exception {
+        BinarySnapshot snapshot = new BinarySnapshot(directory.resolve("data.json.bin"));
+        assertNull(snapshot.read(SOURCE));
+
+        snapshot.write(new Dataset(), SOURCE);
+
+        assertNull(snapshot.read(new FileFingerprint(SOURCE.size(), SOURCE.lastModified() + 1)));
+        assertNull(snapshot.read(new FileFingerprint(SOURCE.size() + 1, SOURCE.lastModified())));
+        assertNotNull(snapshot.read(SOURCE));
+    }
+
+    @Test
+    void read_ShouldThrowException_WhenCorrupted_test() throws Exception {
+        Path file = directory.resolve("data.json.bin");
+        BinarySnapshot snapshot = new BinarySnapshot(file);
+        Dataset dataset = new Dataset();
+        dataset.getFirestations().add(new Firestation("1509 Culver St", 3));
+        snapshot.write(dataset, SOURCE);
+
+        byte[] content = Files.readAllBytes(file);
+        // A byte of the dictionary, right after the header
+        content[34] ^= 0x55;
+        Files.write(file, content);
+        assertThrows(IOException.class, () -> snapshot.read(SOURCE));
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> snapshot.read(SOURCE));
+    }
+}
@@ -0,0 +1,61 @@
+package com.safetynet.repository;
+
+import com.safetynet.model.Firestation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataFileWatcherTest {
+
+    private static final String DATA_FILE = "src/test/resources/data-test-temp.json";
+
+    private DataRepository dataRepository;
+    private DataFileWatcher dataFileWatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path testFile = Path.of("src/test/resources/data-test.json");
+        Path tempFile = Path.of(DATA_FILE);
+
+        Files.copy(testFile, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(Path.of(tempFile + ".journal"));
+        Files.deleteIfExists(Path.of(tempFile + ".bin"));
+
+        dataRepository = new DataRepository();
+        ReflectionTestUtils.setField(dataRepository, "dataFile", DATA_FILE);
+        dataRepository.init();
+
+        dataFileWatcher = new DataFileWatcher(dataRepository, DATA_FILE, Duration.ofMillis(100));
+        dataFileWatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dataFileWatcher.stop();
+        dataRepository.close();
+    }
+
+    @Test
+    void watcher_ShouldReloadTheDataFile_WhenItIsReplaced_test() throws Exception {
+        String content = Files.readString(Path.of(DATA_FILE));
+        Path newFile = Path.of(DATA_FILE + ".new");
+        Files.writeString(newFile, content.replace("\"1509 Culver St\"", "\"1509 Culver Street\""));
+        Files.move(newFile, Path.of(DATA_FILE), StandardCopyOption.REPLACE_EXISTING);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!dataRepository.getFirestations().contains(new Firestation("1509 Culver Street", 3))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(dataRepository.getFirestations().contains(new Firestation("1509 Culver Street", 3)));
+    }
+}
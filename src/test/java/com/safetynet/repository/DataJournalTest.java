@@ -0,0 +1,55 @@
+package com.safetynet.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private static Mutation mutation(String address) {
+        return new Mutation(0, Mutation.Type.DELETE, DataSection.FIRESTATIONS, List.of(address), null);
+    }
+
+    @Test
+    void appendAll_whenTheSyncFails_shouldNotReplayTheFailedBatch() throws Exception {
+        Path file = directory.resolve("data.json.journal");
+        boolean[] failSync = {true};
+        DataJournal journal = new DataJournal(file, new ObjectMapper(), new DurabilityStats()) {
+            @Override
+            void force() throws IOException {
+                if (failSync[0]) {
+                    throw new IOException("Sync failed");
+                }
+                super.force();
+            }
+        };
+        journal.replay(0, mutation -> fail("The journal is empty"));
+
+        assertThrows(IOException.class, () -> journal.appendAll(List.of(mutation("rejected"))));
+        assertEquals(0, journal.getLastSequence());
+        assertEquals(0, journal.getSize());
+
+        failSync[0] = false;
+        journal.appendAll(List.of(mutation("committed")));
+        journal.close();
+
+        List<Mutation> replayed = new ArrayList<>();
+        DataJournal restarted = new DataJournal(file, new ObjectMapper(), new DurabilityStats());
+        restarted.replay(0, replayed::add);
+        restarted.close();
+
+        assertEquals(1, replayed.size());
+        assertEquals(List.of("committed"), replayed.getFirst().getKey());
+        assertEquals(1, replayed.getFirst().getSequence());
+    }
+}
@@ -3,13 +3,17 @@ package com.safetynet.repository;
 import com.safetynet.model.Firestation;
 import com.safetynet.model.MedicalRecord;
 import com.safetynet.model.Person;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,21 +21,36 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 class DataRepositoryTest {
 
+    private static final String DATA_FILE = "src/test/resources/data-test-temp.json";
+
     private static DataRepository dataRepository;
 
     @BeforeEach
     void setUp() throws Exception {
         Path testFile = Path.of("src/test/resources/data-test.json");
-        Path tempFile = Path.of("src/test/resources/data-test-temp.json");
+        Path tempFile = Path.of(DATA_FILE);
 
         Files.copy(testFile, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(Path.of(tempFile + ".journal"));
+        Files.deleteIfExists(Path.of(tempFile + ".journal.compacting"));
+        Files.deleteIfExists(Path.of(tempFile + ".bak"));
+        Files.deleteIfExists(Path.of(tempFile + ".bin"));
 
-        dataRepository = new DataRepository();
-        DataRepository.FILE_PATH = tempFile.toString();
-
+        dataRepository = newRepository(DATA_FILE);
         dataRepository.init();
     }
 
+    @AfterEach
+    void tearDown() throws Exception {
+        dataRepository.close();
+    }
+
+    private static DataRepository newRepository(String dataFile) {
+        DataRepository repository = new DataRepository();
+        ReflectionTestUtils.setField(repository, "dataFile", dataFile);
+        return repository;
+    }
+
     @Test
     void init_ShouldLoadDataCorrectly_test() {
 
@@ -47,46 +66,28 @@ class DataRepositoryTest {
     @Test
     void init_ShouldThrowException_WhenFileNotFound_test() {
 
-        DataRepository invalidRepository = new DataRepository();
-        DataRepository.FILE_PATH = "src/test/resources/missing-file.json";
+        DataRepository invalidRepository = newRepository("src/test/resources/missing-file.json");
 
         Exception exception = assertThrows(RuntimeException.class, invalidRepository::init);
         assertTrue(exception.getMessage().contains("Failed to load JSON file"));
     }
 
     @Test
-    void readData_ShouldReturnEmptyList_WhenNodeDoesNotExist_test() {
-        String nonExistentNode = "nonExistentNode";
+    void init_ShouldLoadTheSameData_WhenTheSectionsAreLoadedInParallel_test() {
 
-        List<?> result = dataRepository.readData(nonExistentNode, Object.class);
+        DataRepository parallelRepository = newRepository(DATA_FILE);
+        ReflectionTestUtils.setField(parallelRepository, "parallelLoad", true);
+        parallelRepository.init();
 
-        assertTrue(result.isEmpty());
+        assertEquals(dataRepository.getPersons(), parallelRepository.getPersons());
+        assertEquals(dataRepository.getFirestations(), parallelRepository.getFirestations());
+        assertEquals(dataRepository.getMedicalRecords(), parallelRepository.getMedicalRecords());
     }
 
     @Test
-    void readData_ShouldReadPersonsDataCorrectly_test() {
+    void add_ShouldBeReplayedFromTheJournal_test() {
 
-        List<Person> persons = dataRepository.readData("persons", Person.class);
-
-        assertEquals(23, persons.size());
-
-        assertNotNull(persons);
-        for (Person person : persons) {
-            assertNotNull(person.getFirstName());
-            assertNotNull(person.getLastName());
-            assertNotNull(person.getAddress());
-            assertNotNull(person.getCity());
-            assertTrue(person.getZip() > 0);
-            assertNotNull(person.getPhone());
-            assertNotNull(person.getEmail());
-        }
-    }
-
-    @Test
-    void writeData_ShouldWriteDataCorrectly_test() {
-
-        List<Person> persons = dataRepository.getPersons();
-        int initPersonsCount = persons.size();
+        int initPersonsCount = dataRepository.getPersons().size();
 
         Person newPerson = new Person(
                 "John",
@@ -97,12 +98,193 @@ class DataRepositoryTest {
                 "555-123-4567",
                 "johndoe@email.com"
         );
-        persons.add(newPerson);
+        dataRepository.add(DataSection.PERSONS, newPerson);
+
+        assertTrue(dataRepository.getPersons().contains(newPerson));
+
+        DataRepository restartedRepository = newRepository(DATA_FILE);
+        restartedRepository.init();
+
+        assertEquals(initPersonsCount + 1, restartedRepository.getPersons().size());
+        assertTrue(restartedRepository.getPersons().contains(newPerson));
+    }
+
+    @Test
+    void updateAndDelete_ShouldBeReplayedFromTheJournal_test() {
+
+        Firestation updatedFirestation = new Firestation("1509 Culver St", 9);
+        dataRepository.update(DataSection.FIRESTATIONS, updatedFirestation);
+        assertTrue(dataRepository.delete(DataSection.PERSONS, List.of("John", "Boyd")));
+        assertFalse(dataRepository.delete(DataSection.PERSONS, List.of("Unknown", "Person")));
+
+        DataRepository restartedRepository = newRepository(DATA_FILE);
+        restartedRepository.init();
+
+        assertTrue(restartedRepository.getFirestations().contains(updatedFirestation));
+        assertTrue(restartedRepository.getPersons().stream()
+                .noneMatch(person -> person.getFirstName().equals("John") && person.getLastName().equals("Boyd")));
+    }
+
+    @Test
+    void init_ShouldIgnoreATornJournalRecord_test() throws Exception {
+
+        dataRepository.add(DataSection.FIRESTATIONS, new Firestation("1 New St", 5));
+        Files.writeString(Path.of(DATA_FILE + ".journal"), "{\"sequence\":2,\"type\":\"AD", StandardOpenOption.APPEND);
+
+        DataRepository restartedRepository = newRepository(DATA_FILE);
+        restartedRepository.init();
+        restartedRepository.add(DataSection.FIRESTATIONS, new Firestation("2 New St", 6));
+
+        DataRepository secondRestart = newRepository(DATA_FILE);
+        secondRestart.init();
+
+        assertTrue(secondRestart.getFirestations().contains(new Firestation("1 New St", 5)));
+        assertTrue(secondRestart.getFirestations().contains(new Firestation("2 New St", 6)));
+    }
+
+    @Test
+    void compact_ShouldFoldTheJournalIntoTheDataFile_test() throws Exception {
+
+        Person newPerson = new Person("Compact", "Me", "1 Snapshot St", "Culver", 97451, "841-874-0000", "compact@email.com");
+        dataRepository.add(DataSection.PERSONS, newPerson);
+        assertTrue(dataRepository.getJournalSize() > 0);
+
+        dataRepository.compact();
+
+        assertEquals(0, dataRepository.getJournalSize());
+        assertFalse(Files.exists(Path.of(DATA_FILE + ".journal.compacting")));
+        assertTrue(Files.readString(Path.of(DATA_FILE)).contains("compact@email.com"));
+
+        // The folded mutation is not replayed a second time, and the sequence keeps growing after a restart
+        DataRepository restartedRepository = newRepository(DATA_FILE);
+        restartedRepository.init();
+        assertEquals(1, restartedRepository.getPersons().stream().filter(newPerson::equals).count());
+
+        restartedRepository.delete(DataSection.PERSONS, List.of("Compact", "Me"));
+        DataRepository secondRestart = newRepository(DATA_FILE);
+        secondRestart.init();
+        assertFalse(secondRestart.getPersons().contains(newPerson));
+    }
+
+    @Test
+    void init_ShouldRecoverFromTheBackup_WhenTheDataFileIsTruncated_test() throws Exception {
+
+        dataRepository.add(DataSection.FIRESTATIONS, new Firestation("1 Backup St", 7));
+        dataRepository.compact();
+        int firestationsCount = dataRepository.getFirestations().size();
+
+        Path dataFile = Path.of(DATA_FILE);
+        String content = Files.readString(dataFile);
+        Files.writeString(dataFile, content.substring(0, content.length() / 2));
+
+        DataRepository restartedRepository = newRepository(DATA_FILE);
+        restartedRepository.init();
+
+        // The previous version is loaded : only the mutation folded by the last compaction is missing
+        assertEquals(firestationsCount - 1, restartedRepository.getFirestations().size());
+        assertTrue(Files.exists(Path.of(DATA_FILE + ".corrupt")));
+        Files.delete(Path.of(DATA_FILE + ".corrupt"));
+    }
+
+    @Test
+    void init_ShouldLoadTheBinarySnapshot_WhenTheDataFileIsUnchanged_test() throws Exception {
+
+        dataRepository.add(DataSection.FIRESTATIONS, new Firestation("1 Binary St", 8));
+        dataRepository.compact();
+        assertTrue(Files.exists(Path.of(DATA_FILE + ".bin")));
+
+        // Same size and modification time : the data file is not read at all
+        Path dataFile = Path.of(DATA_FILE);
+        FileTime lastModified = Files.getLastModifiedTime(dataFile);
+        Files.writeString(dataFile, " ".repeat((int) Files.size(dataFile)));
+        Files.setLastModifiedTime(dataFile, lastModified);
+
+        DataRepository restartedRepository = newRepository(DATA_FILE);
+        restartedRepository.init();
+
+        assertEquals(dataRepository.getPersons(), restartedRepository.getPersons());
+        assertEquals(dataRepository.getMedicalRecords(), restartedRepository.getMedicalRecords());
+        assertTrue(restartedRepository.getFirestations().contains(new Firestation("1 Binary St", 8)));
+    }
+
+    @Test
+    void init_ShouldIgnoreTheBinarySnapshot_WhenTheDataFileChanged_test() throws Exception {
+
+        Path dataFile = Path.of(DATA_FILE);
+        String content = Files.readString(dataFile);
+        Files.writeString(dataFile, content.replace("\"1509 Culver St\"", "\"1509 Culver Street\""));
+
+        DataRepository restartedRepository = newRepository(DATA_FILE);
+        restartedRepository.init();
+
+        assertTrue(restartedRepository.getPersons().stream().anyMatch(person -> person.getAddress().equals("1509 Culver Street")));
+    }
+
+    @Test
+    void reloadIfChanged_ShouldSwapTheDataset_WhenTheDataFileIsReplaced_test() throws Exception {
+
+        dataRepository.add(DataSection.FIRESTATIONS, new Firestation("1 Journal St", 5));
+        List<Firestation> firestationsBeforeReload = dataRepository.getFirestations();
+        assertFalse(dataRepository.reloadIfChanged());
+
+        Path dataFile = Path.of(DATA_FILE);
+        String content = Files.readString(Path.of("src/test/resources/data-test.json"));
+        Files.writeString(dataFile, content.replace("\"1509 Culver St\"", "\"1509 Culver Street\""));
+
+        assertTrue(dataRepository.reloadIfChanged());
+
+        // The readers of the previous version keep an intact copy
+        assertTrue(firestationsBeforeReload.contains(new Firestation("1 Journal St", 5)));
+        assertFalse(dataRepository.getFirestations().contains(new Firestation("1 Journal St", 5)));
+        assertTrue(dataRepository.getFirestations().contains(new Firestation("1509 Culver Street", 3)));
+        assertFalse(dataRepository.reloadIfChanged());
+
+        // The journal written before the reload is superseded, the one written after is replayed on top of the new file
+        dataRepository.add(DataSection.FIRESTATIONS, new Firestation("2 Journal St", 6));
+        DataRepository restartedRepository = newRepository(DATA_FILE);
+        restartedRepository.init();
+
+        assertFalse(restartedRepository.getFirestations().contains(new Firestation("1 Journal St", 5)));
+        assertTrue(restartedRepository.getFirestations().contains(new Firestation("2 Journal St", 6)));
+        assertTrue(restartedRepository.getFirestations().contains(new Firestation("1509 Culver Street", 3)));
+    }
+
+    @Test
+    void reloadIfChanged_ShouldKeepTheData_WhenTheNewFileIsInvalid_test() throws Exception {
+
+        int personsCount = dataRepository.getPersons().size();
+        Files.writeString(Path.of(DATA_FILE), "{ \"persons\": [");
+
+        assertTrue(dataRepository.reloadIfChanged());
+        assertEquals(personsCount, dataRepository.getPersons().size());
+    }
+
+    @Test
+    void reset_ShouldDropTheMutations_AndKeepTheVersionGrowing_test() throws Exception {
+
+        dataRepository.add(DataSection.FIRESTATIONS, new Firestation("1 Reset St", 5));
+        long version = dataRepository.getDataset().getVersion();
+
+        dataRepository.reset(Path.of("src/test/resources/data-test.json"));
+
+        assertFalse(dataRepository.getFirestations().contains(new Firestation("1 Reset St", 5)));
+        assertTrue(dataRepository.getDataset().getVersion() > version);
+        assertEquals(0, dataRepository.getJournalSize());
+
+        DataRepository restartedRepository = newRepository(DATA_FILE);
+        restartedRepository.init();
+        assertFalse(restartedRepository.getFirestations().contains(new Firestation("1 Reset St", 5)));
+        restartedRepository.close();
+    }
+
+    @Test
+    void compact_ShouldNotReload_ItsOwnSnapshot_test() {
 
-        dataRepository.writeData("persons", persons);
+        dataRepository.add(DataSection.FIRESTATIONS, new Firestation("1 Compact St", 5));
+        dataRepository.compact();
 
-        assertTrue(persons.contains(newPerson));
-        assertEquals(initPersonsCount + 1, dataRepository.getPersons().size());
+        assertFalse(dataRepository.reloadIfChanged());
+        assertTrue(dataRepository.getFirestations().contains(new Firestation("1 Compact St", 5)));
     }
 
-}
\ No newline at end of file
+}
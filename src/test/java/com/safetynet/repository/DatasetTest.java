@@ -0,0 +1,391 @@
+package com.safetynet.repository;
+
+import com.safetynet.model.Firestation;
+import com.safetynet.model.MedicalRecord;
+import com.safetynet.model.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetTest {
+
+    private Dataset dataset;
+
+    @BeforeEach
+    void setUp() {
+        List<Person> persons = new ArrayList<>();
+        persons.add(new Person("John", "Doe", "123 Main St", "Springfield", 12345, "555-555-5555", "john.doe@email.com"));
+        persons.add(new Person("Jane", "Doe", "456 Elm St", "Shelbyville", 67890, "555-555-5556", "jane.doe@email.com"));
+        persons.add(new Person("Jack", "Smith", "123 Main St", "Springfield", 12345, "555-555-5557", "jack.smith@email.com"));
+
+        List<MedicalRecord> medicalRecords = new ArrayList<>();
+        medicalRecords.add(new MedicalRecord("John", "Doe", "01/01/1990", List.of("Aspirin"), List.of("Peanuts")));
+
+        List<Firestation> firestations = new ArrayList<>();
+        firestations.add(new Firestation("123 Main St", 1));
+        firestations.add(new Firestation("456 Elm St", 1));
+        firestations.add(new Firestation("456 Elm St", 2));
+        firestations.add(new Firestation("123 Main St", 1));
+
+        dataset = new Dataset(persons, firestations, medicalRecords, 0);
+    }
+
+    @Test
+    void findPerson_ShouldFindByFirstNameAndLastName_test() {
+        assertEquals("456 Elm St", dataset.findPerson("Jane", "Doe").getAddress());
+        assertNull(dataset.findPerson("Jane", "Smith"));
+        assertEquals("01/01/1990", dataset.findMedicalRecord("John", "Doe").getBirthdate());
+        assertNull(dataset.findMedicalRecord("Jane", "Doe"));
+    }
+
+    @Test
+    void keys_WithANullComponent_ShouldBeRejected_test() {
+        Person unnamed = new Person(null, "Doe", "123 Main St", "Springfield", 12345, "555-555-5555", "doe@email.com");
+
+        assertThrows(IllegalArgumentException.class, () -> DataSection.PERSONS.keyOf(unnamed));
+        assertThrows(IllegalArgumentException.class, () -> dataset.find(DataSection.PERSONS, Arrays.asList(null, "Doe")));
+        Dataset next = dataset.edit();
+        assertThrows(IllegalArgumentException.class, () -> next.apply(Mutation.Type.ADD, DataSection.PERSONS, Arrays.asList(null, "Doe"), unnamed));
+        assertEquals(3, next.getPersons().size());
+    }
+
+    @Test
+    void findPerson_ShouldFollowTheMutations_test() {
+        dataset.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Alice", "Smith"),
+                new Person("Alice", "Smith", "789 Oak St", "Metropolis", 11223, "555-555-5558", "alice.smith@email.com"));
+        dataset.apply(Mutation.Type.UPDATE, DataSection.PERSONS, List.of("Jane", "Doe"),
+                new Person("Jane", "Doe", "999 Pine St", "Gotham", 33445, "555-555-5556", "jane.doe@email.com"));
+        assertTrue(dataset.apply(Mutation.Type.DELETE, DataSection.PERSONS, List.of("John", "Doe"), null));
+        assertFalse(dataset.apply(Mutation.Type.DELETE, DataSection.PERSONS, List.of("John", "Doe"), null));
+
+        assertNull(dataset.findPerson("John", "Doe"));
+        assertEquals("999 Pine St", dataset.findPerson("Jane", "Doe").getAddress());
+        assertEquals("123 Main St", dataset.findPerson("Jack", "Smith").getAddress());
+        assertEquals("789 Oak St", dataset.findPerson("Alice", "Smith").getAddress());
+    }
+
+    @Test
+    void findPerson_ShouldFollowAReplacedList_test() {
+        dataset.findPerson("John", "Doe");
+
+        dataset.setPersons(new ArrayList<>(List.of(
+                new Person("Alice", "Smith", "789 Oak St", "Metropolis", 11223, "555-555-5558", "alice.smith@email.com"))));
+
+        assertNull(dataset.findPerson("John", "Doe"));
+        assertNotNull(dataset.findPerson("Alice", "Smith"));
+    }
+
+    @Test
+    void getMedicalRecord_ShouldFollowTheMutationsOfTheMedicalRecords_test() {
+        Person jane = dataset.findPerson("Jane", "Doe");
+        assertEquals("01/01/1990", dataset.getMedicalRecord(dataset.findPerson("John", "Doe")).getBirthdate());
+        assertNull(dataset.getMedicalRecord(jane));
+
+        dataset.apply(Mutation.Type.ADD, DataSection.MEDICAL_RECORDS, List.of("Jane", "Doe"),
+                new MedicalRecord("Jane", "Doe", "02/02/1995", List.of(), List.of()));
+        dataset.apply(Mutation.Type.DELETE, DataSection.MEDICAL_RECORDS, List.of("John", "Doe"), null);
+
+        assertEquals("02/02/1995", dataset.getMedicalRecord(jane).getBirthdate());
+        assertNull(dataset.getMedicalRecord(dataset.findPerson("John", "Doe")));
+    }
+
+    @Test
+    void getResidents_ShouldFollowTheMutations_test() {
+        assertEquals(List.of("John", "Jack"), firstNames(dataset.getResidents("123 Main St")));
+
+        dataset.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Alice", "Smith"),
+                new Person("Alice", "Smith", "123 Main St", "Springfield", 12345, "555-555-5558", "alice.smith@email.com"));
+        dataset.apply(Mutation.Type.UPDATE, DataSection.PERSONS, List.of("Jane", "Doe"),
+                new Person("Jane", "Doe", "123 Main St", "Springfield", 12345, "555-555-5556", "jane.doe@email.com"));
+        dataset.apply(Mutation.Type.UPDATE, DataSection.PERSONS, List.of("Jack", "Smith"),
+                new Person("Jack", "Smith", "123 Main St", "Springfield", 12345, "555-555-0000", "jack.smith@email.com"));
+        dataset.apply(Mutation.Type.DELETE, DataSection.PERSONS, List.of("John", "Doe"), null);
+
+        // In the order of the list : Jane moved in, but was listed before Jack and Alice
+        assertEquals(List.of("Jane", "Jack", "Alice"), firstNames(dataset.getResidents("123 Main St")));
+        assertEquals("555-555-0000", dataset.getResidents("123 Main St").get(1).getPhone());
+        assertTrue(dataset.getResidents("456 Elm St").isEmpty());
+    }
+
+    @Test
+    void stationsAndAddresses_ShouldBeIndexedBothWays_test() {
+        assertEquals(List.of("123 Main St", "456 Elm St"), dataset.getAddressesOfStation(1));
+        assertEquals(List.of(1, 2), dataset.getStationsOfAddress("456 Elm St"));
+        assertEquals(List.of(1), dataset.getStationsOfAddress("123 Main St"));
+
+        dataset.apply(Mutation.Type.UPDATE, DataSection.FIRESTATIONS, List.of("456 Elm St"), new Firestation("456 Elm St", 3));
+        dataset.apply(Mutation.Type.DELETE, DataSection.FIRESTATIONS, List.of("123 Main St"), null);
+
+        assertTrue(dataset.getAddressesOfStation(1).isEmpty());
+        assertEquals(List.of("456 Elm St"), dataset.getAddressesOfStation(3));
+        assertEquals(List.of(3, 2), dataset.getStationsOfAddress("456 Elm St"));
+        assertTrue(dataset.getStationsOfAddress("123 Main St").isEmpty());
+    }
+
+    @Test
+    void getCoverage_ShouldFollowTheMutationsOfEverySection_test() {
+        long today = LocalDate.of(2024, 6, 1).toEpochDay();
+        assertEquals(new CoverageCounts(1, 0, 2), dataset.getCoverage(1, today));
+
+        dataset.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Tim", "Doe"),
+                new Person("Tim", "Doe", "456 Elm St", "Shelbyville", 67890, "555-555-5559", "tim.doe@email.com"));
+        dataset.apply(Mutation.Type.ADD, DataSection.MEDICAL_RECORDS, List.of("Tim", "Doe"),
+                new MedicalRecord("Tim", "Doe", "05/01/2010", List.of(), List.of()));
+        dataset.apply(Mutation.Type.ADD, DataSection.MEDICAL_RECORDS, List.of("Jane", "Doe"),
+                new MedicalRecord("Jane", "Doe", "05/01/1990", List.of(), List.of()));
+        dataset.apply(Mutation.Type.UPDATE, DataSection.PERSONS, List.of("Jack", "Smith"),
+                new Person("Jack", "Smith", "456 Elm St", "Springfield", 12345, "555-555-5557", "jack.smith@email.com"));
+        dataset.apply(Mutation.Type.ADD, DataSection.FIRESTATIONS, List.of("789 Oak St"), new Firestation("789 Oak St", 2));
+        dataset.apply(Mutation.Type.UPDATE, DataSection.FIRESTATIONS, List.of("123 Main St"), new Firestation("123 Main St", 2));
+        dataset.apply(Mutation.Type.DELETE, DataSection.MEDICAL_RECORDS, List.of("John", "Doe"), null);
+
+        Dataset recounted = new Dataset(new ArrayList<>(dataset.getPersons()), new ArrayList<>(dataset.getFirestations()),
+                new ArrayList<>(dataset.getMedicalRecords()), 0);
+        for (int station = 1; station <= 3; station++) {
+            assertEquals(recounted.getCoverage(station, today), dataset.getCoverage(station, today), "station " + station);
+        }
+        assertEquals(new CoverageCounts(1, 1, 2), dataset.getCoverage(1, today));
+    }
+
+    @Test
+    void rollCoverage_ShouldCountThePersonsTurning18AsAdults_test() {
+        dataset.apply(Mutation.Type.UPDATE, DataSection.MEDICAL_RECORDS, List.of("John", "Doe"),
+                new MedicalRecord("John", "Doe", "06/02/2006", List.of(), List.of()));
+        long today = LocalDate.of(2024, 6, 1).toEpochDay();
+        assertEquals(new CoverageCounts(0, 1, 2), dataset.getCoverage(1, today));
+
+        dataset.rollCoverage(today + 1);
+
+        assertEquals(new CoverageCounts(1, 0, 2), dataset.getCoverage(1, today + 1));
+    }
+
+    @Test
+    void rollCoverage_ShouldOnlyFlipTheQueuedChildrenWhoseBirthdayCame_test() {
+        long today = LocalDate.of(2024, 6, 1).toEpochDay();
+        dataset.apply(Mutation.Type.ADD, DataSection.MEDICAL_RECORDS, List.of("Jane", "Doe"),
+                new MedicalRecord("Jane", "Doe", "06/03/2006", List.of(), List.of()));
+        dataset.apply(Mutation.Type.ADD, DataSection.MEDICAL_RECORDS, List.of("Jack", "Smith"),
+                new MedicalRecord("Jack", "Smith", "06/10/2006", List.of(), List.of()));
+        assertEquals(new CoverageCounts(1, 2, 0), dataset.getCoverage(1, today));
+
+        // Tim is queued then moves out, Jack's birthdate changes after he was queued
+        dataset.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Tim", "Doe"),
+                new Person("Tim", "Doe", "456 Elm St", "Shelbyville", 67890, "555-555-5559", "tim.doe@email.com"));
+        dataset.apply(Mutation.Type.ADD, DataSection.MEDICAL_RECORDS, List.of("Tim", "Doe"),
+                new MedicalRecord("Tim", "Doe", "06/02/2006", List.of(), List.of()));
+        dataset.apply(Mutation.Type.DELETE, DataSection.PERSONS, List.of("Tim", "Doe"), null);
+        dataset.apply(Mutation.Type.UPDATE, DataSection.MEDICAL_RECORDS, List.of("Jack", "Smith"),
+                new MedicalRecord("Jack", "Smith", "06/04/2006", List.of(), List.of()));
+
+        assertEquals(0, dataset.rollCoverage(today + 1));
+        assertEquals(1, dataset.rollCoverage(today + 2));
+        assertEquals(new CoverageCounts(2, 1, 0), dataset.getCoverage(1, today + 2));
+        assertEquals(new CoverageCounts(1, 0, 0), dataset.getCoverage(2, today + 2));
+        assertEquals(0, dataset.rollCoverage(today + 2));
+
+        // Rolled on a request, several days at once
+        Dataset recounted = new Dataset(new ArrayList<>(dataset.getPersons()), new ArrayList<>(dataset.getFirestations()),
+                new ArrayList<>(dataset.getMedicalRecords()), 0);
+        assertEquals(recounted.getCoverage(1, today + 10), dataset.getCoverage(1, today + 10));
+        assertEquals(new CoverageCounts(3, 0, 0), dataset.getCoverage(1, today + 10));
+    }
+
+    @Test
+    void getEmailsOfCity_ShouldListEachEmailOnceThroughTheMutations_test() {
+        dataset.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Tim", "Doe"),
+                new Person("Tim", "Doe", "123 Main St", "Springfield", 12345, "555-555-5559", "john.doe@email.com"));
+        assertEquals(List.of("john.doe@email.com", "jack.smith@email.com"), dataset.getEmailsOfCity("Springfield"));
+
+        // John's email is kept while Tim shares it
+        dataset.apply(Mutation.Type.UPDATE, DataSection.PERSONS, List.of("John", "Doe"),
+                new Person("John", "Doe", "123 Main St", "Springfield", 12345, "555-555-5555", "johnny@email.com"));
+        assertEquals(List.of("john.doe@email.com", "jack.smith@email.com", "johnny@email.com"), dataset.getEmailsOfCity("Springfield"));
+
+        dataset.apply(Mutation.Type.DELETE, DataSection.PERSONS, List.of("Tim", "Doe"), null);
+        dataset.apply(Mutation.Type.UPDATE, DataSection.PERSONS, List.of("Jane", "Doe"),
+                new Person("Jane", "Doe", "123 Main St", "Springfield", 12345, "555-555-5556", "jack.smith@email.com"));
+
+        assertEquals(List.of("jack.smith@email.com", "johnny@email.com"), dataset.getEmailsOfCity("Springfield"));
+        assertTrue(dataset.getEmailsOfCity("Shelbyville").isEmpty());
+    }
+
+    @Test
+    void getPhonesOfStation_ShouldFollowThePersonsAndFirestations_test() {
+        dataset.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Tim", "Smith"),
+                new Person("Tim", "Smith", "123 Main St", "Springfield", 12345, "555-555-5557", "tim.smith@email.com"));
+        assertEquals(List.of("555-555-5555", "555-555-5557", "555-555-5556"), dataset.getPhonesOfStation(1));
+        assertEquals(List.of("555-555-5556"), dataset.getPhonesOfStation(2));
+
+        // Jack's phone is kept while Tim shares it
+        dataset.apply(Mutation.Type.DELETE, DataSection.PERSONS, List.of("Jack", "Smith"), null);
+        assertEquals(List.of("555-555-5555", "555-555-5557", "555-555-5556"), dataset.getPhonesOfStation(1));
+
+        dataset.apply(Mutation.Type.UPDATE, DataSection.FIRESTATIONS, List.of("123 Main St"), new Firestation("123 Main St", 3));
+        dataset.apply(Mutation.Type.UPDATE, DataSection.PERSONS, List.of("Jane", "Doe"),
+                new Person("Jane", "Doe", "456 Elm St", "Shelbyville", 67890, "555-555-0000", "jane.doe@email.com"));
+
+        Dataset recounted = new Dataset(new ArrayList<>(dataset.getPersons()), new ArrayList<>(dataset.getFirestations()),
+                new ArrayList<>(dataset.getMedicalRecords()), 0);
+        for (int station = 1; station <= 3; station++) {
+            assertEquals(Set.copyOf(recounted.getPhonesOfStation(station)), Set.copyOf(dataset.getPhonesOfStation(station)));
+        }
+        assertEquals(List.of("555-555-0000"), dataset.getPhonesOfStation(2));
+    }
+
+    @Test
+    void getPersonsByLastNames_ShouldPageThroughTheNamesInOrder_test() {
+        dataset.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Alice", "Adams"),
+                new Person("Alice", "Adams", "789 Oak St", "Metropolis", 11223, "555-555-5558", "alice.adams@email.com"));
+        dataset.apply(Mutation.Type.UPDATE, DataSection.PERSONS, List.of("Jack", "Smith"),
+                new Person("Jack", "Smith", "456 Elm St", "Shelbyville", 67890, "555-555-5557", "jack.smith@email.com"));
+
+        assertEquals(List.of("John", "Jane"), firstNames(dataset.getPersonsByLastName("Doe")));
+        assertEquals(List.of("Alice", "John", "Jane", "Jack"), firstNames(dataset.getPersonsByLastNames(null, null, 0, 10)));
+        assertEquals(List.of("Jane", "Jack"), firstNames(dataset.getPersonsByLastNames(null, null, 2, 2)));
+        assertEquals(List.of("John", "Jane"), firstNames(dataset.getPersonsByLastNames("B", "Smith", 0, 10)));
+
+        dataset.apply(Mutation.Type.DELETE, DataSection.PERSONS, List.of("John", "Doe"), null);
+
+        assertEquals(List.of("Jane", "Jack"), firstNames(dataset.getPersonsByLastNames("Doe", null, 0, 10)));
+        assertTrue(dataset.getPersonsByLastNames(null, null, 3, 10).isEmpty());
+    }
+
+    @Test
+    void edit_ShouldLeaveThePreviousVersionAndItsIndexesUnchanged_test() {
+        long today = LocalDate.of(2024, 6, 1).toEpochDay();
+        assertEquals(new CoverageCounts(1, 0, 2), dataset.getCoverage(1, today));
+        assertEquals(List.of("John", "Jack"), firstNames(dataset.getResidents("123 Main St")));
+        assertEquals(List.of("555-555-5555", "555-555-5557", "555-555-5556"), dataset.getPhonesOfStation(1));
+        assertEquals(List.of("john.doe@email.com", "jack.smith@email.com"), dataset.getEmailsOfCity("Springfield"));
+
+        Dataset next = dataset.edit();
+        next.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Alice", "Smith"),
+                new Person("Alice", "Smith", "123 Main St", "Springfield", 12345, "555-555-5558", "alice.smith@email.com"));
+        next.apply(Mutation.Type.UPDATE, DataSection.PERSONS, List.of("Jack", "Smith"),
+                new Person("Jack", "Smith", "123 Main St", "Springfield", 12345, "555-555-0000", "jack@email.com"));
+        next.apply(Mutation.Type.DELETE, DataSection.FIRESTATIONS, List.of("456 Elm St"), null);
+
+        assertEquals(dataset.getVersion() + 1, next.getVersion());
+        assertEquals(3, dataset.getPersons().size());
+        assertNull(dataset.findPerson("Alice", "Smith"));
+        assertEquals("555-555-5557", dataset.findPerson("Jack", "Smith").getPhone());
+        assertEquals(List.of("John", "Jack"), firstNames(dataset.getResidents("123 Main St")));
+        assertEquals(List.of(1, 2), dataset.getStationsOfAddress("456 Elm St"));
+        assertEquals(new CoverageCounts(1, 0, 2), dataset.getCoverage(1, today));
+        assertEquals(List.of("555-555-5555", "555-555-5557", "555-555-5556"), dataset.getPhonesOfStation(1));
+        assertEquals(List.of("john.doe@email.com", "jack.smith@email.com"), dataset.getEmailsOfCity("Springfield"));
+
+        assertNotNull(next.findPerson("Alice", "Smith"));
+        assertEquals(List.of("John", "Jack", "Alice"), firstNames(next.getResidents("123 Main St")));
+        assertTrue(next.getStationsOfAddress("456 Elm St").isEmpty());
+        assertEquals(new CoverageCounts(1, 0, 2), next.getCoverage(1, today));
+        assertEquals(List.of("555-555-5555", "555-555-5558", "555-555-0000"), next.getPhonesOfStation(1));
+        assertEquals(List.of("john.doe@email.com", "alice.smith@email.com", "jack@email.com"), next.getEmailsOfCity("Springfield"));
+
+        assertThrows(IllegalStateException.class, () -> dataset.apply(Mutation.Type.DELETE, DataSection.PERSONS, List.of("John", "Doe"), null));
+    }
+
+    @Test
+    void edit_ShouldIgnoreTheKeysOfAnUnpublishedVersion_test() {
+        dataset.findPerson("John", "Doe");
+
+        // Added by a version that is then dropped
+        dataset.edit().apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Alice", "Smith"),
+                new Person("Alice", "Smith", "789 Oak St", "Metropolis", 11223, "555-555-5558", "alice.smith@email.com"));
+
+        Dataset next = dataset.edit();
+        next.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Tim", "Doe"),
+                new Person("Tim", "Doe", "789 Oak St", "Metropolis", 11223, "555-555-5559", "tim.doe@email.com"));
+        next.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Alice", "Smith"),
+                new Person("Alice", "Smith", "789 Oak St", "Metropolis", 11223, "555-555-5558", "alice.smith@email.com"));
+
+        assertNull(dataset.findPerson("Alice", "Smith"));
+        assertNull(dataset.findPerson("Tim", "Doe"));
+        assertEquals("Tim", next.findPerson("Tim", "Doe").getFirstName());
+        assertEquals("Alice", next.findPerson("Alice", "Smith").getFirstName());
+    }
+
+    @Test
+    void delete_ShouldRemoveEveryEntityOfTheKey_AndLeaveTheOthersFound_test() {
+        dataset.findPerson("John", "Doe");
+
+        Dataset next = dataset.edit();
+        next.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Jane", "Doe"),
+                new Person("Jane", "Doe", "789 Oak St", "Metropolis", 11223, "555-555-5558", "jane.doe@email.com"));
+        assertTrue(next.apply(Mutation.Type.DELETE, DataSection.PERSONS, List.of("Jane", "Doe"), null));
+
+        assertNull(next.findPerson("Jane", "Doe"));
+        assertEquals("123 Main St", next.findPerson("Jack", "Smith").getAddress());
+        assertEquals(List.of("John", "Jack"), firstNames(next.getPersons()));
+        assertEquals(List.of("John", "Jane", "Jack"), firstNames(dataset.getPersons()));
+        assertEquals("456 Elm St", dataset.findPerson("Jane", "Doe").getAddress());
+    }
+
+    @Test
+    void versionOf_ShouldBeTheVersionOfTheLastWriteOfTheKey_test() {
+        List<String> johnDoe = List.of("John", "Doe");
+        List<String> janeDoe = List.of("Jane", "Doe");
+        dataset.setVersion(3);
+
+        Dataset next = dataset.edit();
+        next.apply(Mutation.Type.UPDATE, DataSection.PERSONS, johnDoe,
+                new Person("John", "Doe", "123 Main St", "Springfield", 12345, "555-555-0000", "john.doe@email.com"));
+        Dataset last = next.edit();
+        last.apply(Mutation.Type.DELETE, DataSection.PERSONS, janeDoe, null);
+        last.apply(Mutation.Type.ADD, DataSection.PERSONS, janeDoe,
+                new Person("Jane", "Doe", "456 Elm St", "Shelbyville", 67890, "555-555-5556", "jane.doe@email.com"));
+
+        assertEquals(3, dataset.versionOf(DataSection.PERSONS, johnDoe));
+        assertEquals(4, next.versionOf(DataSection.PERSONS, johnDoe));
+        assertEquals(3, next.versionOf(DataSection.PERSONS, janeDoe));
+        assertEquals(4, last.versionOf(DataSection.PERSONS, johnDoe));
+        assertEquals(5, last.versionOf(DataSection.PERSONS, janeDoe));
+        // The medical record of a person has its own version
+        assertEquals(3, last.versionOf(DataSection.MEDICAL_RECORDS, johnDoe));
+        assertEquals(5, last.versionOf(DataSection.PERSONS));
+        assertEquals(3, last.versionOf(DataSection.MEDICAL_RECORDS));
+    }
+
+    @Test
+    void withSection_ShouldKeepTheIndexesAndTheTalliesStillValid_test() {
+        long today = LocalDate.of(2024, 6, 1).toEpochDay();
+        assertEquals(new CoverageCounts(1, 0, 2), dataset.getCoverage(1, today));
+        dataset.getPhonesOfStation(1);
+        dataset.getResidents("123 Main St");
+
+        // A person added, while a medical record is added and published meanwhile
+        Dataset persons = dataset.edit();
+        persons.apply(Mutation.Type.ADD, DataSection.PERSONS, List.of("Alice", "Smith"),
+                new Person("Alice", "Smith", "123 Main St", "Springfield", 12345, "555-555-5558", "alice.smith@email.com"));
+        Dataset medicalRecords = dataset.edit();
+        medicalRecords.apply(Mutation.Type.ADD, DataSection.MEDICAL_RECORDS, List.of("Jack", "Smith"),
+                new MedicalRecord("Jack", "Smith", "01/01/2015", List.of(), List.of()));
+
+        Dataset merged = medicalRecords.withSection(DataSection.PERSONS, persons);
+
+        assertSame(persons.group(Grouping.PERSONS_BY_ADDRESS, "123 Main St"), merged.group(Grouping.PERSONS_BY_ADDRESS, "123 Main St"));
+        // The phones do not depend on the medical records : those of the persons version are kept
+        assertSame(tally(persons, "stationPhones"), tally(merged, "stationPhones"));
+        assertTrue(merged.getPhonesOfStation(1).contains("555-555-5558"));
+        // The coverage depends on both : it is counted again
+        assertNull(tally(merged, "stationCoverage"));
+        assertEquals(new CoverageCounts(1, 1, 2), merged.getCoverage(1, today));
+    }
+
+    private static Object tally(Dataset dataset, String name) {
+        return ((AtomicReference<?>) ReflectionTestUtils.getField(dataset, name)).get();
+    }
+
+    private static List<String> firstNames(List<Person> persons) {
+        return persons.stream().map(Person::getFirstName).toList();
+    }
+}
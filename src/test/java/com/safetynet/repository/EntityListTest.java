@@ -0,0 +1,53 @@
+package com.safetynet.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityListTest {
+
+    @Test
+    void fork_ShouldBeChangedIndependentlyOfTheOriginal_test() {
+        EntityList<String> original = new EntityList<>(List.of("a", "b", "c"));
+
+        EntityList<String> fork = original.fork();
+        fork.add("d");
+        fork.set(0, "A");
+        fork.remove(1);
+
+        assertEquals(List.of("a", "b", "c"), original);
+        assertEquals(List.of("A", "c", "d"), fork);
+        assertEquals(new ArrayList<>(fork), fork);
+    }
+
+    @Test
+    void ids_ShouldNotShift_WhenAnEntityIsRemoved_test() {
+        EntityList<String> list = new EntityList<>(List.of("a", "b"));
+        long c = list.append("c");
+        long a = list.idAt(0);
+
+        list.removeId(list.idAt(1));
+        list.removeIf("a"::equals);
+
+        assertEquals(List.of("c"), list);
+        assertEquals("c", list.byId(c));
+        assertNull(list.byId(a));
+        assertEquals(c, list.idAt(0));
+    }
+
+    @Test
+    void copyOf_ShouldForkAnEntityList_AndCopyAnyOtherList_test() {
+        List<String> source = new ArrayList<>(List.of("a"));
+        EntityList<String> copy = EntityList.copyOf(source);
+        source.add("b");
+
+        EntityList<String> fork = EntityList.copyOf(copy);
+        fork.add("c");
+
+        assertEquals(List.of("a"), copy);
+        assertEquals(List.of("a", "c"), fork);
+    }
+}
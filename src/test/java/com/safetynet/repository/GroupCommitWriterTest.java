@@ -0,0 +1,116 @@
+package com.safetynet.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitWriterTest {
+
+    private GroupCommitWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private static Mutation mutation(String address) {
+        return new Mutation(0, Mutation.Type.DELETE, DataSection.FIRESTATIONS, List.of(address), null);
+    }
+
+    @Test
+    void submit_shouldCommitConcurrentMutationsTogether() throws Exception {
+        List<List<Mutation>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+
+        writer = new GroupCommitWriter(batch -> {
+            batches.add(batch);
+            firstBatchStarted.countDown();
+            try {
+                releaseFirstBatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Map.of();
+        }, Duration.ZERO, 256);
+
+        CompletableFuture<Void> first = writer.submit(mutation("first"));
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+
+        // Submitted while the first batch is being committed : they all go into the next one
+        List<CompletableFuture<Void>> others = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            others.add(writer.submit(mutation("address " + i)));
+        }
+        assertFalse(others.getFirst().isDone());
+
+        releaseFirstBatch.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Void> other : others) {
+            other.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(2, batches.size());
+        assertEquals(10, batches.get(1).size());
+        assertEquals(List.of("address 0"), batches.get(1).getFirst().getKey());
+    }
+
+    @Test
+    void submit_whenCommitFails_shouldFailEveryMutationOfTheBatch() {
+        writer = new GroupCommitWriter(batch -> {
+            throw new IOException("disk full");
+        }, Duration.ofMillis(50), 256);
+
+        CompletableFuture<Void> first = writer.submit(mutation("first"));
+        CompletableFuture<Void> second = writer.submit(mutation("second"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertEquals("disk full", exception.getCause().getMessage());
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submit_whenAMutationIsRejected_shouldOnlyFailThatMutation() throws Exception {
+        Mutation rejected = mutation("rejected");
+        writer = new GroupCommitWriter(batch -> batch.contains(rejected)
+                ? Map.of(rejected, new IllegalArgumentException("invalid"))
+                : Map.of(), Duration.ofMillis(50), 256);
+
+        CompletableFuture<Void> first = writer.submit(mutation("first"));
+        CompletableFuture<Void> second = writer.submit(rejected);
+
+        first.get(5, TimeUnit.SECONDS);
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals("invalid", exception.getCause().getMessage());
+    }
+
+    @Test
+    void close_shouldCommitPendingMutationsThenRejectNewOnes() throws Exception {
+        List<Mutation> committed = new CopyOnWriteArrayList<>();
+        writer = new GroupCommitWriter(batch -> {
+            committed.addAll(batch);
+            return Map.of();
+        }, Duration.ofMillis(20), 256);
+
+        CompletableFuture<Void> pending = writer.submit(mutation("pending"));
+        writer.close();
+
+        pending.get(5, TimeUnit.SECONDS);
+        assertEquals(1, committed.size());
+        assertThrows(ExecutionException.class, () -> writer.submit(mutation("late")).get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,65 @@
+package com.safetynet.repository;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class JournalCompactorTest {
+
+    @Mock
+    private DataRepository dataRepository;
+
+    @Mock
+    private Clock clock;
+
+    private final Instant start = Instant.parse("2025-01-01T00:00:00Z");
+
+    private JournalCompactor newCompactor() {
+        when(clock.instant()).thenReturn(start);
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        return new JournalCompactor(dataRepository, DataSize.ofKilobytes(1), Duration.ofMinutes(10), clock);
+    }
+
+    @Test
+    void compactIfNeeded_whenJournalIsEmpty_shouldNotCompact() {
+        JournalCompactor compactor = newCompactor();
+        when(dataRepository.getJournalSize()).thenReturn(0L);
+        when(clock.instant()).thenReturn(start.plus(Duration.ofHours(1)));
+
+        compactor.compactIfNeeded();
+
+        verify(dataRepository, never()).compact();
+    }
+
+    @Test
+    void compactIfNeeded_whenJournalIsTooBig_shouldCompact() {
+        JournalCompactor compactor = newCompactor();
+        when(dataRepository.getJournalSize()).thenReturn(2048L);
+
+        compactor.compactIfNeeded();
+
+        verify(dataRepository, times(1)).compact();
+    }
+
+    @Test
+    void compactIfNeeded_whenIntervalIsReached_shouldCompact() {
+        JournalCompactor compactor = newCompactor();
+        when(dataRepository.getJournalSize()).thenReturn(10L);
+
+        compactor.compactIfNeeded();
+        verify(dataRepository, never()).compact();
+
+        when(clock.instant()).thenReturn(start.plus(Duration.ofMinutes(10)));
+        compactor.compactIfNeeded();
+        verify(dataRepository, times(1)).compact();
+    }
+}
@@ -0,0 +1,123 @@
+package com.safetynet.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.model.Firestation;
+import com.safetynet.model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonDataFileTest {
+
+    private final JsonDataFile jsonDataFile = new JsonDataFile(new ObjectMapper());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void read_ShouldReadPersonsDataCorrectly_test() throws Exception {
+
+        Dataset dataset = jsonDataFile.read(Path.of("src/test/resources/data-test.json"));
+        List<Person> persons = dataset.getPersons();
+
+        assertEquals(23, persons.size());
+        assertEquals(13, dataset.getFirestations().size());
+        assertEquals(23, dataset.getMedicalRecords().size());
+        for (Person person : persons) {
+            assertNotNull(person.getFirstName());
+            assertNotNull(person.getLastName());
+            assertNotNull(person.getAddress());
+            assertNotNull(person.getCity());
+            assertTrue(person.getZip() > 0);
+            assertNotNull(person.getPhone());
+            assertNotNull(person.getEmail());
+        }
+    }
+
+    @Test
+    void read_ShouldReturnEmptyList_WhenNodeDoesNotExist_test() throws Exception {
+        Path file = directory.resolve("data.json");
+        Files.writeString(file, """
+                { "firestations": [ { "address":"1509 Culver St", "station":"3" } ], "unknownNode": { "a": [1, 2] } }
+                """);
+
+        Dataset dataset = jsonDataFile.read(file);
+
+        assertTrue(dataset.getPersons().isEmpty());
+        assertTrue(dataset.getMedicalRecords().isEmpty());
+        assertEquals(List.of(new Firestation("1509 Culver St", 3)), dataset.getFirestations());
+        assertEquals(0, dataset.getJournalSequence());
+    }
+
+    @Test
+    void read_ShouldThrowException_WhenFileIsTruncated_test() throws Exception {
+        Path file = directory.resolve("data.json");
+        String content = Files.readString(Path.of("src/test/resources/data-test.json"));
+        Files.writeString(file, content.substring(0, content.length() - 10));
+
+        assertThrows(IOException.class, () -> jsonDataFile.read(file));
+    }
+
+    @Test
+    void write_ShouldBeReadBack_test() throws Exception {
+        Dataset dataset = jsonDataFile.read(Path.of("src/test/resources/data-test.json"));
+        dataset.setJournalSequence(42);
+
+        Path file = directory.resolve("data.json");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            jsonDataFile.write(out, dataset);
+        }
+        Dataset readBack = jsonDataFile.read(file);
+
+        assertEquals(dataset.getPersons(), readBack.getPersons());
+        assertEquals(dataset.getFirestations(), readBack.getFirestations());
+        assertEquals(dataset.getMedicalRecords(), readBack.getMedicalRecords());
+        assertEquals(42, readBack.getJournalSequence());
+    }
+
+    @Test
+    void readParallel_ShouldReadTheSameDataAsRead_test() throws Exception {
+        Path file = Path.of("src/test/resources/data-test.json");
+
+        Dataset sequential = jsonDataFile.read(file);
+        Dataset parallel = jsonDataFile.readParallel(file);
+
+        assertEquals(sequential.getPersons(), parallel.getPersons());
+        assertEquals(sequential.getFirestations(), parallel.getFirestations());
+        assertEquals(sequential.getMedicalRecords(), parallel.getMedicalRecords());
+    }
+
+    @Test
+    void readParallel_ShouldLocateTheSections_AfterMultiByteCharacters_test() throws Exception {
+        Path file = directory.resolve("data.json");
+        Files.writeString(file, """
+                { "note": "Désolé, ünïcödé ✓", "firestations": [ { "address":"1509 Culver St", "station":"3" } ],
+                  "journalSequence": 7,
+                  "persons": [ { "firstName":"Zoé", "lastName":"Lefèvre", "address":"1 Rue", "city":"Culver",
+                                 "zip":97451, "phone":"841-874-0000", "email":"zoe@email.com" } ] }
+                """);
+
+        Dataset dataset = jsonDataFile.readParallel(file);
+
+        assertEquals(List.of(new Firestation("1509 Culver St", 3)), dataset.getFirestations());
+        assertEquals("Zoé", dataset.getPersons().getFirst().getFirstName());
+        assertTrue(dataset.getMedicalRecords().isEmpty());
+        assertEquals(7, dataset.getJournalSequence());
+    }
+
+    @Test
+    void readParallel_ShouldThrowException_WhenFileIsTruncated_test() throws Exception {
+        Path file = directory.resolve("data.json");
+        String content = Files.readString(Path.of("src/test/resources/data-test.json"));
+        Files.writeString(file, content.substring(0, content.length() / 2));
+
+        assertThrows(IOException.class, () -> jsonDataFile.readParallel(file));
+    }
+}
@@ -0,0 +1,106 @@
+package com.safetynet.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    private Path path;
+    private DurabilityStats stats;
+    private SnapshotFile snapshotFile;
+
+    @BeforeEach
+    void setUp() {
+        path = directory.resolve("data.json");
+        stats = new DurabilityStats();
+        snapshotFile = new SnapshotFile(path, stats);
+    }
+
+    // A version is valid when it is a complete "sequence:content" line
+    private static String read(Path file) throws IOException {
+        String content = Files.readString(file);
+        if (!content.endsWith(";")) {
+            throw new IOException("Truncated file " + file);
+        }
+        return content;
+    }
+
+    private static long sequenceOf(String content) {
+        return Long.parseLong(content.substring(0, content.indexOf(':')));
+    }
+
+    private void write(String content) throws IOException {
+        snapshotFile.write(out -> out.write(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void write_shouldReplaceTheFileAndKeepTheBackup() throws Exception {
+        write("1:first;");
+        write("2:second;");
+
+        assertEquals("2:second;", Files.readString(path));
+        assertEquals("1:first;", Files.readString(Path.of(path + ".bak")));
+        assertFalse(Files.exists(Path.of(path + ".tmp")));
+        assertEquals(2, stats.getSnapshots());
+        assertEquals("1:first;".length() + "2:second;".length(), stats.getSnapshotBytes());
+    }
+
+    @Test
+    void write_whenContentFails_shouldLeaveTheFileUntouched() throws Exception {
+        write("1:first;");
+
+        assertThrows(IOException.class, () -> snapshotFile.write(out -> {
+            out.write("2:sec".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("serialization failed");
+        }));
+
+        assertEquals("1:first;", Files.readString(path));
+        assertEquals("1:first;", snapshotFile.recover(SnapshotFileTest::read, SnapshotFileTest::sequenceOf));
+    }
+
+    @Test
+    void recover_whenFileIsTruncated_shouldUseTheBackup() throws Exception {
+        write("1:first;");
+        write("2:second;");
+        Files.writeString(path, "2:sec");
+
+        assertEquals("1:first;", snapshotFile.recover(SnapshotFileTest::read, SnapshotFileTest::sequenceOf));
+        assertEquals("1:first;", Files.readString(path));
+        assertTrue(Files.exists(Path.of(path + ".corrupt")));
+    }
+
+    @Test
+    void recover_whenCompleteTempFileIsNewer_shouldUseIt() throws Exception {
+        write("1:first;");
+        Files.writeString(Path.of(path + ".tmp"), "2:second;");
+
+        assertEquals("2:second;", snapshotFile.recover(SnapshotFileTest::read, SnapshotFileTest::sequenceOf));
+        assertEquals("2:second;", Files.readString(path));
+    }
+
+    @Test
+    void recover_whenTempFileIsTruncated_shouldIgnoreIt() throws Exception {
+        write("1:first;");
+        Files.writeString(Path.of(path + ".tmp"), "2:sec");
+
+        assertEquals("1:first;", snapshotFile.recover(SnapshotFileTest::read, SnapshotFileTest::sequenceOf));
+        assertFalse(Files.exists(Path.of(path + ".tmp")));
+    }
+
+    @Test
+    void recover_whenNoFileExists_shouldThrowException() {
+        assertThrows(NoSuchFileException.class, () -> snapshotFile.recover(SnapshotFileTest::read, SnapshotFileTest::sequenceOf));
+    }
+}
@@ -0,0 +1,82 @@
+package com.safetynet.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedTreeTest {
+
+    @Test
+    void putAndRemove_ShouldKeepTheEntriesInOrder_LikeATreeMap_test() {
+        Random random = new Random(42);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        SortedTree<Integer, String> tree = SortedTree.empty();
+
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(1_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                tree = tree.remove(key);
+            } else {
+                expected.put(key, "v" + i);
+                tree = tree.put(key, "v" + i);
+            }
+        }
+
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected.values()), tree.values());
+        int index = 0;
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), tree.get(entry.getKey()));
+            assertEquals(entry.getKey(), tree.keyAt(index));
+            assertEquals(entry.getValue(), tree.valueAt(index++));
+        }
+        assertNull(tree.get(1_000));
+    }
+
+    @Test
+    void put_ShouldLeaveThePreviousTreeUnchanged_test() {
+        SortedTree<Integer, String> before = SortedTree.copyOf(Map.of(1, "one", 2, "two", 3, "three"));
+
+        SortedTree<Integer, String> after = before.put(2, "deux").put(4, "four").remove(1);
+
+        assertEquals(List.of("one", "two", "three"), before.values());
+        assertEquals(List.of("deux", "three", "four"), after.values());
+        assertSame(before, before.put(1, before.get(1)));
+        assertSame(before, before.remove(5));
+    }
+
+    @Test
+    void entries_ShouldReadTheKeysOfARange_test() {
+        SortedTree<String, Integer> tree = SortedTree.copyOf(Map.of("Boyd", 1, "Cadigan", 2, "Duncan", 3, "Zemicks", 4));
+
+        assertEquals(List.of("Cadigan", "Duncan"), keys(tree.entries("C", "Z")));
+        assertEquals(List.of("Boyd", "Cadigan"), keys(tree.entries(null, "D")));
+        assertEquals(List.of("Duncan", "Zemicks"), keys(tree.entries("Duncan", null)));
+        assertTrue(keys(tree.entries("E", "Y")).isEmpty());
+    }
+
+    @Test
+    void get_ShouldCompareTheListsElementByElement_test() {
+        SortedTree<List<String>, Integer> tree = SortedTree.<List<String>, Integer>empty()
+                .put(List.of("John", "Boyd"), 1)
+                .put(List.of("John"), 2)
+                .put(List.of("Jacob", "Boyd"), 3);
+
+        assertEquals(1, tree.get(List.of("John", "Boyd")));
+        assertEquals(2, tree.get(List.of("John")));
+        assertEquals(List.of(List.of("Jacob", "Boyd"), List.of("John"), List.of("John", "Boyd")), keys(tree.entries()));
+    }
+
+    private static <K> List<K> keys(Iterable<? extends Map.Entry<K, ?>> entries) {
+        List<K> keys = new ArrayList<>();
+        entries.forEach(entry -> keys.add(entry.getKey()));
+        return keys;
+    }
+}
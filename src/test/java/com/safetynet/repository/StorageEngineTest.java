@@ -0,0 +1,194 @@
+package com.safetynet.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.model.Firestation;
+import com.safetynet.model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private StorageEngine open(StorageEngine.Type type) throws IOException {
+        Path dataFile = directory.resolve("data.json");
+        // The segmented engine moves the data file away once migrated
+        if (!Files.exists(dataFile) && !Files.exists(directory.resolve("data.json.segments"))) {
+            Files.copy(Path.of("src/test/resources/data-test.json"), dataFile);
+        }
+        StorageEngine engine = StorageEngine.create(type, dataFile, new StorageSettings(), new DurabilityStats());
+        engine.open();
+        return engine;
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.Type.class)
+    void mutations_ShouldBeVisible_test(StorageEngine.Type type) throws Exception {
+        try (StorageEngine engine = open(type)) {
+            int firestationsCount = engine.getDataset().getFirestations().size();
+
+            engine.add(DataSection.FIRESTATIONS, new Firestation("1 Engine St", 5));
+            engine.update(DataSection.FIRESTATIONS, new Firestation("1 Engine St", 6));
+            assertTrue(engine.delete(DataSection.FIRESTATIONS, List.of("1509 Culver St")));
+            assertFalse(engine.delete(DataSection.FIRESTATIONS, List.of("Unknown St")));
+
+            List<Firestation> firestations = engine.getDataset().getFirestations();
+            assertEquals(firestationsCount, firestations.size());
+            assertTrue(firestations.contains(new Firestation("1 Engine St", 6)));
+            assertTrue(firestations.stream().noneMatch(firestation -> firestation.getAddress().equals("1509 Culver St")));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = StorageEngine.Type.class, names = {"JSON_DOCUMENT", "JOURNALED", "SEGMENTED"})
+    void mutations_ShouldSurviveARestart_test(StorageEngine.Type type) throws Exception {
+        try (StorageEngine engine = open(type)) {
+            engine.add(DataSection.FIRESTATIONS, new Firestation("1 Engine St", 5));
+        }
+
+        try (StorageEngine engine = open(type)) {
+            assertTrue(engine.getDataset().getFirestations().contains(new Firestation("1 Engine St", 5)));
+        }
+    }
+
+    @Test
+    void journaled_ShouldOnlyJournalTheMutationsThatApply_test() throws Exception {
+        // Written with a property the firestations do not have : it cannot be read back to be applied
+        Firestation invalid = new Firestation("2 Engine St", 5) {
+            public String getExtra() {
+                return "extra";
+            }
+        };
+
+        try (StorageEngine engine = open(StorageEngine.Type.JOURNALED)) {
+            assertThrows(UncheckedIOException.class, () -> engine.add(DataSection.FIRESTATIONS, invalid));
+            engine.add(DataSection.FIRESTATIONS, new Firestation("1 Engine St", 5));
+
+            assertFalse(engine.getDataset().contains(DataSection.FIRESTATIONS, List.of("2 Engine St")));
+            assertTrue(engine.getDataset().contains(DataSection.FIRESTATIONS, List.of("1 Engine St")));
+        }
+
+        // The journal is replayed without the rejected mutation
+        try (StorageEngine engine = open(StorageEngine.Type.JOURNALED)) {
+            assertFalse(engine.getDataset().contains(DataSection.FIRESTATIONS, List.of("2 Engine St")));
+            assertTrue(engine.getDataset().contains(DataSection.FIRESTATIONS, List.of("1 Engine St")));
+        }
+    }
+
+    @Test
+    void inMemory_ShouldNotWriteTheDataFile_test() throws Exception {
+        try (StorageEngine engine = open(StorageEngine.Type.IN_MEMORY)) {
+            engine.add(DataSection.FIRESTATIONS, new Firestation("1 Engine St", 5));
+        }
+
+        try (StorageEngine engine = open(StorageEngine.Type.IN_MEMORY)) {
+            assertFalse(engine.getDataset().getFirestations().contains(new Firestation("1 Engine St", 5)));
+        }
+    }
+
+    @Test
+    void jsonDocument_ShouldRefuseToStart_WhenTheJournalIsNotCompacted_test() throws Exception {
+        try (StorageEngine engine = open(StorageEngine.Type.JOURNALED)) {
+            engine.add(DataSection.FIRESTATIONS, new Firestation("1 Engine St", 5));
+        }
+
+        assertThrows(IOException.class, () -> open(StorageEngine.Type.JSON_DOCUMENT));
+    }
+
+    @Test
+    void segmented_ShouldMigrateTheDataFile_test() throws Exception {
+        Dataset expected = new JsonDataFile(new ObjectMapper()).read(Path.of("src/test/resources/data-test.json"));
+
+        try (StorageEngine engine = open(StorageEngine.Type.SEGMENTED)) {
+            assertEquals(expected.getPersons(), engine.getDataset().getPersons());
+            assertEquals(expected.getFirestations(), engine.getDataset().getFirestations());
+            assertEquals(expected.getMedicalRecords(), engine.getDataset().getMedicalRecords());
+        }
+
+        assertFalse(Files.exists(directory.resolve("data.json")));
+        assertTrue(Files.exists(directory.resolve("data.json.migrated")));
+        assertTrue(Files.exists(directory.resolve("data.json.segments/persons.json")));
+    }
+
+    @Test
+    void segmented_ShouldOnlyRewriteTheChangedSegment_test() throws Exception {
+        try (StorageEngine engine = open(StorageEngine.Type.SEGMENTED)) {
+            Object personsBefore = fileKey("persons.json");
+            Object firestationsBefore = fileKey("firestations.json");
+
+            engine.add(DataSection.FIRESTATIONS, new Firestation("1 Engine St", 5));
+
+            assertEquals(personsBefore, fileKey("persons.json"));
+            assertNotEquals(firestationsBefore, fileKey("firestations.json"));
+        }
+    }
+
+    @Test
+    void segmented_ShouldKeepTheTalliesRight_WhenTwoSectionsCommitFromTheSameVersion_test() throws Exception {
+        Files.copy(Path.of("src/test/resources/data-test.json"), directory.resolve("data.json"));
+        // Both commits wait for each other once their segment is written : each one edited the version the other had not replaced yet
+        CyclicBarrier bothWritten = new CyclicBarrier(2);
+        boolean[] armed = {false};
+        SegmentedStorageEngine engine = new SegmentedStorageEngine(directory.resolve("data.json"), new StorageSettings(), new DurabilityStats()) {
+            @Override
+            void writeSegment(DataSection section, List<Object> entities) throws IOException {
+                super.writeSegment(section, entities);
+                if (armed[0]) {
+                    try {
+                        bothWritten.await(10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IOException(e);
+                    }
+                }
+            }
+        };
+
+        try (engine) {
+            engine.open();
+            long today = LocalDate.now().toEpochDay();
+            Dataset before = engine.getDataset();
+            before.getCoverage(3, today);
+            assertFalse(before.getPhonesOfStation(3).isEmpty());
+            assertTrue(before.getPhonesOfStation(9).isEmpty());
+            armed[0] = true;
+
+            CompletableFuture<Void> person = CompletableFuture.runAsync(() -> engine.add(DataSection.PERSONS,
+                    new Person("Concurrent", "Boyd", "1509 Culver St", "Culver", 97451, "841-874-0000", "concurrent@email.com")));
+            CompletableFuture<Void> firestation = CompletableFuture.runAsync(() -> engine.update(DataSection.FIRESTATIONS,
+                    new Firestation("1509 Culver St", 9)));
+            CompletableFuture.allOf(person, firestation).get(10, TimeUnit.SECONDS);
+
+            Dataset after = engine.getDataset();
+            Dataset recount = after.copy();
+            assertTrue(after.contains(DataSection.PERSONS, List.of("Concurrent", "Boyd")));
+            assertEquals(List.of(9), after.getStationsOfAddress("1509 Culver St"));
+            assertTrue(after.getPhonesOfStation(9).contains("841-874-0000"));
+            // The only resident of 1509 Culver St without a medical record
+            assertEquals(1, after.getCoverage(9, today).unclassified());
+            for (int station = 1; station <= 9; station++) {
+                assertEquals(recount.getCoverage(station, today), after.getCoverage(station, today), "Coverage of station " + station);
+                assertEquals(recount.getPhonesOfStation(station), after.getPhonesOfStation(station), "Phones of station " + station);
+            }
+        }
+    }
+
+    private Object fileKey(String segment) throws IOException {
+        return Files.readAttributes(directory.resolve("data.json.segments").resolve(segment), BasicFileAttributes.class).fileKey();
+    }
+}
@@ -0,0 +1,68 @@
+package com.safetynet.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DailyClockTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+
+    @Test
+    void ageOf_ShouldMatchPeriod_test() {
+        for (LocalDate today : new LocalDate[]{LocalDate.of(2024, 2, 28), LocalDate.of(2024, 2, 29), LocalDate.of(2025, 3, 1)}) {
+            DailyClock dailyClock = new DailyClock(Clock.fixed(today.atStartOfDay(ZONE).toInstant(), ZONE));
+
+            for (LocalDate birthdate = today.minusYears(160); birthdate.isBefore(today.plusDays(400)); birthdate = birthdate.plusDays(1)) {
+                assertEquals(Period.between(birthdate, today).getYears(), dailyClock.ageOf(birthdate.toEpochDay()),
+                        "born " + birthdate + " on " + today);
+            }
+        }
+    }
+
+    @Test
+    void today_ShouldAdvanceAtMidnight_test() {
+        MutableClock clock = new MutableClock(LocalDate.of(2024, 3, 5).atTime(23, 59).atZone(ZONE).toInstant());
+        DailyClock dailyClock = new DailyClock(clock);
+        long birthdate = LocalDate.of(2006, 3, 6).toEpochDay();
+
+        assertEquals(LocalDate.of(2024, 3, 5).toEpochDay(), dailyClock.today());
+        assertEquals(17, dailyClock.ageOf(birthdate));
+
+        clock.instant = LocalDate.of(2024, 3, 6).atStartOfDay(ZONE).toInstant();
+
+        assertEquals(LocalDate.of(2024, 3, 6).toEpochDay(), dailyClock.today());
+        assertEquals(18, dailyClock.ageOf(birthdate));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
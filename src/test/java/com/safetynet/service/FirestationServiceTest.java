@@ -8,6 +8,8 @@ import com.safetynet.exception.ResourceNotFoundException;
 import com.safetynet.mapper.FirestationMapper;
 import com.safetynet.model.Firestation;
 import com.safetynet.repository.DataRepository;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.Dataset;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -42,7 +44,8 @@ class FirestationServiceTest {
         firestations.add(new Firestation("456 Elm St", 2));
 
         when(dataRepository.getFirestations()).thenReturn(firestations);
-        firestationService = new FirestationService(dataRepository, firestationMapper);
+        when(dataRepository.getDataset()).thenReturn(new Dataset(new ArrayList<>(), firestations, new ArrayList<>(), 0));
+        firestationService = new FirestationService(dataRepository, firestationMapper, new KeyLocks(16));
     }
 
     @Test
@@ -55,7 +58,7 @@ class FirestationServiceTest {
 
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(dataRepository, times(2)).getFirestations();
+        verify(dataRepository, times(1)).getFirestations();
     }
 
     @Test
@@ -71,7 +74,7 @@ class FirestationServiceTest {
         assertNotNull(result);
         assertEquals("123 Main St", result.getAddress());
         assertEquals(1, result.getStation());
-        verify(dataRepository, times(2)).getFirestations();
+        verify(dataRepository, times(1)).getDataset();
     }
 
     @Test
@@ -94,7 +97,7 @@ class FirestationServiceTest {
 
         firestationService.addFirestation(firestationCreateDTO);
 
-        verify(dataRepository, times(1)).writeData(eq("firestations"), anyList());
+        verify(dataRepository, times(1)).add(eq(DataSection.FIRESTATIONS), any(Firestation.class));
     }
 
     @Test
@@ -119,7 +122,7 @@ class FirestationServiceTest {
 
         firestationService.updateFirestation(firestationUpdateDTO, "123 Main St");
 
-        verify(dataRepository, times(1)).writeData(eq("firestations"), anyList());
+        verify(dataRepository, times(1)).update(eq(DataSection.FIRESTATIONS), any(Firestation.class));
     }
 
     @Test
@@ -137,9 +140,11 @@ class FirestationServiceTest {
     @Test
     void deleteFirestation_shouldDeleteFirestation_test() {
 
+        when(dataRepository.delete(DataSection.FIRESTATIONS, List.of("123 Main St"))).thenReturn(true);
+
         firestationService.deleteFirestation("123 Main St");
 
-        verify(dataRepository, times(1)).writeData(eq("firestations"), anyList());
+        verify(dataRepository, times(1)).delete(DataSection.FIRESTATIONS, List.of("123 Main St"));
     }
 
     @Test
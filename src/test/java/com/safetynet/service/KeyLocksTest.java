@@ -0,0 +1,67 @@
+package com.safetynet.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyLocksTest {
+
+    private static final List<String> JOHN_BOYD = List.of("John", "Boyd");
+    private static final List<String> CULVER_ST = List.of("1509 Culver St");
+
+    @Test
+    void withLock_shouldSerializeTheMutationsOfAKey() throws Exception {
+        KeyLocks keyLocks = new KeyLocks(64);
+        int[] counter = new int[1];
+
+        Runnable increments = () -> {
+            for (int i = 0; i < 10_000; i++) {
+                keyLocks.withLock(JOHN_BOYD, () -> counter[0]++);
+            }
+        };
+        CompletableFuture<Void> first = CompletableFuture.runAsync(increments);
+        CompletableFuture<Void> second = CompletableFuture.runAsync(increments);
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+
+        assertEquals(20_000, counter[0]);
+    }
+
+    @Test
+    void withLock_whenKeysHaveDifferentStripes_shouldNotWaitForEachOther() throws Exception {
+        KeyLocks keyLocks = new KeyLocks(64);
+        assertNotEquals(keyLocks.stripeOf(JOHN_BOYD), keyLocks.stripeOf(CULVER_ST));
+
+        // Holding the stripe of one key, another thread still takes that of the other
+        keyLocks.withLock(JOHN_BOYD, () -> {
+            try {
+                CompletableFuture.runAsync(() -> keyLocks.withLock(CULVER_ST, () -> {
+                })).get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                fail(e);
+            }
+        });
+    }
+
+    @Test
+    void withLock_whenActionThrows_shouldReleaseTheStripe() throws Exception {
+        KeyLocks keyLocks = new KeyLocks(1);
+
+        assertThrows(IllegalStateException.class, () -> keyLocks.withLock(JOHN_BOYD, () -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        // With a single stripe, any other key waits for the same lock
+        CompletableFuture.runAsync(() -> keyLocks.withLock(CULVER_ST, () -> {
+        })).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void keyLocks_whenNoStripe_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new KeyLocks(0));
+    }
+}
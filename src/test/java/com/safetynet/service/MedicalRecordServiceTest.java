@@ -8,6 +8,8 @@ import com.safetynet.exception.ResourceNotFoundException;
 import com.safetynet.mapper.MedicalRecordMapper;
 import com.safetynet.model.MedicalRecord;
 import com.safetynet.repository.DataRepository;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.Dataset;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -39,7 +41,8 @@ class MedicalRecordServiceTest {
         medicalRecords.add(new MedicalRecord("Jane", "Doe", "02/02/1995", List.of("Ibuprofen"), List.of("Pollen")));
 
         when(dataRepository.getMedicalRecords()).thenReturn(medicalRecords);
-        medicalRecordService = new MedicalRecordService(dataRepository, medicalRecordMapper);
+        when(dataRepository.getDataset()).thenReturn(new Dataset(new ArrayList<>(), new ArrayList<>(), medicalRecords, 0));
+        medicalRecordService = new MedicalRecordService(dataRepository, medicalRecordMapper, new KeyLocks(16));
     }
 
     @Test
@@ -52,7 +55,7 @@ class MedicalRecordServiceTest {
 
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(dataRepository, times(2)).getMedicalRecords();
+        verify(dataRepository, times(1)).getMedicalRecords();
     }
 
     @Test
@@ -71,7 +74,7 @@ class MedicalRecordServiceTest {
         assertEquals("01/01/1990", result.getBirthdate());
         assertEquals(List.of("Aspirin"), result.getMedications());
         assertEquals(List.of("Peanuts"), result.getAllergies());
-        verify(dataRepository, times(2)).getMedicalRecords();
+        verify(dataRepository, times(1)).getDataset();
     }
 
     @Test
@@ -94,7 +97,7 @@ class MedicalRecordServiceTest {
 
         medicalRecordService.addMedicalrecord(medicalRecordCreateDTO);
 
-        verify(dataRepository, times(1)).writeData(eq("medicalrecords"), anyList());
+        verify(dataRepository, times(1)).add(eq(DataSection.MEDICAL_RECORDS), any(MedicalRecord.class));
     }
 
     @Test
@@ -109,6 +112,18 @@ class MedicalRecordServiceTest {
         assertEquals("Resource already exist", exception.getMessage());
     }
 
+    @Test
+    void addMedicalrecord_whenTheBirthdateIsNotADate_shouldThrowIllegalArgumentException_test() {
+
+        MedicalRecordCreateDTO createDTO = new MedicalRecordCreateDTO("Alice", "Smith", "13/45/2000", List.of(), List.of());
+
+        when(medicalRecordMapper.toEntityFromCreateDTO(createDTO))
+                .thenReturn(new MedicalRecord("Alice", "Smith", "13/45/2000", List.of(), List.of()));
+
+        assertThrows(IllegalArgumentException.class, () -> medicalRecordService.addMedicalrecord(createDTO));
+        verify(dataRepository, never()).add(any(), any());
+    }
+
     @Test
     void updateMedicalrecord_shouldUpdateMedicalRecord_test() {
         MedicalRecordUpdateDTO medicalRecordUpdateDTO = new MedicalRecordUpdateDTO("05/05/1992", List.of("Tylenol"), List.of("Cats"));
@@ -118,7 +133,7 @@ class MedicalRecordServiceTest {
 
         medicalRecordService.updateMedicalrecord(medicalRecordUpdateDTO, "John", "Doe");
 
-        verify(dataRepository, times(1)).writeData(eq("medicalRecords"), anyList());
+        verify(dataRepository, times(1)).update(eq(DataSection.MEDICAL_RECORDS), any(MedicalRecord.class));
     }
 
     @Test
@@ -136,9 +151,11 @@ class MedicalRecordServiceTest {
     @Test
     void deleteMedicalrecord_shouldDeleteMedicalRecord_test() {
 
+        when(dataRepository.delete(DataSection.MEDICAL_RECORDS, List.of("John", "Doe"))).thenReturn(true);
+
         medicalRecordService.deleteMedicalrecord("John", "Doe");
 
-        verify(dataRepository, times(1)).writeData(eq("medicalRecord"), anyList());
+        verify(dataRepository, times(1)).delete(DataSection.MEDICAL_RECORDS, List.of("John", "Doe"));
     }
 
     @Test
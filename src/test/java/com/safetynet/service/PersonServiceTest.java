@@ -4,10 +4,13 @@ import com.safetynet.dto.person.PersonCreateDTO;
 import com.safetynet.dto.person.PersonResponseDTO;
 import com.safetynet.dto.person.PersonUpdateDTO;
 import com.safetynet.exception.ConflictException;
+import com.safetynet.exception.PreconditionFailedException;
 import com.safetynet.exception.ResourceNotFoundException;
 import com.safetynet.mapper.PersonMapper;
 import com.safetynet.model.Person;
 import com.safetynet.repository.DataRepository;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.Dataset;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -39,7 +42,8 @@ class PersonServiceTest {
         persons.add(new Person("Jane", "Doe", "456 Elm St", "Shelbyville", 67890, "555-555-5556", "jane.doe@email.com"));
 
         when(dataRepository.getPersons()).thenReturn(persons);
-        personService = new PersonService(dataRepository, personMapper);
+        when(dataRepository.getDataset()).thenReturn(new Dataset(persons, new ArrayList<>(), new ArrayList<>(), 0));
+        personService = new PersonService(dataRepository, personMapper, new KeyLocks(16));
     }
 
     @Test
@@ -51,7 +55,7 @@ class PersonServiceTest {
 
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(dataRepository, times(2)).getPersons();
+        verify(dataRepository, times(1)).getPersons();
     }
 
     @Test
@@ -67,7 +71,7 @@ class PersonServiceTest {
         assertEquals("123 Main St", result.getAddress());
         assertEquals("Springfield", result.getCity());
         assertEquals("12345", result.getZip());
-        verify(dataRepository, times(2)).getPersons();
+        verify(dataRepository, times(1)).getDataset();
     }
 
     @Test
@@ -88,7 +92,7 @@ class PersonServiceTest {
 
         personService.addPerson(personCreateDTO);
 
-        verify(dataRepository, times(1)).writeData(eq("persons"), anyList());
+        verify(dataRepository, times(1)).add(eq(DataSection.PERSONS), any(Person.class));
     }
 
     @Test
@@ -111,7 +115,7 @@ class PersonServiceTest {
 
         personService.updatePerson(personUpdateDTO, "John", "Doe");
 
-        verify(dataRepository, times(1)).writeData(eq("persons"), anyList());
+        verify(dataRepository, times(1)).update(eq(DataSection.PERSONS), any(Person.class));
     }
 
     @Test
@@ -126,12 +130,46 @@ class PersonServiceTest {
         assertEquals("Resource not found", exception.getMessage());
     }
 
+    @Test
+    void updatePerson_whenIfMatchIsTheCurrentTag_shouldUpdateExistingPerson() {
+        PersonUpdateDTO personUpdateDTO = new PersonUpdateDTO("999 Pine St", "Gotham", "33445", "555-555-5558", "new.email@email.com");
+        when(personMapper.toEntityFromUpdateDTO(personUpdateDTO))
+                .thenReturn(new Person("John", "Doe", "999 Pine St", "Gotham", 33445, "555-555-5558", "new.email@email.com"));
+
+        String tag = personService.getPersonTag("John", "Doe");
+        personService.updatePerson(personUpdateDTO, "John", "Doe", tag);
+
+        verify(dataRepository, times(1)).update(eq(DataSection.PERSONS), any(Person.class));
+    }
+
+    @Test
+    void updatePerson_whenChangedSinceRead_shouldThrowException() {
+        PersonUpdateDTO personUpdateDTO = new PersonUpdateDTO("999 Pine St", "Gotham", "33445", "555-555-5558", "new.email@email.com");
+
+        assertThrows(PreconditionFailedException.class, () ->
+                personService.updatePerson(personUpdateDTO, "John", "Doe", EntityTags.of(42))
+        );
+
+        verify(dataRepository, never()).update(any(), any());
+    }
+
+    @Test
+    void deletePerson_whenChangedSinceRead_shouldThrowException() {
+        assertThrows(PreconditionFailedException.class, () ->
+                personService.deletePerson("John", "Doe", EntityTags.of(42))
+        );
+
+        verify(dataRepository, never()).delete(any(), any());
+    }
+
     @Test
     void deletePerson_shouldRemovePerson() {
 
+        when(dataRepository.delete(DataSection.PERSONS, List.of("John", "Doe"))).thenReturn(true);
+
         personService.deletePerson("John", "Doe");
 
-        verify(dataRepository, times(1)).writeData(eq("persons"), anyList());
+        verify(dataRepository, times(1)).delete(DataSection.PERSONS, List.of("John", "Doe"));
     }
 
     @Test
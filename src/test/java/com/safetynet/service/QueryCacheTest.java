@@ -0,0 +1,137 @@
+package com.safetynet.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+
+    private static final long[] T = {1, 1};
+
+    @Test
+    void get_shouldComputeTheAnswerAgainWhenTheTagChanges() {
+        QueryCache queryCache = new QueryCache(16);
+        AtomicInteger computed = new AtomicInteger();
+
+        assertEquals(1, queryCache.get(List.of("fire", "1509 Culver St"), new long[] {1}, computed::incrementAndGet));
+        assertEquals(1, queryCache.get(List.of("fire", "1509 Culver St"), new long[] {1}, computed::incrementAndGet));
+        assertEquals(2, queryCache.get(List.of("fire", "1509 Culver St"), new long[] {2}, computed::incrementAndGet));
+        assertEquals(3, queryCache.get(List.of("fire", "29 15th St"), new long[] {2}, computed::incrementAndGet));
+
+        assertEquals(1, queryCache.getHits());
+        assertEquals(3, queryCache.getMisses());
+        assertEquals(2, queryCache.getSize());
+    }
+
+    @Test
+    void get_whenFull_shouldEvictTheLeastRecentlyUsedAnswer() {
+        QueryCache queryCache = new QueryCache(2);
+
+        queryCache.get(List.of("childAlert", "1"), T, () -> "first");
+        queryCache.get(List.of("childAlert", "2"), T, () -> "second");
+        // Used again : the second one is now the least recently used
+        queryCache.get(List.of("childAlert", "1"), T, () -> "not computed");
+        queryCache.get(List.of("childAlert", "3"), T, () -> "third");
+
+        assertEquals("first", queryCache.get(List.of("childAlert", "1"), T, () -> "not computed"));
+        assertEquals("computed again", queryCache.get(List.of("childAlert", "2"), T, () -> "computed again"));
+        assertEquals(2, queryCache.getEvictions());
+        assertEquals(2, queryCache.getSize());
+    }
+
+    @Test
+    void get_whenQueryThrows_shouldKeepNothing() {
+        QueryCache queryCache = new QueryCache(16);
+
+        assertThrows(IllegalStateException.class, () -> queryCache.get(List.of("flood", List.of(1)), T, () -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        assertEquals(0, queryCache.getSize());
+        assertEquals("computed", queryCache.get(List.of("flood", List.of(1)), T, () -> "computed"));
+    }
+
+    @Test
+    void get_whenNoEntry_shouldAlwaysCompute() {
+        QueryCache queryCache = new QueryCache(0);
+
+        assertEquals("first", queryCache.get(List.of("fire", "x"), T, () -> "first"));
+        assertEquals("second", queryCache.get(List.of("fire", "x"), T, () -> "second"));
+        assertEquals(0, queryCache.getHits());
+        assertEquals(0, queryCache.getEvictions());
+    }
+
+    @Test
+    void get_shouldNotReplaceAnAnswerByAnOlderOne() {
+        QueryCache queryCache = new QueryCache(16);
+
+        queryCache.get(List.of("fire", "x"), new long[] {2, 5}, () -> "newer");
+        // Computed from versions read before the newer ones : kept out
+        assertEquals("older", queryCache.get(List.of("fire", "x"), new long[] {2, 4}, () -> "older"));
+
+        assertEquals("newer", queryCache.get(List.of("fire", "x"), new long[] {2, 5}, () -> "not computed"));
+    }
+
+    @Test
+    void get_whenConcurrentMisses_shouldComputeTheQueryOnce() throws Exception {
+        QueryCache queryCache = new QueryCache(16);
+        AtomicInteger computed = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> queryCache.get(List.of("fire", "x"), T, () -> {
+                started.countDown();
+                await(release);
+                return computed.incrementAndGet();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Integer> second = executor.submit(() -> queryCache.get(List.of("fire", "x"), T, computed::incrementAndGet));
+
+            // The second one waits for the first
+            Thread.sleep(100);
+            assertFalse(second.isDone());
+            release.countDown();
+
+            assertEquals(1, first.get(5, TimeUnit.SECONDS));
+            assertEquals(1, second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, computed.get());
+            assertEquals(1, queryCache.getMisses());
+            assertEquals(1, queryCache.getHits());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void bindTo_shouldPublishTheStatistics() {
+        QueryCache queryCache = new QueryCache(16);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        queryCache.bindTo(registry);
+
+        queryCache.get(List.of("fire", "x"), T, () -> "computed");
+        queryCache.get(List.of("fire", "x"), T, () -> "not computed");
+
+        assertEquals(1, registry.get("cache.gets").tags("cache", "search", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "search", "result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").tags("cache", "search").gauge().value());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -7,12 +7,16 @@ import com.safetynet.model.Firestation;
 import com.safetynet.model.MedicalRecord;
 import com.safetynet.model.Person;
 import com.safetynet.repository.DataRepository;
+import com.safetynet.repository.DataSection;
+import com.safetynet.repository.Dataset;
+import com.safetynet.repository.Mutation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.Clock;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,10 +45,8 @@ class SearchServiceTest {
                 new MedicalRecord("John", "Doe", "01/01/2000", List.of("Med1"), List.of("Allergy1")),
                 new MedicalRecord("Jane", "Doe", "01/01/2018", List.of("Med2"), List.of("Allergy2"))
         );
-        when(dataRepository.getPersons()).thenReturn(persons);
-        when(dataRepository.getFirestations()).thenReturn(firestations);
-        when(dataRepository.getMedicalRecords()).thenReturn(medicalRecords);
-        searchService = new SearchService(dataRepository, personMapper);
+        when(dataRepository.getDataset()).thenReturn(new Dataset(persons, firestations, medicalRecords, 0));
+        searchService = new SearchService(dataRepository, personMapper, new DailyClock(Clock.systemDefaultZone()), new QueryCache(0));
     }
 
     @Test
@@ -56,6 +58,15 @@ class SearchServiceTest {
         assertEquals(1, response.getChildCount().get());
     }
 
+    @Test
+    void getCoveredPersonsByStation_shouldNotShareTheCountersOfTheCachedAnswer() {
+        searchService = new SearchService(dataRepository, personMapper, new DailyClock(Clock.systemDefaultZone()), new QueryCache(16));
+
+        searchService.getCoveredPersonsByStation(1).getAdultCount().incrementAndGet();
+
+        assertEquals(1, searchService.getCoveredPersonsByStation(1).getAdultCount().get());
+    }
+
     @Test
     void getCoveredPersonsByStation_whenStationNotFound_shouldThrowException() {
         assertThrows(ResourceNotFoundException.class, () -> searchService.getCoveredPersonsByStation(99));
@@ -96,6 +107,26 @@ class SearchServiceTest {
         assertEquals(2, response.getPersons().size());
     }
 
+    @Test
+    void getPersonsByAddressStation_shouldServeTheCachedAnswerUntilTheDataChanges() {
+        QueryCache queryCache = new QueryCache(16);
+        searchService = new SearchService(dataRepository, personMapper, new DailyClock(Clock.systemDefaultZone()), queryCache);
+
+        FireResponseDTO first = searchService.getPersonsByAddressStation("123 Main St");
+        assertSame(first, searchService.getPersonsByAddressStation("123 Main St"));
+
+        Dataset next = dataRepository.getDataset().edit();
+        next.apply(Mutation.Type.UPDATE, DataSection.MEDICAL_RECORDS, List.of("John", "Doe"),
+                new MedicalRecord("John", "Doe", "01/01/2000", List.of("Med3"), List.of("Allergy1")));
+        when(dataRepository.getDataset()).thenReturn(next);
+
+        FireResponseDTO changed = searchService.getPersonsByAddressStation("123 Main St");
+
+        assertEquals(List.of("Med3"), changed.getPersons().get(0).getMedications());
+        assertEquals(1, queryCache.getHits());
+        assertEquals(2, queryCache.getMisses());
+    }
+
     @Test
     void getPersonsByAddressStation_whenAddressNotFound_shouldThrowException() {
         assertThrows(ResourceNotFoundException.class, () -> searchService.getPersonsByAddressStation("Unknown Address"));
@@ -125,6 +156,34 @@ class SearchServiceTest {
         assertThrows(ResourceNotFoundException.class, () -> searchService.getPersonByLastNameWithMedicalRecord("Unknown Last Name"));
     }
 
+    @Test
+    void getPersonByLastNameWithMedicalRecord_shouldReturnThePage() {
+        PersonsInfoLastNameResponseDTO response = searchService.getPersonByLastNameWithMedicalRecord("Doe", 1, 1);
+
+        assertEquals(1, response.getPersons().size());
+        assertEquals("jane.doe@email.com", response.getPersons().getFirst().getEmail());
+        assertFalse(response.isHasNext());
+    }
+
+    @Test
+    void getPersonByLastNameWithMedicalRecord_whenThePageIsOutOfRange_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> searchService.getPersonByLastNameWithMedicalRecord("Doe", -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> searchService.getPersonByLastNameWithMedicalRecord("Doe", 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> searchService.getPersonsByLastNameRange(null, null, 0, SearchService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void getPersonsByLastNamePrefix_shouldReturnThePersonsOrderedByLastName() {
+        PersonsInfoLastNameResponseDTO response = searchService.getPersonsByLastNamePrefix("D", 0, 1);
+
+        assertEquals(1, response.getPersons().size());
+        assertTrue(response.isHasNext());
+        assertEquals(2, searchService.getPersonsByLastNamePrefix("Do", 0, 10).getPersons().size());
+        assertTrue(searchService.getPersonsByLastNamePrefix("Da", 0, 10).getPersons().isEmpty());
+        assertTrue(searchService.getPersonsByLastNameRange("E", null, 0, 10).getPersons().isEmpty());
+    }
+
     @Test
     void getEmailsByCity_shouldReturnEmails() {
         CommunityEmailResponseDTO response = searchService.getEmailsByCity("Springfield");